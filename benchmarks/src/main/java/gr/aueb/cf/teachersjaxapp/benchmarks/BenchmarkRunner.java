@@ -0,0 +1,45 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of the benchmarks jar. Runs the benchmarks selected
+ * by the JMH command line (all of them by default) with the
+ * allocation profiler ('-prof gc') and writes the throughput and
+ * allocation-rate results as JSON, so that they can be kept as
+ * the baseline of a release and compared with the next one.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class BenchmarkRunner {
+
+    /**
+     * No instances of this class should be available.
+     */
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        String result = cmd.getResult().orElse("results/jmh-result.json");
+        new File(result).getAbsoluteFile().getParentFile().mkdirs();
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(result);
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.DBUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An in-memory H2 database in MySQL mode that stands in
+ * for the schooldb database. The pool is created by {@link DBUtil},
+ * so the benchmarks run with the app's own pool configuration.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class EmbeddedDatabase {
+    public static final String[] LASTNAMES = {
+            "Andreou", "Antoniou", "Georgiou", "Dimitriou", "Ioannou",
+            "Konstantinou", "Nikolaou", "Papadopoulos", "Pappas", "Vlachos"
+    };
+
+    /**
+     * No instances of this class should be available.
+     */
+    private EmbeddedDatabase() { }
+
+    /**
+     * Creates the TEACHERS table in a new in-memory database
+     * and fills it with the given number of rows.
+     *
+     * @param name the name of the database.
+     * @param rows the number of rows to insert.
+     * @return the pool of the database.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static InstrumentedDataSource create(String name, int rows) throws SQLException {
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.url", "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "sa");
+        // The driver properties of the app are for MySQL Connector/J and H2 rejects them
+        for (String property : ConfigUtil.getProperties("db.connection.").stringPropertyNames()) {
+            System.setProperty("db.connection." + property, "");
+        }
+
+        InstrumentedDataSource dataSource = DBUtil.createDataSource();
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS TEACHERS");
+                st.execute("CREATE TABLE TEACHERS (ID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "FIRSTNAME VARCHAR(52) NOT NULL, LASTNAME VARCHAR(52) NOT NULL)");
+                st.execute("CREATE INDEX IDX_TEACHERS_LASTNAME ON TEACHERS (LASTNAME, ID)");
+            }
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES (?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setString(1, "First" + i);
+                    ps.setString(2, LASTNAMES[i % LASTNAMES.length] + i);
+                    ps.addBatch();
+                    if (i % 1000 == 999) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,72 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the read queries of {@link TeacherDAOImpl} with
+ * and without the pooled prepared statements ('db.pool.poolPreparedStatements'),
+ * i.e. the cost of preparing every statement on every call.
+ *
+ * @author Thanasis Chousiadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparedStatementBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({"true", "false"})
+    private boolean poolPreparedStatements;
+
+    private InstrumentedDataSource dataSource;
+    private TeacherDAOImpl dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        System.setProperty("db.pool.poolPreparedStatements", Boolean.toString(poolPreparedStatements));
+        dataSource = EmbeddedDatabase.create("ps" + poolPreparedStatements, ROWS);
+        dao = new TeacherDAOImpl(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+        System.clearProperty("db.pool.poolPreparedStatements");
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, ROWS + 1);
+    }
+
+    @Benchmark
+    public Teacher getById() throws TeacherDAOException {
+        return dao.getById(randomId());
+    }
+
+    @Benchmark
+    public List<Teacher> getByLastnamePage() throws TeacherDAOException {
+        return dao.getByLastname("P", null, 100);
+    }
+
+    @Benchmark
+    public List<Teacher> getByIds() throws TeacherDAOException {
+        List<Long> ids = new ArrayList<>(50);
+        for (int i = 0; i < 50; i++) {
+            ids.add(randomId());
+        }
+        return dao.getByIds(ids);
+    }
+}
@@ -0,0 +1,53 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherReadOnlyDTO;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Jackson serialization of the lists
+ * that the REST layer returns.
+ *
+ * @author Thanasis Chousiadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<Teacher> teachers;
+    private List<TeacherReadOnlyDTO> readOnlyDTOS;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        teachers = new ArrayList<>(size);
+        readOnlyDTOS = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            teachers.add(new Teacher((long) i, "First" + i, "Last" + i));
+            readOnlyDTOS.add(new TeacherReadOnlyDTO((long) i, "First" + i, "Last" + i));
+        }
+    }
+
+    @Benchmark
+    public byte[] teachers() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(teachers);
+    }
+
+    @Benchmark
+    public byte[] readOnlyDTOS() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(readOnlyDTOS);
+    }
+}
@@ -0,0 +1,91 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherReadOnlyDTO;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the CRUD operations of {@link TeacherDAOImpl}
+ * against the embedded database, through the app's connection pool.
+ *
+ * @author Thanasis Chousiadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeacherDAOBenchmark {
+    private static final int ROWS = 10_000;
+
+    private InstrumentedDataSource dataSource;
+    private TeacherDAOImpl dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = EmbeddedDatabase.create("dao", ROWS);
+        dao = new TeacherDAOImpl(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, ROWS + 1);
+    }
+
+    @Benchmark
+    public Teacher getById() throws TeacherDAOException {
+        return dao.getById(randomId());
+    }
+
+    @Benchmark
+    public List<Teacher> getByLastname() throws TeacherDAOException {
+        String lastname = EmbeddedDatabase.LASTNAMES[ThreadLocalRandom.current().nextInt(EmbeddedDatabase.LASTNAMES.length)];
+        return dao.getByLastname(lastname + "1");
+    }
+
+    /**
+     * The same query as {@link #getByLastname()}, with the rows
+     * mapped straight to the response DTOs.
+     */
+    @Benchmark
+    public List<TeacherReadOnlyDTO> getByLastnameToDTO() throws TeacherDAOException {
+        String lastname = EmbeddedDatabase.LASTNAMES[ThreadLocalRandom.current().nextInt(EmbeddedDatabase.LASTNAMES.length)];
+        return dao.getByLastname(lastname + "1", TeacherReadOnlyDTO::new);
+    }
+
+    @Benchmark
+    public List<Teacher> getByLastnamePage() throws TeacherDAOException {
+        return dao.getByLastname("P", null, 100);
+    }
+
+    @Benchmark
+    public List<TeacherReadOnlyDTO> getByLastnamePageToDTO() throws TeacherDAOException {
+        return dao.getByLastname("P", null, 100, TeacherReadOnlyDTO::new);
+    }
+
+    @Benchmark
+    public Teacher update() throws TeacherDAOException {
+        long id = randomId();
+        return dao.update(new Teacher(id, "First" + id, "Updated" + id));
+    }
+
+    @Benchmark
+    public Teacher insertAndDelete() throws TeacherDAOException {
+        Teacher teacher = dao.insert(new Teacher(null, "Bench", "Insert"));
+        dao.delete(teacher.getId());
+        return teacher;
+    }
+}
@@ -0,0 +1,79 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherUpdateDTO;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.TeacherServiceImpl;
+import gr.aueb.cf.teachersjaxapp.service.exceptions.TeacherNotFoundException;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the DTO mapping of {@link TeacherServiceImpl}.
+ * The service runs over a DAO that returns its input without
+ * touching a database, so only the service's own work is measured.
+ *
+ * @author Thanasis Chousiadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeacherServiceBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private TeacherServiceImpl service;
+    private TeacherInsertDTO insertDTO;
+    private TeacherUpdateDTO updateDTO;
+    private List<TeacherInsertDTO> insertDTOS;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TeacherServiceImpl(echoDAO());
+        insertDTO = new TeacherInsertDTO("Bench", "Mapping");
+        updateDTO = new TeacherUpdateDTO(1L, "Bench", "Mapping");
+        insertDTOS = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            insertDTOS.add(new TeacherInsertDTO("First" + i, "Last" + i));
+        }
+    }
+
+    @Benchmark
+    public Teacher insertTeacher() throws TeacherDAOException {
+        return service.insertTeacher(insertDTO);
+    }
+
+    @Benchmark
+    public Teacher updateTeacher() throws TeacherDAOException, TeacherNotFoundException {
+        return service.updateTeacher(updateDTO);
+    }
+
+    @Benchmark
+    public List<Teacher> insertTeachers() throws TeacherDAOException {
+        return service.insertTeachers(insertDTOS);
+    }
+
+    /**
+     * Creates a DAO whose methods return their first argument,
+     * or an existing teacher for the lookups by id.
+     */
+    private static ITeacherDAO echoDAO() {
+        Teacher existing = new Teacher(1L, "Bench", "Mapping");
+        return (ITeacherDAO) Proxy.newProxyInstance(ITeacherDAO.class.getClassLoader(),
+                new Class<?>[] { ITeacherDAO.class },
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("getById")) return existing;
+                    return (args == null || args.length == 0) ? null : args[0];
+                });
+    }
+}
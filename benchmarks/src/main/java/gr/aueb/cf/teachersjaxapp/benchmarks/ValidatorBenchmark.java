@@ -0,0 +1,52 @@
+package gr.aueb.cf.teachersjaxapp.benchmarks;
+
+import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the validation of the body of
+ * POST /api/teachers, with a {@link Validator} that is built
+ * per call (as a per-request resource instance does) and with
+ * a shared one.
+ *
+ * @author Thanasis Chousiadas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+    private final TeacherInsertDTO valid = new TeacherInsertDTO("Thanasis", "Chousiadas");
+    private final TeacherInsertDTO invalid = new TeacherInsertDTO("Th", null);
+    private Validator sharedValidator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sharedValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TeacherInsertDTO>> validatorPerRequest() {
+        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+        return factory.getValidator().validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TeacherInsertDTO>> sharedValidatorValid() {
+        return sharedValidator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TeacherInsertDTO>> sharedValidatorInvalid() {
+        return sharedValidator.validate(invalid);
+    }
+}
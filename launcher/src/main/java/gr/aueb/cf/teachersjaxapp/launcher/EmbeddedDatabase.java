@@ -0,0 +1,80 @@
+package gr.aueb.cf.teachersjaxapp.launcher;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * An in-memory H2 database in MySQL mode that stands in for the
+ * schooldb database, for load tests and demos. It must be created
+ * before the app starts, since it points the 'db.*' keys to itself.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class EmbeddedDatabase {
+    public static final String URL = "jdbc:h2:mem:schooldb;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String[] LASTNAMES = {
+            "Andreou", "Antoniou", "Georgiou", "Dimitriou", "Ioannou",
+            "Konstantinou", "Nikolaou", "Papadopoulos", "Pappas", "Vlachos"
+    };
+
+    /**
+     * No instances of this class should be available.
+     */
+    private EmbeddedDatabase() { }
+
+    /**
+     * Returns the stems of the lastnames of the rows; the lastname
+     * of every row is one of them followed by the number of the row.
+     *
+     * @return the stems of the lastnames.
+     */
+    public static List<String> getLastnames() {
+        return List.of(LASTNAMES);
+    }
+
+    /**
+     * Creates the TEACHERS table and fills it with the given number of rows.
+     *
+     * @param rows the number of rows to insert.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static void create(int rows) throws SQLException {
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.url", URL);
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "sa");
+        System.setProperty("db.replicas", "");
+        // The driver properties of the app are for MySQL Connector/J and H2 rejects them
+        for (String property : ConfigUtil.getProperties("db.connection.").stringPropertyNames()) {
+            System.setProperty("db.connection." + property, "");
+        }
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "sa")) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS TEACHERS (ID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "FIRSTNAME VARCHAR(52) NOT NULL, LASTNAME VARCHAR(52) NOT NULL)");
+                st.execute("CREATE INDEX IF NOT EXISTS IDX_TEACHERS_LASTNAME ON TEACHERS (LASTNAME, ID)");
+            }
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES (?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setString(1, "First" + i);
+                    ps.setString(2, LASTNAMES[i % LASTNAMES.length] + i);
+                    ps.addBatch();
+                    if (i % 1000 == 999) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package gr.aueb.cf.teachersjaxapp.launcher;
+
+import gr.aueb.cf.teachersjaxapp.TeachersApplication;
+import gr.aueb.cf.teachersjaxapp.rest.filter.ClientAddressFilter;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.servlet.FilterRegistration;
+import org.glassfish.grizzly.servlet.ServletRegistration;
+import org.glassfish.grizzly.servlet.WebappContext;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.Path;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Runs the app in an embedded Grizzly servlet container, without a
+ * war and an external server. Jersey starts Weld SE as its injection
+ * manager, as in the war. The resources and providers are registered
+ * from the Jandex index of the app (META-INF/jandex.idx), which Weld
+ * also reads for the bean discovery, so no classes are scanned.
+ * <p>
+ * The launcher is configured with the same keys as the app, e.g.
+ * -Dlauncher.port=8080, and with 'launcher.embeddedDatabase=true' it
+ * runs against an in-memory H2 database instead of MySQL. With
+ * 'launcher.exitAfterStartup=true' it stops as soon as it has started,
+ * which is how the class data sharing archive of the README is dumped.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class Launcher {
+    private static final String INDEX = "META-INF/jandex.idx";
+    private static final String BASE_PACKAGE = "gr.aueb.cf.teachersjaxapp";
+
+    /**
+     * No instances of this class should be available.
+     */
+    private Launcher() { }
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+
+        if (ConfigUtil.getBoolean("launcher.embeddedDatabase", false)) {
+            EmbeddedDatabase.create(ConfigUtil.getInt("launcher.embeddedDatabase.rows", 0));
+        }
+
+        HttpServer server = start(
+                ConfigUtil.getString("launcher.host", "0.0.0.0"),
+                ConfigUtil.getInt("launcher.port", 8080));
+
+        long startupMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("teachers-jax-app started in " + startupMillis + " ms (JVM up for "
+                + ManagementFactory.getRuntimeMXBean().getUptime() + " ms), listening on "
+                + server.getListeners().iterator().next().getHost() + ":" + server.getListeners().iterator().next().getPort());
+
+        if (ConfigUtil.getBoolean("launcher.exitAfterStartup", false)) {
+            // A training run, e.g. to dump the class data sharing archive of the app
+            System.exit(0);
+        }
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Starts the server with the app deployed under its application path.
+     * The app is initialized before the server accepts requests.
+     *
+     * @param host the address to listen on.
+     * @param port the port to listen on, or 0 for any free port.
+     * @return the started {@link HttpServer}.
+     * @throws IOException if the server cannot listen on the port.
+     */
+    public static HttpServer start(String host, int port) throws IOException {
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(URI.create("http://" + host + ":" + port + "/"), false);
+
+        WebappContext context = new WebappContext("teachers-jax-app", "");
+        // A servlet container registers it from its @WebFilter, Grizzly does not scan for it
+        FilterRegistration filter = context.addFilter("client-address", new ClientAddressFilter());
+        filter.addMappingForUrlPatterns(null, "/*");
+        filter.setAsyncSupported(true);
+        ServletRegistration registration = context.addServlet("jersey", new ServletContainer(resourceConfig()));
+        registration.addMapping(TeachersApplication.class.getAnnotation(ApplicationPath.class).value() + "/*");
+        registration.setLoadOnStartup(1);
+        // The resources complete their responses on the database executor
+        registration.setAsyncSupported(true);
+        context.deploy(server);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            context.undeploy();
+            server.shutdownNow();
+        }, "launcher-shutdown"));
+
+        server.start();
+        return server;
+    }
+
+    private static ResourceConfig resourceConfig() throws IOException {
+        ResourceConfig config = ResourceConfig.forApplicationClass(TeachersApplication.class);
+
+        Set<String> classes = indexedComponents();
+        if (classes.isEmpty()) {
+            // No index, e.g. when run from an IDE: Jersey scans the packages instead
+            return config.packages(BASE_PACKAGE);
+        }
+
+        ClassLoader loader = Launcher.class.getClassLoader();
+        for (String name : classes) {
+            try {
+                config.register(loader.loadClass(name));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Indexed class not found " + name, e);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Returns the resources and providers of the app found in its Jandex index.
+     */
+    private static Set<String> indexedComponents() throws IOException {
+        Set<String> classes = new TreeSet<>();
+
+        try (InputStream in = TeachersApplication.class.getClassLoader().getResourceAsStream(INDEX)) {
+            if (in == null) return classes;
+
+            Index index = new IndexReader(in).read();
+            for (Class<?> annotation : new Class<?>[] {Path.class, Provider.class}) {
+                for (AnnotationInstance instance : index.getAnnotations(DotName.createSimple(annotation.getName()))) {
+                    // @Path on a method is a sub-resource of an indexed class
+                    if (instance.target().kind() == AnnotationTarget.Kind.CLASS) {
+                        classes.add(instance.target().asClass().name().toString());
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+}
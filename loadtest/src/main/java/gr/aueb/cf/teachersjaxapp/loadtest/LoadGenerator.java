@@ -0,0 +1,113 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the requests of a load test from a number of worker threads.
+ * <p>
+ * Without a target rate every worker sends its next request as soon
+ * as the previous one completes (closed loop). With a target rate the
+ * requests are scheduled at fixed intervals and the latency is measured
+ * from the time a request was due, not from when it was sent; a slow
+ * response then also counts against the requests that queued behind it,
+ * instead of hiding them (coordinated omission).
+ *
+ * @author Thanasis Chousiadas
+ */
+public class LoadGenerator {
+    private final Workload workload;
+    private final Mix mix;
+    private final int concurrency;
+    private final long ratePerSecond;
+    private final HttpClient client;
+
+    /**
+     * Creates a generator.
+     *
+     * @param workload      the state the requests are built from.
+     * @param mix           the share of every operation.
+     * @param concurrency   the number of worker threads.
+     * @param ratePerSecond the target rate of all the workers, or 0 for a closed loop.
+     */
+    public LoadGenerator(Workload workload, Mix mix, int concurrency, long ratePerSecond) {
+        this.workload = workload;
+        this.mix = mix;
+        this.concurrency = concurrency;
+        this.ratePerSecond = ratePerSecond;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs the workers for the given duration.
+     *
+     * @param duration how long the requests are sent for.
+     * @return the results of every operation.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public Map<Operation, OperationStats> run(Duration duration) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intervalNanos = (ratePerSecond > 0) ? TimeUnit.SECONDS.toNanos(concurrency) / ratePerSecond : 0;
+
+        Thread[] workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            // The workers of a paced run start a fraction of the interval apart
+            long first = start + (intervalNanos * i) / concurrency;
+            workers[i] = new Thread(() -> work(stats, first, end, intervalNanos), "loadtest-worker-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return stats;
+    }
+
+    private void work(Map<Operation, OperationStats> stats, long first, long end, long intervalNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long due = first;
+
+        while (true) {
+            long sent;
+            if (intervalNanos > 0) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                sent = due;
+                due += intervalNanos;
+            } else {
+                sent = System.nanoTime();
+            }
+            if (sent - end >= 0) return;
+
+            Operation operation = mix.next(random);
+            int status;
+            try {
+                HttpResponse<Void> response = client.send(operation.request(workload, random).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                status = response.statusCode();
+                operation.completed(workload, response);
+            } catch (IOException e) {
+                status = OperationStats.NO_RESPONSE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            stats.get(operation).record(status, System.nanoTime() - sent);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import gr.aueb.cf.teachersjaxapp.launcher.EmbeddedDatabase;
+import gr.aueb.cf.teachersjaxapp.launcher.Launcher;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import org.glassfish.grizzly.http.server.HttpServer;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a load test against the app and compares its report with a
+ * baseline. Unless 'loadtest.baseUri' points to a running app, the
+ * app is started in this JVM on the embedded server of the launcher,
+ * against an in-memory database of 'loadtest.rows' teachers.
+ * <p>
+ * The process exits with 1 when the run regresses against the
+ * baseline, or when more than 'loadtest.maxErrorRatio' of the
+ * requests fail, so that the build step running it fails.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class LoadTest {
+
+    /**
+     * No instances of this class should be available.
+     */
+    private LoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        String baseUri = ConfigUtil.getString("loadtest.baseUri", null);
+        long rows = ConfigUtil.getLong("loadtest.rows", 10_000);
+        int concurrency = ConfigUtil.getInt("loadtest.concurrency", 16);
+        long rate = ConfigUtil.getLong("loadtest.rate", 0);
+        Duration warmup = Duration.ofSeconds(ConfigUtil.getLong("loadtest.warmupSeconds", 10));
+        Duration duration = Duration.ofSeconds(ConfigUtil.getLong("loadtest.durationSeconds", 30));
+        File reportFile = new File(ConfigUtil.getString("loadtest.report", "results/loadtest-report.json"));
+        File baselineFile = new File(ConfigUtil.getString("loadtest.baseline", "results/loadtest-baseline.json"));
+
+        HttpServer server = null;
+        if (baseUri == null) {
+            // All the requests come from one client, which the per-client rate limit would throttle
+            if (System.getProperty("limit.rate.enabled") == null) System.setProperty("limit.rate.enabled", "false");
+            EmbeddedDatabase.create((int) rows);
+            server = Launcher.start("127.0.0.1", 0);
+            baseUri = "http://127.0.0.1:" + server.getListeners().iterator().next().getPort() + "/api";
+        }
+
+        Mix mix = Mix.configured();
+        Workload workload = new Workload(baseUri, rows, EmbeddedDatabase.getLastnames());
+        LoadGenerator generator = new LoadGenerator(workload, mix, concurrency, rate);
+
+        System.out.println("Load test of " + baseUri + ": mix " + mix.getName() + ", " + concurrency + " workers, "
+                + ((rate > 0) ? rate + " req/s" : "closed loop") + ", " + warmup.getSeconds() + " s warm-up, "
+                + duration.getSeconds() + " s measured");
+        generator.run(warmup);
+        Map<Operation, OperationStats> stats = generator.run(duration);
+
+        Report report = new Report(workload, mix, concurrency, rate, warmup, duration, stats);
+        report.write(reportFile);
+        print(report.getRoot());
+        System.out.println("Report written to " + reportFile);
+
+        boolean failed = false;
+        JsonNode total = report.getRoot().path("total");
+        double maxErrorRatio = Double.parseDouble(ConfigUtil.getString("loadtest.maxErrorRatio", "0.01"));
+        if (total.path("errors").asLong() > maxErrorRatio * total.path("requests").asLong()) {
+            System.out.println("FAILED: " + total.path("errors").asLong() + " of "
+                    + total.path("requests").asLong() + " requests failed");
+            failed = true;
+        }
+
+        if (ConfigUtil.getBoolean("loadtest.updateBaseline", false)) {
+            report.write(baselineFile);
+            System.out.println("Baseline written to " + baselineFile);
+        } else if (baselineFile.isFile()) {
+            RegressionCheck check = new RegressionCheck(
+                    Double.parseDouble(ConfigUtil.getString("loadtest.threshold.p99", "0.2")),
+                    Double.parseDouble(ConfigUtil.getString("loadtest.threshold.throughput", "0.1")),
+                    ConfigUtil.getLong("loadtest.threshold.minRequests", 100));
+            JsonNode baseline = Report.read(baselineFile);
+            List<String> differences = check.differences(baseline, report.getRoot());
+            if (!differences.isEmpty()) {
+                System.out.println("WARNING: the baseline was run with other settings: " + differences);
+            }
+            List<String> regressions = check.compare(baseline, report.getRoot());
+            for (String regression : regressions) {
+                System.out.println("REGRESSION " + regression);
+            }
+            if (regressions.isEmpty()) System.out.println("No regressions against " + baselineFile);
+            failed |= !regressions.isEmpty();
+        } else {
+            System.out.println("No baseline at " + baselineFile + ", nothing to compare");
+        }
+
+        if (server != null) server.shutdownNow();
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static void print(JsonNode report) {
+        System.out.printf("%-16s %10s %10s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "requests", "req/s", "rejected", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        report.path("operations").fields().forEachRemaining(entry -> print(entry.getKey(), entry.getValue()));
+        print("total", report.path("total"));
+    }
+
+    private static void print(String name, JsonNode stats) {
+        JsonNode latency = stats.path("latencyMillis");
+        System.out.printf("%-16s %10d %10.1f %8d %8d %10.3f %10.3f %10.3f %10.3f%n",
+                name, stats.path("requests").asLong(), stats.path("throughput").asDouble(),
+                stats.path("rejected").asLong(), stats.path("errors").asLong(),
+                latency.path("p50").asDouble(), latency.path("p90").asDouble(),
+                latency.path("p99").asDouble(), latency.path("max").asDouble());
+    }
+}
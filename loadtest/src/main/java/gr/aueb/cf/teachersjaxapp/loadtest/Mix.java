@@ -0,0 +1,143 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The share of every operation in the requests of a load test.
+ * A run starts from a named mix, 'loadtest.mix', and the weight of
+ * any operation can be changed with 'loadtest.weight.&lt;operation&gt;',
+ * e.g. -Dloadtest.weight.delete=0. The weights are relative,
+ * they do not have to add up to 100.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class Mix {
+    private final String name;
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulative;
+
+    public Mix(String name, Map<Operation, Integer> weights) {
+        this.name = name;
+        this.weights = Collections.unmodifiableMap(new EnumMap<>(weights));
+
+        int total = 0;
+        for (int weight : weights.values()) {
+            if (weight < 0) throw new IllegalArgumentException("Negative weight in mix " + name);
+            total += weight;
+        }
+        if (total == 0) throw new IllegalArgumentException("Empty mix " + name);
+
+        operations = new Operation[weights.size()];
+        cumulative = new int[weights.size()];
+        int i = 0;
+        int sum = 0;
+        for (Map.Entry<Operation, Integer> entry : this.weights.entrySet()) {
+            sum += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulative[i++] = sum;
+        }
+    }
+
+    /**
+     * Returns the configured mix.
+     *
+     * @return the named mix with the overridden weights.
+     * @throws IllegalArgumentException if there is no mix with the configured name.
+     */
+    public static Mix configured() {
+        String name = ConfigUtil.getString("loadtest.mix", "read-heavy");
+        Map<Operation, Integer> weights = named(name);
+
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, ConfigUtil.getInt("loadtest.weight." + operation.getKey(),
+                    weights.getOrDefault(operation, 0)));
+        }
+        return new Mix(name, weights);
+    }
+
+    /**
+     * Returns the weights of a named mix:
+     * 'read-heavy' (mostly reads by id, some writes),
+     * 'write-heavy' (mostly inserts and updates),
+     * 'search' (lastname searches only) and
+     * 'crud' (the four basic operations equally).
+     *
+     * @param name the name of the mix.
+     * @return the weights of the operations.
+     */
+    static Map<Operation, Integer> named(String name) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        switch (name) {
+            case "read-heavy":
+                weights.put(Operation.GET_BY_ID, 40);
+                weights.put(Operation.GET_BY_LASTNAME, 4);
+                weights.put(Operation.GET_PAGE, 15);
+                weights.put(Operation.STREAM, 1);
+                weights.put(Operation.SEARCH, 20);
+                weights.put(Operation.LOOKUP, 5);
+                weights.put(Operation.INSERT, 5);
+                weights.put(Operation.INSERT_ASYNC, 1);
+                weights.put(Operation.INGEST_STATUS, 1);
+                weights.put(Operation.BATCH_INSERT, 1);
+                weights.put(Operation.UPDATE, 5);
+                weights.put(Operation.DELETE, 3);
+                break;
+            case "write-heavy":
+                weights.put(Operation.GET_BY_ID, 20);
+                weights.put(Operation.GET_PAGE, 5);
+                weights.put(Operation.SEARCH, 5);
+                weights.put(Operation.INSERT, 25);
+                weights.put(Operation.INSERT_ASYNC, 10);
+                weights.put(Operation.INGEST_STATUS, 2);
+                weights.put(Operation.BATCH_INSERT, 3);
+                weights.put(Operation.UPDATE, 20);
+                weights.put(Operation.DELETE, 10);
+                // A bulk delete removes loadtest.batchSize of the inserted teachers, which
+                // the updates then miss; it is enabled with loadtest.weight.bulkDelete
+                weights.put(Operation.BULK_UPDATE, 2);
+                break;
+            case "search":
+                weights.put(Operation.GET_BY_LASTNAME, 5);
+                weights.put(Operation.GET_PAGE, 25);
+                weights.put(Operation.STREAM, 5);
+                weights.put(Operation.SEARCH, 65);
+                break;
+            case "crud":
+                weights.put(Operation.GET_BY_ID, 25);
+                weights.put(Operation.INSERT, 25);
+                weights.put(Operation.UPDATE, 25);
+                weights.put(Operation.DELETE, 25);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mix " + name);
+        }
+        return weights;
+    }
+
+    /**
+     * Draws the next operation.
+     *
+     * @param random the random source of the calling thread.
+     * @return the {@link Operation}.
+     */
+    public Operation next(Random random) {
+        int value = random.nextInt(cumulative[cumulative.length - 1]);
+        int index = 0;
+        while (cumulative[index] <= value) index++;
+        return operations[index];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<Operation, Integer> getWeights() {
+        return weights;
+    }
+}
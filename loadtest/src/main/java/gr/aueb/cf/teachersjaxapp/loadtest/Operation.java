@@ -0,0 +1,230 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * The requests of the load test, one per endpoint (and mode) of
+ * TeacherRestResource. Every operation builds its request from the
+ * state of the {@link Workload}, and the inserts add the ids they
+ * create to it, so that the reads, updates and deletes find them.
+ *
+ * @author Thanasis Chousiadas
+ */
+public enum Operation {
+    GET_BY_ID("getById", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers/" + workload.randomId(random));
+        }
+    },
+    GET_BY_LASTNAME("getByLastname", true) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers?lastname=" + encode(workload.prefix(this, random)));
+        }
+    },
+    GET_PAGE("getPage", true) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers?lastname=" + encode(workload.prefix(this, random))
+                    + "&limit=" + workload.getPageSize());
+        }
+    },
+    STREAM("stream", true) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers?stream=true&lastname=" + encode(workload.prefix(this, random)));
+        }
+    },
+    EXPORT("export", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return workload.request("/teachers/export").setHeader("Accept", "application/x-ndjson").GET();
+        }
+    },
+    SEARCH("search", true) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers/search?q=" + encode(workload.prefix(this, random)));
+        }
+    },
+    LOOKUP("lookup", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            StringJoiner ids = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < workload.getLookupSize(); i++) {
+                ids.add(Long.toString(workload.randomId(random)));
+            }
+            return post(workload, "/teachers/lookup", ids.toString());
+        }
+    },
+    INSERT("insert", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return post(workload, "/teachers", teacher(workload, random));
+        }
+
+        @Override
+        void completed(Workload workload, HttpResponse<?> response) {
+            if (response.statusCode() == 201) {
+                response.headers().firstValue("Location").ifPresent(workload::created);
+            }
+        }
+    },
+    INSERT_ASYNC("insertAsync", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return post(workload, "/teachers?async=true", teacher(workload, random));
+        }
+
+        @Override
+        void completed(Workload workload, HttpResponse<?> response) {
+            if (response.statusCode() == 202) {
+                response.headers().firstValue("Location").ifPresent(workload::queued);
+            }
+        }
+    },
+    INGEST_STATUS("ingestStatus", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return get(workload, "/teachers/ingest/" + workload.randomTicket(random));
+        }
+    },
+    BATCH_INSERT("batchInsert", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            StringJoiner teachers = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < workload.getBatchSize(); i++) {
+                teachers.add(teacher(workload, random));
+            }
+            return post(workload, "/teachers/batch", teachers.toString());
+        }
+    },
+    UPDATE("update", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return workload.request("/teachers/" + workload.randomId(random))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(teacher(workload, random)));
+        }
+    },
+    DELETE("delete", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            return workload.request("/teachers/" + workload.takeCreatedId(random)).DELETE();
+        }
+    },
+    BULK_UPDATE("bulkUpdate", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            // The ids of a bulk update must be distinct
+            Set<Long> ids = new LinkedHashSet<>();
+            for (int i = 0; i < workload.getBatchSize() * 2 && ids.size() < workload.getBatchSize(); i++) {
+                ids.add(workload.randomId(random));
+            }
+            StringJoiner teachers = new StringJoiner(",", "[", "]");
+            for (long id : ids) {
+                teachers.add("{\"id\":" + id + "," + teacher(workload, random).substring(1));
+            }
+            return workload.request("/teachers")
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(teachers.toString()));
+        }
+    },
+    BULK_DELETE("bulkDelete", false) {
+        @Override
+        HttpRequest.Builder request(Workload workload, Random random) {
+            StringJoiner ids = new StringJoiner(",");
+            for (long id : workload.takeCreatedIds(workload.getBatchSize())) {
+                ids.add(Long.toString(id));
+            }
+            return workload.request("/teachers?ids=" + ids).DELETE();
+        }
+    };
+
+    private final String key;
+    private final boolean prefixed;
+
+    Operation(String key, boolean prefixed) {
+        this.key = key;
+        this.prefixed = prefixed;
+    }
+
+    /**
+     * Returns the name of the operation in the configuration
+     * keys and in the report, e.g. 'getById'.
+     *
+     * @return the key of the operation.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns whether the operation searches by a lastname prefix.
+     *
+     * @return true if the requests carry a prefix.
+     */
+    public boolean isPrefixed() {
+        return prefixed;
+    }
+
+    /**
+     * Builds the next request of the operation.
+     *
+     * @param workload the state of the load test.
+     * @param random   the random source of the calling thread.
+     * @return the request.
+     */
+    abstract HttpRequest.Builder request(Workload workload, Random random);
+
+    /**
+     * Updates the workload with the response of a request.
+     *
+     * @param workload the state of the load test.
+     * @param response the response of the request.
+     */
+    void completed(Workload workload, HttpResponse<?> response) {
+        // Most operations do not change the workload
+    }
+
+    /**
+     * Returns the operation of a configuration key.
+     *
+     * @param key the key of the operation, e.g. 'getById'.
+     * @return the {@link Operation}.
+     * @throws IllegalArgumentException if no operation has that key.
+     */
+    public static Operation ofKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) return operation;
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+
+    private static HttpRequest.Builder get(Workload workload, String path) {
+        return workload.request(path).GET();
+    }
+
+    private static HttpRequest.Builder post(Workload workload, String path, String json) {
+        return workload.request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private static String teacher(Workload workload, Random random) {
+        return "{\"firstname\":\"Load" + random.nextInt(1_000_000) + "\",\"lastname\":\""
+                + workload.newLastname(random) + "\"}";
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of one operation of a load test: the latencies in an
+ * HdrHistogram, recorded by all the workers without locking, and the
+ * count of the responses by status. 429 (Too Many Requests) and
+ * 503 (Service Unavailable) count as rejected, the other 5xx and
+ * the requests that got no response as errors.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class OperationStats {
+    /** The status of the requests that got no response, e.g. a timeout. */
+    public static final int NO_RESPONSE = 0;
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram histogram = new Histogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    /**
+     * Records a completed request.
+     *
+     * @param status       the status of the response, or {@link #NO_RESPONSE}.
+     * @param latencyNanos the latency of the request.
+     */
+    public void record(int status, long latencyNanos) {
+        recorder.recordValue(Math.max(latencyNanos, 1));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the latencies recorded so far. Not thread-safe;
+     * it is called by the thread that reports the results.
+     *
+     * @return the histogram of the latencies in nanoseconds.
+     */
+    public Histogram getHistogram() {
+        histogram.add(recorder.getIntervalHistogram());
+        return histogram;
+    }
+
+    /**
+     * Returns the number of the responses by status.
+     *
+     * @return the counts, sorted by status.
+     */
+    public Map<Integer, Long> getStatuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    public long getRequests() {
+        long requests = 0;
+        for (LongAdder count : statuses.values()) requests += count.sum();
+        return requests;
+    }
+
+    public long getRejected() {
+        return count(429) + count(503);
+    }
+
+    public long getErrors() {
+        long errors = 0;
+        for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+            int status = entry.getKey();
+            if (status == NO_RESPONSE || (status >= 500 && status != 503)) errors += entry.getValue().sum();
+        }
+        return errors;
+    }
+
+    private long count(int status) {
+        LongAdder count = statuses.get(status);
+        return (count == null) ? 0 : count.sum();
+    }
+}
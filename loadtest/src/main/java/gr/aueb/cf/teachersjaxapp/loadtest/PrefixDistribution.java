@@ -0,0 +1,92 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The lastname prefixes a search operation asks for. The lastname
+ * stems are drawn with a Zipf distribution (the first stem is the most
+ * popular) and cut to a length between the minimum and the maximum,
+ * so short prefixes match many teachers and long ones a few.
+ * <p>
+ * Every search operation has its own distribution, configured with
+ * 'loadtest.&lt;operation&gt;.prefix.skew', '.minLength' and '.maxLength',
+ * which default to the 'loadtest.prefix.*' keys, e.g.
+ * -Dloadtest.search.prefix.minLength=1 for typeahead searches.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class PrefixDistribution {
+    private final List<String> stems;
+    private final double skew;
+    private final int minLength;
+    private final int maxLength;
+    private final double[] cumulative;
+
+    public PrefixDistribution(List<String> stems, double skew, int minLength, int maxLength) {
+        if (stems.isEmpty() || minLength < 1 || maxLength < minLength) {
+            throw new IllegalArgumentException("Invalid prefix distribution");
+        }
+        this.stems = stems;
+        this.skew = skew;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+
+        cumulative = new double[stems.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    /**
+     * Returns the configured distribution of an operation.
+     *
+     * @param operation the search operation.
+     * @param stems     the lastname stems of the database.
+     * @return the {@link PrefixDistribution}.
+     */
+    public static PrefixDistribution configured(Operation operation, List<String> stems) {
+        String key = "loadtest." + operation.getKey() + ".prefix.";
+
+        double skew = Double.parseDouble(ConfigUtil.getString(key + "skew",
+                ConfigUtil.getString("loadtest.prefix.skew", "1")));
+        int minLength = ConfigUtil.getInt(key + "minLength", ConfigUtil.getInt("loadtest.prefix.minLength", 3));
+        int maxLength = ConfigUtil.getInt(key + "maxLength", ConfigUtil.getInt("loadtest.prefix.maxLength", 6));
+        return new PrefixDistribution(stems, skew, minLength, maxLength);
+    }
+
+    /**
+     * Draws the next prefix.
+     *
+     * @param random the random source of the calling thread.
+     * @return the prefix.
+     */
+    public String next(Random random) {
+        double u = random.nextDouble();
+        int index = 0;
+        while (index < cumulative.length - 1 && cumulative[index] < u) index++;
+
+        String stem = stems.get(index);
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        return stem.substring(0, Math.min(length, stem.length()));
+    }
+
+    public double getSkew() {
+        return skew;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+}
@@ -0,0 +1,101 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the report of a run with a baseline report. The run
+ * regresses when the p99 latency of all the requests, or of an
+ * operation, is higher than the baseline's by more than the p99
+ * threshold, or when the throughput is lower by more than the
+ * throughput threshold. Operations with fewer requests than the
+ * minimum, in either report, are too noisy to compare and skipped.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class RegressionCheck {
+    private static final String[] SETTINGS = {"mix", "concurrency", "rate", "weights", "prefixes"};
+
+    private final double p99Threshold;
+    private final double throughputThreshold;
+    private final long minRequests;
+
+    /**
+     * Creates a check.
+     *
+     * @param p99Threshold        the allowed increase of the p99, e.g. 0.2 for 20%.
+     * @param throughputThreshold the allowed decrease of the throughput, e.g. 0.1 for 10%.
+     * @param minRequests         the requests an operation needs to be compared.
+     */
+    public RegressionCheck(double p99Threshold, double throughputThreshold, long minRequests) {
+        this.p99Threshold = p99Threshold;
+        this.throughputThreshold = throughputThreshold;
+        this.minRequests = minRequests;
+    }
+
+    /**
+     * Returns the regressions of a run.
+     *
+     * @param baseline the report of the baseline run.
+     * @param current  the report of the run.
+     * @return a description of every regression, empty if there is none.
+     */
+    public List<String> compare(JsonNode baseline, JsonNode current) {
+        List<String> regressions = new ArrayList<>();
+        compare("total", baseline.path("total"), current.path("total"), regressions);
+
+        Iterator<Map.Entry<String, JsonNode>> operations = current.path("operations").fields();
+        while (operations.hasNext()) {
+            Map.Entry<String, JsonNode> operation = operations.next();
+            JsonNode base = baseline.path("operations").path(operation.getKey());
+            if (!base.isMissingNode()) {
+                compare(operation.getKey(), base, operation.getValue(), regressions);
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Returns the settings of a run that differ from the baseline's;
+     * the two runs are then not comparable.
+     *
+     * @param baseline the report of the baseline run.
+     * @param current  the report of the run.
+     * @return the names of the differing settings, empty if there is none.
+     */
+    public List<String> differences(JsonNode baseline, JsonNode current) {
+        List<String> differences = new ArrayList<>();
+        for (String setting : SETTINGS) {
+            if (!baseline.path("config").path(setting).equals(current.path("config").path(setting))) {
+                differences.add(setting);
+            }
+        }
+        return differences;
+    }
+
+    private void compare(String name, JsonNode base, JsonNode current, List<String> regressions) {
+        if (base.path("requests").asLong() < minRequests || current.path("requests").asLong() < minRequests) return;
+
+        double baseP99 = base.path("latencyMillis").path("p99").asDouble();
+        double p99 = current.path("latencyMillis").path("p99").asDouble();
+        if (p99 > baseP99 * (1 + p99Threshold)) {
+            regressions.add(String.format("%s: p99 %.3f ms, baseline %.3f ms (+%.0f%%)",
+                    name, p99, baseP99, change(baseP99, p99)));
+        }
+
+        double baseThroughput = base.path("throughput").asDouble();
+        double throughput = current.path("throughput").asDouble();
+        if (throughput < baseThroughput * (1 - throughputThreshold)) {
+            regressions.add(String.format("%s: throughput %.1f req/s, baseline %.1f req/s (%.0f%%)",
+                    name, throughput, baseThroughput, change(baseThroughput, throughput)));
+        }
+    }
+
+    private static double change(double base, double value) {
+        return (base == 0) ? 0 : (value - base) * 100 / base;
+    }
+}
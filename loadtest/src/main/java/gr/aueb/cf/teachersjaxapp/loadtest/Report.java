@@ -0,0 +1,152 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The JSON report of a load test run: its configuration, and the
+ * throughput, latency percentiles (in milliseconds) and response
+ * statuses of all the requests ('total') and of every operation
+ * ('operations'). The reports of earlier runs are the baselines
+ * the next runs are compared against.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class Report {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ObjectNode root = MAPPER.createObjectNode();
+
+    /**
+     * Creates the report of a run.
+     *
+     * @param workload    the workload of the run.
+     * @param mix         the mix of the run.
+     * @param concurrency the number of workers.
+     * @param rate        the target rate, or 0 for a closed loop.
+     * @param warmup      the duration of the warm-up, which is not reported.
+     * @param duration    the measured duration.
+     * @param stats       the results of every operation.
+     */
+    public Report(Workload workload, Mix mix, int concurrency, long rate, Duration warmup, Duration duration,
+                  Map<Operation, OperationStats> stats) {
+        root.put("timestamp", Instant.now().toString());
+
+        ObjectNode config = root.putObject("config");
+        config.put("baseUri", workload.getBaseUri());
+        config.put("mix", mix.getName());
+        config.put("concurrency", concurrency);
+        config.put("rate", rate);
+        config.put("warmupSeconds", warmup.getSeconds());
+        config.put("durationSeconds", duration.getSeconds());
+        ObjectNode weights = config.putObject("weights");
+        mix.getWeights().forEach((operation, weight) -> {
+            if (weight > 0) weights.put(operation.getKey(), weight);
+        });
+        ObjectNode prefixes = config.putObject("prefixes");
+        workload.getPrefixes().forEach((operation, distribution) -> {
+            if (mix.getWeights().getOrDefault(operation, 0) > 0) {
+                prefixes.putObject(operation.getKey())
+                        .put("skew", distribution.getSkew())
+                        .put("minLength", distribution.getMinLength())
+                        .put("maxLength", distribution.getMaxLength());
+            }
+        });
+
+        Histogram total = new Histogram(3);
+        long requests = 0;
+        long rejected = 0;
+        long errors = 0;
+        ObjectNode operations = MAPPER.createObjectNode();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            if (operationStats.getRequests() == 0) continue;
+
+            Histogram histogram = operationStats.getHistogram();
+            ObjectNode node = operations.putObject(entry.getKey().getKey());
+            summarize(node, operationStats.getRequests(), operationStats.getRejected(),
+                    operationStats.getErrors(), histogram, duration);
+            ObjectNode statuses = node.putObject("statuses");
+            operationStats.getStatuses().forEach((status, count) -> statuses.put(Integer.toString(status), count));
+
+            total.add(histogram);
+            requests += operationStats.getRequests();
+            rejected += operationStats.getRejected();
+            errors += operationStats.getErrors();
+        }
+        summarize(root.putObject("total"), requests, rejected, errors, total, duration);
+        root.set("operations", operations);
+    }
+
+    private static void summarize(ObjectNode node, long requests, long rejected, long errors,
+                                  Histogram histogram, Duration duration) {
+        node.put("requests", requests);
+        node.put("rejected", rejected);
+        node.put("errors", errors);
+        node.put("throughput", round(requests / (duration.toMillis() / 1000.0)));
+
+        ObjectNode latency = node.putObject("latencyMillis");
+        latency.put("mean", millis(histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            latency.put(percentileKey(percentile), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        latency.put("max", millis(histogram.getMaxValue()));
+    }
+
+    /**
+     * Returns the key of a percentile in the report, e.g. 'p99' or 'p999' for 99.9.
+     *
+     * @param percentile the percentile.
+     * @return the key.
+     */
+    static String percentileKey(double percentile) {
+        return "p" + ((percentile == Math.rint(percentile))
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile).replace(".", ""));
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    public JsonNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Writes the report, creating the parent directories.
+     *
+     * @param file the file of the report.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        MAPPER.writeValue(file, root);
+    }
+
+    /**
+     * Reads the report of an earlier run.
+     *
+     * @param file the file of the report.
+     * @return the root of the report.
+     * @throws IOException if the file cannot be read.
+     */
+    public static JsonNode read(File file) throws IOException {
+        return MAPPER.readTree(file);
+    }
+}
@@ -0,0 +1,204 @@
+package gr.aueb.cf.teachersjaxapp.loadtest;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The data the requests of a load test are built from, shared
+ * by the workers: the range of the teacher ids, the teachers
+ * created by the test (which the deletes remove), the tickets
+ * of the background inserts and a lastname prefix distribution
+ * per search operation.
+ * <p>
+ * The ids are drawn with the skew 'loadtest.ids.skew': 1 reads
+ * all the ids equally, larger values read the low ids more often,
+ * like the hot keys of a real workload.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class Workload {
+    private static final int TICKETS = 1024;
+
+    private final String baseUri;
+    private final String clientId = ConfigUtil.getString("loadtest.clientId", "loadtest");
+    private final Duration timeout = Duration.ofMillis(ConfigUtil.getLong("loadtest.timeoutMillis", 10_000));
+    private final double idSkew = Double.parseDouble(ConfigUtil.getString("loadtest.ids.skew", "1"));
+    private final int pageSize = ConfigUtil.getInt("loadtest.pageSize", 20);
+    private final int lookupSize = ConfigUtil.getInt("loadtest.lookupSize", 20);
+    private final int batchSize = ConfigUtil.getInt("loadtest.batchSize", 50);
+
+    private final List<String> lastnames;
+    private final Map<Operation, PrefixDistribution> prefixes = new EnumMap<>(Operation.class);
+    private final AtomicLong maxId;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<String> tickets = new AtomicReferenceArray<>(TICKETS);
+    private final AtomicLong ticketCount = new AtomicLong();
+
+    /**
+     * Creates the workload of an app whose database has teachers
+     * with the ids 1 to rows.
+     *
+     * @param baseUri   the base URI of the app, e.g. http://localhost:8080/api
+     * @param rows      the number of teachers in the database.
+     * @param lastnames the stems of their lastnames.
+     */
+    public Workload(String baseUri, long rows, List<String> lastnames) {
+        this.baseUri = baseUri;
+        this.maxId = new AtomicLong(Math.max(rows, 1));
+        this.lastnames = lastnames;
+
+        for (Operation operation : Operation.values()) {
+            if (operation.isPrefixed()) {
+                prefixes.put(operation, PrefixDistribution.configured(operation, lastnames));
+            }
+        }
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getLookupSize() {
+        return lookupSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Map<Operation, PrefixDistribution> getPrefixes() {
+        return prefixes;
+    }
+
+    /**
+     * Starts a request to a path of the app.
+     *
+     * @param path the path under the base URI, starting with '/'.
+     * @return the request builder.
+     */
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(timeout)
+                .header("X-Client-Id", clientId)
+                .header("Accept", "application/json");
+    }
+
+    /**
+     * Returns the id of a teacher, drawn with the configured skew.
+     *
+     * @param random the random source of the calling thread.
+     * @return an id between 1 and the largest known id.
+     */
+    long randomId(Random random) {
+        long max = maxId.get();
+        double u = (idSkew == 1) ? random.nextDouble() : Math.pow(random.nextDouble(), idSkew);
+        return 1 + Math.min(max - 1, (long) (u * max));
+    }
+
+    /**
+     * Returns the id of a teacher created by the test, for deletion,
+     * or any id if there is none left.
+     *
+     * @param random the random source of the calling thread.
+     * @return the id of the teacher to delete.
+     */
+    long takeCreatedId(Random random) {
+        Long id = createdIds.poll();
+        return (id != null) ? id : randomId(random);
+    }
+
+    /**
+     * Returns the ids of up to max teachers created by the test, for
+     * a bulk delete. If there is none left, it returns an id that no
+     * teacher has yet, so that the teachers of the database are kept
+     * for the reads and updates.
+     *
+     * @param max the maximum number of ids.
+     * @return at least one id.
+     */
+    List<Long> takeCreatedIds(int max) {
+        List<Long> ids = new ArrayList<>(max);
+        Long id;
+        while (ids.size() < max && (id = createdIds.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) ids.add(maxId.get() + 1_000_000);
+        return ids;
+    }
+
+    /**
+     * Returns the id of a recent background insert, or 'none'
+     * if there has been none yet.
+     *
+     * @param random the random source of the calling thread.
+     * @return the id of the ticket.
+     */
+    String randomTicket(Random random) {
+        long count = Math.min(ticketCount.get(), TICKETS);
+        if (count == 0) return "none";
+
+        String ticket = tickets.get(random.nextInt((int) count));
+        return (ticket == null) ? "none" : ticket;
+    }
+
+    /**
+     * Returns a lastname prefix for a search operation.
+     *
+     * @param operation the search operation.
+     * @param random    the random source of the calling thread.
+     * @return the prefix.
+     */
+    String prefix(Operation operation, Random random) {
+        return prefixes.get(operation).next(random);
+    }
+
+    /**
+     * Returns the lastname of a new teacher, so that it is found by the searches.
+     *
+     * @param random the random source of the calling thread.
+     * @return the lastname.
+     */
+    String newLastname(Random random) {
+        return lastnames.get(random.nextInt(lastnames.size())) + random.nextInt(1_000_000);
+    }
+
+    /**
+     * Records a teacher created by an insert.
+     *
+     * @param location the Location header of the response, ending with the id.
+     */
+    void created(String location) {
+        long id = Long.parseLong(lastSegment(location));
+        maxId.accumulateAndGet(id, Math::max);
+        createdIds.add(id);
+    }
+
+    /**
+     * Records a queued background insert.
+     *
+     * @param location the Location header of the response, ending with the ticket id.
+     */
+    void queued(String location) {
+        tickets.set((int) (ticketCount.getAndIncrement() % TICKETS), lastSegment(location));
+    }
+
+    private static String lastSegment(String location) {
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,203 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@link ITeacherDAO} of the app, which wraps the {@link Uncached}
+ * DAO to serve point lookups from the {@link TeacherCache} (read-through)
+ * and invalidates the written teachers after every update or delete.
+ * Two updates of the same teacher can return in the other order than
+ * they were committed, so their rows are not cached; the next lookup
+ * reads the committed one. A new teacher is cached, since no other
+ * write can know its id yet. The queries by lastname are delegated
+ * unchanged; batch inserts are not cached, so that bulk loads do not
+ * evict the hot entries. A row read from the database is
+ * only cached if the teacher has not been written in the meantime.
+ * <p>
+ * The cache is only filled from the primary database, since a
+ * replica may still return a teacher as it was before a write:
+ * the lookups that miss the cache read from the primary, and the
+ * other queries are left to the replicas. A request that requires
+ * the primary ({@link ReadConsistency#isPrimaryRequired()}) does not
+ * read from the cache at all.
+ * <p>
+ * It is a plain bean and not a CDI decorator, since the CDI SE
+ * injection manager of Jersey can not create decorators.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class CachingTeacherDAO implements ITeacherDAO {
+
+    @Inject
+    @Uncached
+    private ITeacherDAO delegate;
+
+    @Inject
+    private TeacherCache cache;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public CachingTeacherDAO() { }
+
+    /**
+     * Creates a DAO outside of a CDI container, e.g. for tests.
+     *
+     * @param delegate the {@link ITeacherDAO} that reads and writes the database.
+     * @param cache    the {@link TeacherCache} of the point lookups.
+     */
+    public CachingTeacherDAO(ITeacherDAO delegate, TeacherCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Teacher getById(long id) throws TeacherDAOException {
+        if (!ReadConsistency.isPrimaryRequired()) {
+            Teacher teacher = cache.get(id);
+            if (teacher != null) return teacher;
+        }
+
+        long stamp = cache.stamp();
+        ReadConsistency previous = ReadConsistency.bind(new ReadConsistency(true));
+        try {
+            Teacher teacher = delegate.getById(id);
+            cache.putIfUnchanged(teacher, stamp);
+            return teacher;
+        } finally {
+            ReadConsistency.bind(previous);
+        }
+    }
+
+    /**
+     * Serves the cached teachers and reads only the rest from
+     * the database. The callers of this method (the batch loader
+     * of the service) have already counted their cache lookups,
+     * so the cache is only peeked here.
+     */
+    @Override
+    public List<Teacher> getByIds(Collection<Long> ids) throws TeacherDAOException {
+        List<Teacher> teachers = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        boolean cached = !ReadConsistency.isPrimaryRequired();
+        for (Long id : ids) {
+            Teacher teacher = cached ? cache.peek(id) : null;
+            if (teacher != null) {
+                teachers.add(teacher);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long stamp = cache.stamp();
+            ReadConsistency previous = ReadConsistency.bind(new ReadConsistency(true));
+            try {
+                for (Teacher teacher : delegate.getByIds(missing)) {
+                    cache.putIfUnchanged(teacher, stamp);
+                    teachers.add(teacher);
+                }
+            } finally {
+                ReadConsistency.bind(previous);
+            }
+            teachers.sort(Comparator.comparing(Teacher::getId));
+        }
+        return teachers;
+    }
+
+    @Override
+    public Teacher insert(Teacher teacher) throws TeacherDAOException {
+        Teacher inserted = delegate.insert(teacher);
+        cache.put(inserted);
+        return inserted;
+    }
+
+    @Override
+    public List<Teacher> insertAll(List<Teacher> teachers) throws TeacherDAOException {
+        return delegate.insertAll(teachers);
+    }
+
+    @Override
+    public Teacher update(Teacher teacher) throws TeacherDAOException {
+        return update(teacher, null);
+    }
+
+    @Override
+    public Teacher update(Teacher teacher, Teacher expected) throws TeacherDAOException {
+        try {
+            return delegate.update(teacher, expected);
+        } finally {
+            cache.invalidate(teacher.getId());
+        }
+    }
+
+    @Override
+    public List<Teacher> updateAll(List<Teacher> teachers) throws TeacherDAOException {
+        try {
+            return delegate.updateAll(teachers);
+        } finally {
+            for (Teacher teacher : teachers) cache.invalidate(teacher.getId());
+        }
+    }
+
+    @Override
+    public Teacher delete(long id) throws TeacherDAOException {
+        try {
+            return delegate.delete(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public List<Teacher> deleteAll(Collection<Long> ids) throws TeacherDAOException {
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            for (Long id : ids) cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public List<Teacher> getByLastname(String lastname) throws TeacherDAOException {
+        return delegate.getByLastname(lastname);
+    }
+
+    @Override
+    public <T> List<T> getByLastname(String lastname, TeacherMapper<T> mapper) throws TeacherDAOException {
+        return delegate.getByLastname(lastname, mapper);
+    }
+
+    @Override
+    public List<Teacher> getByLastname(String lastname, TeacherCursor after, int limit) throws TeacherDAOException {
+        return delegate.getByLastname(lastname, after, limit);
+    }
+
+    @Override
+    public <T> List<T> getByLastname(String lastname, TeacherCursor after, int limit, TeacherMapper<T> mapper)
+            throws TeacherDAOException {
+        return delegate.getByLastname(lastname, after, limit, mapper);
+    }
+
+    @Override
+    public void streamByLastname(String lastname, TeacherRowCallback callback) throws TeacherDAOException, IOException {
+        delegate.streamByLastname(lastname, callback);
+    }
+
+    @Override
+    public void streamAll(TeacherRowCallback callback) throws TeacherDAOException, IOException {
+        delegate.streamAll(callback);
+    }
+}
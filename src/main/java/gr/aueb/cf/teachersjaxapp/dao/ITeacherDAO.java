@@ -3,6 +3,8 @@ package gr.aueb.cf.teachersjaxapp.dao;
 import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
 import gr.aueb.cf.teachersjaxapp.model.Teacher;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,8 +18,19 @@ import java.util.List;
 public interface ITeacherDAO {
 
     Teacher insert(Teacher teacher) throws TeacherDAOException;
+    List<Teacher> insertAll(List<Teacher> teachers) throws TeacherDAOException;
     Teacher update(Teacher teacher) throws TeacherDAOException;
-    void delete(long id) throws TeacherDAOException;
+    Teacher update(Teacher teacher, Teacher expected) throws TeacherDAOException;
+    List<Teacher> updateAll(List<Teacher> teachers) throws TeacherDAOException;
+    Teacher delete(long id) throws TeacherDAOException;
+    List<Teacher> deleteAll(Collection<Long> ids) throws TeacherDAOException;
     List<Teacher> getByLastname(String lastname) throws TeacherDAOException;
+    <T> List<T> getByLastname(String lastname, TeacherMapper<T> mapper) throws TeacherDAOException;
+    List<Teacher> getByLastname(String lastname, TeacherCursor after, int limit) throws TeacherDAOException;
+    <T> List<T> getByLastname(String lastname, TeacherCursor after, int limit, TeacherMapper<T> mapper)
+            throws TeacherDAOException;
+    void streamByLastname(String lastname, TeacherRowCallback callback) throws TeacherDAOException, IOException;
+    void streamAll(TeacherRowCallback callback) throws TeacherDAOException, IOException;
     Teacher getById(long id) throws TeacherDAOException;
+    List<Teacher> getByIds(Collection<Long> ids) throws TeacherDAOException;
 }
@@ -0,0 +1,26 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+/**
+ * Keyset cursor over the (LASTNAME, ID) ordering of the
+ * Teachers table. A page that starts after a cursor contains
+ * only the rows that sort after the row the cursor points to.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherCursor {
+    private final String lastname;
+    private final long id;
+
+    public TeacherCursor(String lastname, long id) {
+        this.lastname = lastname;
+        this.id = id;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
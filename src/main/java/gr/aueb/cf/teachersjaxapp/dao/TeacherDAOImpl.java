@@ -1,24 +1,82 @@
 package gr.aueb.cf.teachersjaxapp.dao;
 
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherBatchException;
 import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
 import gr.aueb.cf.teachersjaxapp.model.Teacher;
-import gr.aueb.cf.teachersjaxapp.service.util.DBUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadOnly;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.sql.DataSource;
 import javax.ws.rs.ext.Provider;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class implements the Public API of the
- * {@link ITeacherDAO} interface.
+ * {@link ITeacherDAO} interface. Every successful
+ * write fires a {@link TeacherChangedEvent}.
+ * The writes go to the primary database and the reads
+ * to the {@link ReadOnly} data source, which may route
+ * them to a read replica.
  *
  * @author Thanasis Chousiadas
  */
 @Provider
 @ApplicationScoped
+@Uncached
 public class TeacherDAOImpl implements ITeacherDAO {
+    private static final Logger LOGGER = Logger.getLogger(TeacherDAOImpl.class.getName());
+
+    @Inject
+    private DataSource dataSource;
+    @Inject
+    @ReadOnly
+    private DataSource readDataSource;
+    @Inject
+    private Event<TeacherChangedEvent> changedEvent;
+    private final int batchChunkSize = ConfigUtil.getInt("dao.batch.chunkSize", 500);
+    private final int streamFetchSize = ConfigUtil.getInt("dao.stream.fetchSize", 500);
+    private final int lookupChunkSize = ConfigUtil.getInt("dao.lookup.chunkSize", 256);
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherDAOImpl() { }
+
+    /**
+     * Creates a DAO outside of a CDI container,
+     * e.g. for benchmarks.
+     *
+     * @param dataSource the {@link DataSource} of the database.
+     */
+    public TeacherDAOImpl(DataSource dataSource) {
+        this(dataSource, dataSource);
+    }
+
+    /**
+     * Creates a DAO outside of a CDI container that
+     * reads from a different database than it writes to.
+     *
+     * @param dataSource     the {@link DataSource} of the primary database.
+     * @param readDataSource the {@link DataSource} of the reads.
+     */
+    public TeacherDAOImpl(DataSource dataSource, DataSource readDataSource) {
+        this.dataSource = dataSource;
+        this.readDataSource = readDataSource;
+    }
 
     /**
      * This method inserts a new record in the Teachers table.
@@ -34,7 +92,7 @@ public class TeacherDAOImpl implements ITeacherDAO {
         String sql = "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES (?, ?)";
         long autoGeneratedId = 0;
 
-        try (Connection connection = DBUtil.getConnection();
+        try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             String firstname = teacher.getFirstname();
             String lastname = teacher.getLastname();
@@ -55,32 +113,179 @@ public class TeacherDAOImpl implements ITeacherDAO {
                 insertedTeacher.setFirstname(firstname);
                 insertedTeacher.setLastname(lastname);
 
+                fire(TeacherChangedEvent.Type.INSERTED, insertedTeacher);
                 return insertedTeacher;
             }
 
             return null;
         } catch (SQLException e) {
-            e.printStackTrace();
-            throw new TeacherDAOException("SQL Error in Teacher Insert " + teacher);
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Insert " + teacher, e);
         }
 
     }
 
+    /**
+     * This method inserts many new records in the Teachers table
+     * in one transaction, sending them with JDBC batching in chunks
+     * of 'dao.batch.chunkSize' rows. Either all the records are
+     * inserted or none of them.
+     *
+     * @param teachers the {@link Teacher} objects to be inserted.
+     * @return the inserted {@link Teacher} objects with their generated ids,
+     * in the same order as the given list.
+     * @throws TeacherBatchException if the database rejects some rows; it
+     *                               carries the error of each rejected row.
+     * @throws TeacherDAOException   wrapper exception to {@link SQLException}
+     *                               that is thrown if an error is occurred
+     *                               during database operations.
+     */
+    @Override
+    public List<Teacher> insertAll(List<Teacher> teachers) throws TeacherDAOException {
+        String sql = "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES (?, ?)";
+        List<Teacher> insertedTeachers = new ArrayList<>(teachers.size());
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < teachers.size(); start += batchChunkSize) {
+                    List<Teacher> chunk = teachers.subList(start, Math.min(start + batchChunkSize, teachers.size()));
+
+                    for (Teacher teacher : chunk) {
+                        bindInsert(ps, teacher);
+                        ps.addBatch();
+                    }
+
+                    try {
+                        ps.executeBatch();
+                    } catch (BatchUpdateException e) {
+                        throw new TeacherBatchException("SQL Error in Teacher Batch Insert, no rows were inserted",
+                                rowErrors(connection, sql, teachers, TeacherDAOImpl::bindInsert), e);
+                    }
+
+                    try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                        for (Teacher teacher : chunk) {
+                            if (!generatedKeys.next()) {
+                                connection.rollback();
+                                throw new TeacherDAOException("SQL Error in Teacher Batch Insert, missing generated keys");
+                            }
+                            insertedTeachers.add(new Teacher(generatedKeys.getLong(1),
+                                    teacher.getFirstname(), teacher.getLastname()));
+                        }
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Batch Insert of " + teachers.size() + " rows", e);
+        }
+
+        for (Teacher teacher : insertedTeachers) {
+            fire(TeacherChangedEvent.Type.INSERTED, teacher);
+        }
+
+        return insertedTeachers;
+    }
+
+    /**
+     * Finds the rows of a failed batch that the database rejects.
+     * The update counts of the batch can not tell them apart: with
+     * 'rewriteBatchedStatements' the driver sends a chunk as one
+     * multi-row statement, which fails as a whole. So the transaction
+     * of the batch is rolled back, every row is executed on its own,
+     * behind a savepoint, and the transaction is rolled back again.
+     *
+     * @param connection the connection of the batch, in a transaction.
+     * @param sql        the statement of the batch.
+     * @param teachers   the rows of the whole batch.
+     * @param binder     sets the parameters of a row.
+     * @return a map from the row index to the error message.
+     * @throws SQLException if the rows can not be executed.
+     */
+    private Map<Integer, String> rowErrors(Connection connection, String sql, List<Teacher> teachers,
+                                           StatementBinder binder) throws SQLException {
+        Map<Integer, String> errors = new TreeMap<>();
+        connection.rollback();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < teachers.size(); i++) {
+                binder.bind(ps, teachers.get(i));
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    errors.put(i, e.getMessage());
+                }
+            }
+        } finally {
+            connection.rollback();
+        }
+
+        return errors;
+    }
+
+    private static void bindInsert(PreparedStatement ps, Teacher teacher) throws SQLException {
+        ps.setString(1, teacher.getFirstname());
+        ps.setString(2, teacher.getLastname());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Teacher teacher) throws SQLException {
+        ps.setString(1, teacher.getFirstname());
+        ps.setString(2, teacher.getLastname());
+        ps.setLong(3, teacher.getId());
+    }
+
     /**
      * This method updates an old record in the Teachers table
-     * with the new one.
+     * with the new one. A missing record is reported by the
+     * affected-row count, so no existence check is needed
+     * before the update (Connector/J reports the matched rows,
+     * so an update with unchanged values still counts).
      *
      * @param teacher a {@link Teacher} object.
-     * @return the updated {@link Teacher} object.
+     * @return the updated {@link Teacher} object, or null if there
+     * is no record with the teacher's id.
      * @throws TeacherDAOException wrapper exception to {@link SQLException}
      *                             that is thrown if an error is occurred
      *                             during database operations.
      */
     @Override
     public Teacher update(Teacher teacher) throws TeacherDAOException {
-        String sql = "UPDATE TEACHERS SET FIRSTNAME = ?, LASTNAME = ? WHERE ID = ?";
+        return update(teacher, null);
+    }
+
+    /**
+     * This method updates an old record in the Teachers table
+     * with the new one, only if the record still has the values
+     * of the expected teacher. The check and the update are one
+     * statement, so a concurrent change cannot be overwritten.
+     *
+     * @param teacher  a {@link Teacher} object.
+     * @param expected the values the record must have, or null
+     *                 for an unconditional update.
+     * @return the updated {@link Teacher} object, or null if there
+     * is no record with the teacher's id and the expected values.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public Teacher update(Teacher teacher, Teacher expected) throws TeacherDAOException {
+        String sql = (expected == null)
+                ? "UPDATE TEACHERS SET FIRSTNAME = ?, LASTNAME = ? WHERE ID = ?"
+                : "UPDATE TEACHERS SET FIRSTNAME = ?, LASTNAME = ? WHERE ID = ? AND FIRSTNAME = ? AND LASTNAME = ?";
 
-        try (Connection connection = DBUtil.getConnection();
+        try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
 
             Long id = teacher.getId();
@@ -90,44 +295,217 @@ public class TeacherDAOImpl implements ITeacherDAO {
             ps.setString(1, firstname);
             ps.setString(2, lastname);
             ps.setLong(3, id);
+            if (expected != null) {
+                ps.setString(4, expected.getFirstname());
+                ps.setString(5, expected.getLastname());
+            }
 
             int n = ps.executeUpdate();
 
             if (n >= 1) {
+                fire(TeacherChangedEvent.Type.UPDATED, teacher);
                 return teacher;
             } else {
                 return null;
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
-            throw new TeacherDAOException("SQL Error in Teacher Update " + teacher);
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Update " + teacher, e);
         }
     }
 
+    /**
+     * This method updates many records of the Teachers table in one
+     * transaction, sending the UPDATE statements with JDBC batching in
+     * chunks of 'dao.batch.chunkSize' rows. The missing records are
+     * reported by the update counts, so no record is read first.
+     * Either all the found records are updated or none of them.
+     *
+     * @param teachers the {@link Teacher} objects with the new values.
+     * @return the updated {@link Teacher} objects, in the same order as
+     * the given list; teachers with no record are skipped.
+     * @throws TeacherBatchException if the database rejects some rows; it
+     *                               carries the error of each rejected row.
+     * @throws TeacherDAOException   wrapper exception to {@link SQLException}
+     *                               that is thrown if an error is occurred
+     *                               during database operations.
+     */
+    @Override
+    public List<Teacher> updateAll(List<Teacher> teachers) throws TeacherDAOException {
+        String sql = "UPDATE TEACHERS SET FIRSTNAME = ?, LASTNAME = ? WHERE ID = ?";
+        List<Teacher> updatedTeachers = new ArrayList<>(teachers.size());
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int start = 0; start < teachers.size(); start += batchChunkSize) {
+                    List<Teacher> chunk = teachers.subList(start, Math.min(start + batchChunkSize, teachers.size()));
+
+                    for (Teacher teacher : chunk) {
+                        bindUpdate(ps, teacher);
+                        ps.addBatch();
+                    }
+
+                    int[] counts;
+                    try {
+                        counts = ps.executeBatch();
+                    } catch (BatchUpdateException e) {
+                        throw new TeacherBatchException("SQL Error in Teacher Batch Update, no rows were updated",
+                                rowErrors(connection, sql, teachers, TeacherDAOImpl::bindUpdate), e);
+                    }
+
+                    // A driver that cannot count the rows of a statement reports SUCCESS_NO_INFO
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                            updatedTeachers.add(chunk.get(i));
+                        }
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Batch Update of " + teachers.size() + " rows", e);
+        }
+
+        for (Teacher teacher : updatedTeachers) {
+            fire(TeacherChangedEvent.Type.UPDATED, teacher);
+        }
+
+        return updatedTeachers;
+    }
+
     /**
      * This method deletes a record from the Teachers table,
      * where the primary key is equal to the id given by the
-     * client.
+     * client, and returns the deleted record. The record is
+     * read with SELECT ... FOR UPDATE and deleted in the same
+     * transaction, on a single connection.
      *
      * @param id the primary key given by the client.
+     * @return the deleted {@link Teacher}, or null if there is
+     * no record with that id.
      * @throws TeacherDAOException wrapper exception to {@link SQLException}
      *                             that is thrown if an error is occurred
      *                             during database operations.
      */
     @Override
-    public void delete(long id) throws TeacherDAOException {
-        String sql = "DELETE FROM TEACHERS WHERE ID = ?";
+    public Teacher delete(long id) throws TeacherDAOException {
+        String selectSql = "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE ID = ? FOR UPDATE";
+        String deleteSql = "DELETE FROM TEACHERS WHERE ID = ?";
+        Teacher teacher = null;
 
-        try (Connection connection = DBUtil.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setLong(1, id);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
 
-            int n = ps.executeUpdate();
+            try (PreparedStatement select = connection.prepareStatement(selectSql);
+                 PreparedStatement delete = connection.prepareStatement(deleteSql)) {
+
+                select.setLong(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        teacher = new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3));
+                    }
+                }
+
+                if (teacher != null) {
+                    delete.setLong(1, id);
+                    delete.executeUpdate();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Delete with id = " + id, e);
+        }
+
+        if (teacher != null) fire(TeacherChangedEvent.Type.DELETED, teacher);
+        return teacher;
+    }
+
+    /**
+     * This method deletes the records of the Teachers table with the
+     * given ids in one transaction, on a single connection, and returns
+     * the deleted records. The ids are handled in chunks of
+     * 'dao.lookup.chunkSize'; the records of a chunk are read with
+     * SELECT ... WHERE ID IN (...) FOR UPDATE and deleted with a single
+     * DELETE ... WHERE ID IN (...). The ids are locked in ascending
+     * order, so concurrent bulk deletes cannot deadlock each other.
+     *
+     * @param ids the primary keys given by the client.
+     * @return the deleted {@link Teacher} objects, ordered by id;
+     * ids with no record are skipped.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> deleteAll(Collection<Long> ids) throws TeacherDAOException {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.sort(null);
+        List<Teacher> teachers = new ArrayList<>(distinctIds.size());
+        if (distinctIds.isEmpty()) return teachers;
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try {
+                for (int from = 0; from < distinctIds.size(); from += lookupChunkSize) {
+                    List<Long> chunk = distinctIds.subList(from, Math.min(from + lookupChunkSize, distinctIds.size()));
+                    int size = paddedSize(chunk.size());
+
+                    try (PreparedStatement select = connection.prepareStatement(
+                            "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE ID IN " + inList(size)
+                                    + " ORDER BY ID FOR UPDATE")) {
+                        bindIds(select, chunk, size);
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                teachers.add(new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                            }
+                        }
+                    }
+
+                    try (PreparedStatement delete = connection.prepareStatement(
+                            "DELETE FROM TEACHERS WHERE ID IN " + inList(size))) {
+                        bindIds(delete, chunk, size);
+                        delete.executeUpdate();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
-            throw new TeacherDAOException("SQL Error in Teacher Delete with id = " + id);
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Delete of " + distinctIds.size() + " ids", e);
+        }
+
+        for (Teacher teacher : teachers) {
+            fire(TeacherChangedEvent.Type.DELETED, teacher);
         }
+
+        return teachers;
     }
 
     /**
@@ -145,35 +523,190 @@ public class TeacherDAOImpl implements ITeacherDAO {
      */
     @Override
     public List<Teacher> getByLastname(String lastname) throws TeacherDAOException {
-        String sql = "SELECT * FROM TEACHERS WHERE LASTNAME LIKE ?";
-        List<Teacher> teachers = new ArrayList<>();
-        ResultSet rs = null;
+        return getByLastname(lastname, Teacher::new);
+    }
+
+    /**
+     * This method returns the records of the Teachers table where
+     * lastname begins with the parameter provided by the client,
+     * each one mapped by the given mapper. The result set is
+     * forward-only and read in a single pass.
+     *
+     * @param lastname the lastname for searching given by the client.
+     * @param mapper   the {@link TeacherMapper} of the rows.
+     * @param <T>      the type of the mapped rows.
+     * @return an {@link ArrayList} with the mapped rows.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public <T> List<T> getByLastname(String lastname, TeacherMapper<T> mapper) throws TeacherDAOException {
+        String sql = "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE LASTNAME LIKE ?";
+        // Not pre-sized: the forward-only result set has no row count, and a guess
+        // would waste memory on the short lists most searches return
+        List<T> teachers = new ArrayList<>();
 
-        try (Connection connection = DBUtil.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
 
             ps.setString(1, lastname + "%");
-            rs = ps.executeQuery();
 
-            while (rs.next()) {
-                Teacher teacher = new Teacher(rs.getLong("ID"), rs.getString("FIRSTNAME"), rs.getString("LASTNAME"));
-                teachers.add(teacher);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    teachers.add(mapper.map(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                }
             }
-
         } catch (SQLException e) {
-            e.printStackTrace();
-            throw new TeacherDAOException("SQL Error no records found with lastname = " + lastname);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-            } catch (SQLException e1) {
-                e1.printStackTrace();
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error no records found with lastname = " + lastname, e);
+        }
+
+        return teachers;
+    }
+
+    /**
+     * This method returns one page of the records of the Teachers
+     * table where lastname begins with the parameter provided by the
+     * client, ordered by lastname and id. The page starts after the
+     * given cursor (keyset pagination), so deep pages cost the same
+     * as the first one.
+     *
+     * @param lastname the lastname for searching given by the client.
+     * @param after    the cursor of the last row of the previous page,
+     *                 or null for the first page.
+     * @param limit    the maximum number of records returned.
+     * @return an {@link ArrayList} with at most limit {@link Teacher} objects.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> getByLastname(String lastname, TeacherCursor after, int limit) throws TeacherDAOException {
+        return getByLastname(lastname, after, limit, Teacher::new);
+    }
+
+    /**
+     * This method returns one page of the records of the Teachers
+     * table, like {@link #getByLastname(String, TeacherCursor, int)},
+     * each one mapped by the given mapper.
+     *
+     * @param lastname the lastname for searching given by the client.
+     * @param after    the cursor of the last row of the previous page,
+     *                 or null for the first page.
+     * @param limit    the maximum number of records returned.
+     * @param mapper   the {@link TeacherMapper} of the rows.
+     * @param <T>      the type of the mapped rows.
+     * @return an {@link ArrayList} with at most limit mapped rows.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public <T> List<T> getByLastname(String lastname, TeacherCursor after, int limit, TeacherMapper<T> mapper)
+            throws TeacherDAOException {
+        String sql = (after == null)
+                ? "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE LASTNAME LIKE ? "
+                    + "ORDER BY LASTNAME, ID LIMIT ?"
+                : "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE LASTNAME LIKE ? "
+                    + "AND (LASTNAME > ? OR (LASTNAME = ? AND ID > ?)) ORDER BY LASTNAME, ID LIMIT ?";
+        List<T> teachers = new ArrayList<>(limit);
+
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setString(i++, lastname + "%");
+            if (after != null) {
+                ps.setString(i++, after.getLastname());
+                ps.setString(i++, after.getLastname());
+                ps.setLong(i++, after.getId());
+            }
+            ps.setInt(i, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    teachers.add(mapper.map(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                }
             }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error no records found with lastname = " + lastname, e);
         }
 
         return teachers;
     }
 
+    /**
+     * This method passes to the callback, one at a time, the records of the
+     * Teachers table where lastname begins with the parameter provided by
+     * the client, ordered by lastname and id. The rows are fetched from the
+     * database in chunks of 'dao.stream.fetchSize' rows, so the whole result
+     * is never held in memory.
+     *
+     * @param lastname the lastname for searching given by the client.
+     * @param callback the {@link TeacherRowCallback} that receives every row.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     * @throws IOException         if the callback fails to write a row.
+     */
+    @Override
+    public void streamByLastname(String lastname, TeacherRowCallback callback) throws TeacherDAOException, IOException {
+        String sql = "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE LASTNAME LIKE ? ORDER BY LASTNAME, ID";
+
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ps.setFetchSize(streamFetchSize);
+            ps.setString(1, lastname + "%");
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.onRow(new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Stream with lastname = " + lastname, e);
+        }
+    }
+
+    /**
+     * This method passes to the callback, one at a time, all the records
+     * of the Teachers table, ordered by id. Like the stream by lastname,
+     * the rows are fetched from a forward-only result set in chunks of
+     * 'dao.stream.fetchSize' rows, so the memory used does not depend
+     * on the size of the table.
+     *
+     * @param callback the {@link TeacherRowCallback} that receives every row.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     * @throws IOException         if the callback fails to write a row.
+     */
+    @Override
+    public void streamAll(TeacherRowCallback callback) throws TeacherDAOException, IOException {
+        String sql = "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS ORDER BY ID";
+
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ps.setFetchSize(streamFetchSize);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.onRow(new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Stream of all the records", e);
+        }
+    }
+
     /**
      * This method returns the record where the primary key is
      * the same with the id given by the client.
@@ -186,31 +719,139 @@ public class TeacherDAOImpl implements ITeacherDAO {
      */
     @Override
     public Teacher getById(long id) throws TeacherDAOException {
-        String sql = "SELECT * FROM TEACHERS WHERE ID = ?";
+        String sql = "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE ID = ?";
         Teacher teacher = null;
         ResultSet rs = null;
 
-        try (Connection connection = DBUtil.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
 
             ps.setLong(1, id);
             rs = ps.executeQuery();
 
             if (rs.next()) {
-                teacher = new Teacher(rs.getLong("ID"), rs.getString("FIRSTNAME"), rs.getString("LASTNAME"));
+                teacher = new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3));
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
-            throw new TeacherDAOException("SQL Error in Teacher Get with id = " + id);
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Get with id = " + id, e);
         } finally {
             try {
                 if (rs != null) rs.close();
             } catch (SQLException e1) {
-                e1.printStackTrace();
+                LOGGER.log(Level.FINE, e1.getMessage(), e1);
             }
         }
 
         return teacher;
     }
+
+    /**
+     * This method returns the teachers with the given ids, with one
+     * query per chunk of ids (WHERE ID IN (...)) instead of one query
+     * per id. The IN list of a chunk is padded to the next power of
+     * two by repeating its last id, so that only a few statement
+     * shapes reach the database and its statement cache.
+     *
+     * @param ids the ids (primary keys) of the teachers.
+     * @return the found {@link Teacher} objects, ordered by id;
+     * ids with no record are skipped.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> getByIds(Collection<Long> ids) throws TeacherDAOException {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.sort(null);
+        List<Teacher> teachers = new ArrayList<>(distinctIds.size());
+        if (distinctIds.isEmpty()) return teachers;
+
+        try (Connection connection = readDataSource.getConnection()) {
+            for (int from = 0; from < distinctIds.size(); from += lookupChunkSize) {
+                List<Long> chunk = distinctIds.subList(from, Math.min(from + lookupChunkSize, distinctIds.size()));
+                int size = paddedSize(chunk.size());
+
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE ID IN " + inList(size) + " ORDER BY ID")) {
+                    bindIds(ps, chunk, size);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            teachers.add(new Teacher(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+            throw new TeacherDAOException("SQL Error in Teacher Get with " + distinctIds.size() + " ids", e);
+        }
+
+        return teachers;
+    }
+
+    /**
+     * Returns the number of the placeholders of an IN list of ids:
+     * the next power of two, so that only a few statement shapes
+     * reach the database and its statement cache.
+     *
+     * @param ids the number of the ids, at least one.
+     * @return the padded size of the list.
+     */
+    private static int paddedSize(int ids) {
+        return Math.max(Integer.highestOneBit(ids - 1) << 1, 1);
+    }
+
+    /**
+     * Returns an IN list of placeholders, e.g. '(?, ?, ?, ?)'.
+     *
+     * @param size the number of the placeholders.
+     * @return the IN list.
+     */
+    private static String inList(int size) {
+        StringBuilder sql = new StringBuilder("(?");
+        for (int i = 1; i < size; i++) {
+            sql.append(", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    /**
+     * Binds the ids to a padded IN list, repeating the last id.
+     *
+     * @param ps   the statement.
+     * @param ids  the ids.
+     * @param size the padded size of the IN list.
+     * @throws SQLException if an id cannot be bound.
+     */
+    private static void bindIds(PreparedStatement ps, List<Long> ids, int size) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            ps.setLong(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+        }
+    }
+
+    /**
+     * Notifies the observers of the change and makes the following
+     * reads of the request go to the primary. Outside of a
+     * CDI container there are no observers.
+     *
+     * @param type    the type of the change.
+     * @param teacher the changed {@link Teacher}.
+     */
+    private void fire(TeacherChangedEvent.Type type, Teacher teacher) {
+        ReadConsistency.markWrite();
+        if (changedEvent != null) {
+            changedEvent.fire(new TeacherChangedEvent(type, teacher));
+        }
+    }
+
+    /**
+     * Sets the parameters of a statement from a teacher.
+     */
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement ps, Teacher teacher) throws SQLException;
+    }
 }
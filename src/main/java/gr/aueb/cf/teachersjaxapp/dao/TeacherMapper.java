@@ -0,0 +1,15 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+/**
+ * Maps the columns of a row of the Teachers table to the
+ * object that the caller needs, e.g. straight to a response
+ * DTO, without building a {@link gr.aueb.cf.teachersjaxapp.model.Teacher}
+ * in between.
+ *
+ * @param <T> the type of the mapped objects.
+ * @author Thanasis Chousiadas
+ */
+@FunctionalInterface
+public interface TeacherMapper<T> {
+    T map(long id, String firstname, String lastname);
+}
@@ -0,0 +1,17 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+
+import java.io.IOException;
+
+/**
+ * Callback that receives the rows of a streaming query
+ * one at a time, while the result set is still open,
+ * so that the rows never need to be collected in memory.
+ *
+ * @author Thanasis Chousiadas
+ */
+@FunctionalInterface
+public interface TeacherRowCallback {
+    void onRow(Teacher teacher) throws IOException;
+}
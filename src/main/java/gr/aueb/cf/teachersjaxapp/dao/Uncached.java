@@ -0,0 +1,22 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Qualifies the {@link ITeacherDAO} that goes straight to the
+ * database, which the {@link CachingTeacherDAO} wraps. Every
+ * other injection of the DAO gets the caching one.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE})
+public @interface Uncached {
+}
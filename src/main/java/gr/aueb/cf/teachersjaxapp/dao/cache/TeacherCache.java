@@ -0,0 +1,260 @@
+package gr.aueb.cf.teachersjaxapp.dao.cache;
+
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, in-memory cache of {@link Teacher} entities
+ * keyed by their id. The least recently used entry is evicted
+ * when the cache is full and every entry expires after a
+ * configurable time-to-live.
+ * <p>
+ * Every write of a teacher and every invalidation is numbered,
+ * and the last number of each id is kept (up to 'maxSize' ids).
+ * A read-through fill passes the {@link #stamp()} taken before its
+ * query to {@link #putIfUnchanged(Teacher, long)}, so a row that was
+ * read before a concurrent write does not replace the written one.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherCache {
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Long, Entry> entries;
+    // The number of the last write of each recently written id, guarded by entries
+    private final LinkedHashMap<Long, Long> writes;
+    private long sequence;
+    private long forgottenSequence;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TeacherCache() {
+        this(ConfigUtil.getBoolean("cache.teachers.enabled", true),
+                ConfigUtil.getInt("cache.teachers.maxSize", 10_000),
+                Duration.ofSeconds(ConfigUtil.getLong("cache.teachers.ttlSeconds", 300)));
+    }
+
+    /**
+     * Creates a cache outside of a CDI container, e.g. for tests.
+     *
+     * @param enabled whether the cache keeps any entries.
+     * @param maxSize the maximum number of entries.
+     * @param ttl     the time-to-live of every entry.
+     */
+    public TeacherCache(boolean enabled, int maxSize, Duration ttl) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.writes = new LinkedHashMap<>();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached teacher with the given id.
+     *
+     * @param id the id of the teacher.
+     * @return a copy of the cached {@link Teacher}, or null
+     * if it is not cached or it has expired.
+     */
+    public Teacher get(long id) {
+        if (!enabled) return null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.isExpired(System.nanoTime())) {
+                entries.remove(id);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return copyOf(entry.teacher);
+        }
+    }
+
+    /**
+     * Returns the cached teacher with the given id, without
+     * counting a hit or a miss, for lookups that have already
+     * been counted by a previous {@link #get(long)}.
+     *
+     * @param id the id of the teacher.
+     * @return a copy of the cached {@link Teacher}, or null
+     * if it is not cached or it has expired.
+     */
+    public Teacher peek(long id) {
+        if (!enabled) return null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null || entry.isExpired(System.nanoTime())) return null;
+            return copyOf(entry.teacher);
+        }
+    }
+
+    /**
+     * Returns the number of the last write or invalidation, to be
+     * taken before the query of a read-through fill.
+     *
+     * @return the stamp of the fill.
+     */
+    public long stamp() {
+        synchronized (entries) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Caches a copy of a teacher that has just been written,
+     * replacing any previous entry with the same id.
+     *
+     * @param teacher the {@link Teacher} to be cached.
+     */
+    public void put(Teacher teacher) {
+        if (!enabled || teacher == null || teacher.getId() == null) return;
+
+        Entry entry = new Entry(copyOf(teacher), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            written(teacher.getId());
+            entries.put(teacher.getId(), entry);
+            evictIfFull();
+        }
+    }
+
+    /**
+     * Caches a copy of a teacher that has been read from the database,
+     * unless the teacher has been written or invalidated since the
+     * given stamp; the row may then be older than the database.
+     *
+     * @param teacher the {@link Teacher} to be cached.
+     * @param stamp   the {@link #stamp()} taken before the teacher was read.
+     * @return true if the teacher was cached.
+     */
+    public boolean putIfUnchanged(Teacher teacher, long stamp) {
+        if (!enabled || teacher == null || teacher.getId() == null) return false;
+
+        Entry entry = new Entry(copyOf(teacher), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            Long written = writes.get(teacher.getId());
+            if ((written != null && written > stamp) || forgottenSequence > stamp) return false;
+
+            entries.put(teacher.getId(), entry);
+            evictIfFull();
+            return true;
+        }
+    }
+
+    public void invalidate(long id) {
+        if (!enabled) return;
+
+        synchronized (entries) {
+            written(id);
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            sequence++;
+            forgottenSequence = sequence;
+            writes.clear();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Numbers a write of the id. The numbers of the oldest ids are
+     * dropped beyond 'maxSize' ids; a fill that started before a
+     * dropped number is then refused, whatever its id.
+     *
+     * @param id the id of the written teacher.
+     */
+    private void written(long id) {
+        sequence++;
+        writes.remove(id);
+        writes.put(id, sequence);
+
+        Iterator<Long> it = writes.values().iterator();
+        while (writes.size() > maxSize && it.hasNext()) {
+            forgottenSequence = it.next();
+            it.remove();
+        }
+    }
+
+    private void evictIfFull() {
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private static Teacher copyOf(Teacher teacher) {
+        return new Teacher(teacher.getId(), teacher.getFirstname(), teacher.getLastname());
+    }
+
+    private static final class Entry {
+        private final Teacher teacher;
+        private final long expiresAtNanos;
+
+        private Entry(Teacher teacher, long expiresAtNanos) {
+            this.teacher = teacher;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package gr.aueb.cf.teachersjaxapp.dao.events;
+
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+
+/**
+ * CDI event fired by the DAO after a record of the
+ * Teachers table has been inserted, updated or deleted.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherChangedEvent {
+
+    public enum Type { INSERTED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Teacher teacher;
+
+    public TeacherChangedEvent(Type type, Teacher teacher) {
+        this.type = type;
+        this.teacher = teacher;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the teacher after the change, or the
+     * deleted teacher for a {@link Type#DELETED} event.
+     *
+     * @return the changed {@link Teacher}.
+     */
+    public Teacher getTeacher() {
+        return teacher;
+    }
+}
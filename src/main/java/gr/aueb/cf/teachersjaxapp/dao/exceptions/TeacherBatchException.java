@@ -0,0 +1,38 @@
+package gr.aueb.cf.teachersjaxapp.dao.exceptions;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A {@link TeacherDAOException} thrown when a batch
+ * operation fails and its transaction is rolled back.
+ * It carries the errors of the rows that the database
+ * rejected, keyed by their index in the batch.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherBatchException extends TeacherDAOException {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, String> rowErrors;
+
+    public TeacherBatchException(String s, Map<Integer, String> rowErrors) {
+        super(s);
+        this.rowErrors = Collections.unmodifiableMap(rowErrors);
+    }
+
+    public TeacherBatchException(String s, Map<Integer, String> rowErrors, SQLException cause) {
+        super(s, cause);
+        this.rowErrors = Collections.unmodifiableMap(rowErrors);
+    }
+
+    /**
+     * Returns the errors of the rejected rows.
+     *
+     * @return a map from the row index to the error message.
+     */
+    public Map<Integer, String> getRowErrors() {
+        return rowErrors;
+    }
+}
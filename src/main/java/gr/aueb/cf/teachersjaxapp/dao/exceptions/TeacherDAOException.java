@@ -1,17 +1,23 @@
 package gr.aueb.cf.teachersjaxapp.dao.exceptions;
 
+import java.sql.SQLException;
+
 /**
  * A wrapper exception to {@link java.sql.SQLException}
  * exception. It provides a convenient way
  * to pass custom messages for error regarding
  * database operations for the entity
  * {@link gr.aueb.cf.teachersjaxapp.model.Teacher}.
+ * When it wraps an {@link SQLException}, it keeps it
+ * as its cause together with its SQL state.
  *
  * @author Thanasis Chousiadas
  */
 public class TeacherDAOException extends Exception {
     private static final long serialVersionUID = 1L;
 
+    private final String sqlState;
+
     /**
      * The default constructor that passes the message to the
      * {@link Exception} class.
@@ -19,5 +25,27 @@ public class TeacherDAOException extends Exception {
      */
     public TeacherDAOException(String s) {
         super(s);
+        this.sqlState = null;
+    }
+
+    /**
+     * Wraps an {@link SQLException}; its SQL state
+     * is appended to the message.
+     * @param s     the message to be shown.
+     * @param cause the {@link SQLException} thrown by the driver.
+     */
+    public TeacherDAOException(String s, SQLException cause) {
+        super((cause.getSQLState() == null) ? s : s + " (SQLState " + cause.getSQLState() + ")", cause);
+        this.sqlState = cause.getSQLState();
+    }
+
+    /**
+     * Returns the SQL state of the wrapped {@link SQLException},
+     * e.g. '23000' for a constraint violation.
+     *
+     * @return the SQL state, or null if there is none.
+     */
+    public String getSQLState() {
+        return sqlState;
     }
 }
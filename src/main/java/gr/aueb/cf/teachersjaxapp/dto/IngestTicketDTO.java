@@ -0,0 +1,55 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+/**
+ * Data Transfer Object for sending the status of
+ * an asynchronous insert in the front-end of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class IngestTicketDTO {
+    private String ticketId;
+    private String status;
+    private Long teacherId;
+    private String error;
+
+    public IngestTicketDTO() { }
+
+    public IngestTicketDTO(String ticketId, String status, Long teacherId, String error) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.teacherId = teacherId;
+        this.error = error;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getTeacherId() {
+        return teacherId;
+    }
+
+    public void setTeacherId(Long teacherId) {
+        this.teacherId = teacherId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
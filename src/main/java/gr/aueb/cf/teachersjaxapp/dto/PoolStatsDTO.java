@@ -0,0 +1,94 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+/**
+ * Data Transfer Object for sending a snapshot
+ * of the connection pool statistics in the front-end
+ * of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class PoolStatsDTO {
+    private int active;
+    private int idle;
+    private int maxTotal;
+    private long borrowCount;
+    private long failedBorrowCount;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+    private boolean leakDetectionEnabled;
+    private int leakDetectionTimeoutSeconds;
+
+    public PoolStatsDTO() { }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public void setBorrowCount(long borrowCount) {
+        this.borrowCount = borrowCount;
+    }
+
+    public long getFailedBorrowCount() {
+        return failedBorrowCount;
+    }
+
+    public void setFailedBorrowCount(long failedBorrowCount) {
+        this.failedBorrowCount = failedBorrowCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public void setAverageWaitMillis(double averageWaitMillis) {
+        this.averageWaitMillis = averageWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(double maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public boolean isLeakDetectionEnabled() {
+        return leakDetectionEnabled;
+    }
+
+    public void setLeakDetectionEnabled(boolean leakDetectionEnabled) {
+        this.leakDetectionEnabled = leakDetectionEnabled;
+    }
+
+    public int getLeakDetectionTimeoutSeconds() {
+        return leakDetectionTimeoutSeconds;
+    }
+
+    public void setLeakDetectionTimeoutSeconds(int leakDetectionTimeoutSeconds) {
+        this.leakDetectionTimeoutSeconds = leakDetectionTimeoutSeconds;
+    }
+}
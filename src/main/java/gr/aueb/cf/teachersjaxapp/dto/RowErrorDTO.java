@@ -0,0 +1,38 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for sending the errors
+ * of a single row of a batch request in the front-end
+ * of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class RowErrorDTO {
+    private int index;
+    private List<String> errors;
+
+    public RowErrorDTO() { }
+
+    public RowErrorDTO(int index, List<String> errors) {
+        this.index = index;
+        this.errors = errors;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
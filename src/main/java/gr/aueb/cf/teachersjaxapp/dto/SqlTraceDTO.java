@@ -0,0 +1,94 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+/**
+ * Data Transfer Object for sending the trace of
+ * an executed SQL statement in the front-end
+ * of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class SqlTraceDTO {
+    private String timestamp;
+    private String correlationId;
+    private String sql;
+    private String binds;
+    private double executionMillis;
+    private long rows;
+    private double connectionWaitMillis;
+    private boolean success;
+    private String sqlState;
+
+    public SqlTraceDTO() { }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getBinds() {
+        return binds;
+    }
+
+    public void setBinds(String binds) {
+        this.binds = binds;
+    }
+
+    public double getExecutionMillis() {
+        return executionMillis;
+    }
+
+    public void setExecutionMillis(double executionMillis) {
+        this.executionMillis = executionMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public double getConnectionWaitMillis() {
+        return connectionWaitMillis;
+    }
+
+    public void setConnectionWaitMillis(double connectionWaitMillis) {
+        this.connectionWaitMillis = connectionWaitMillis;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    public void setSqlState(String sqlState) {
+        this.sqlState = sqlState;
+    }
+}
@@ -0,0 +1,46 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+/**
+ * Data Transfer Object for sending the outcome
+ * of a bulk update or delete for a single id
+ * in the front-end of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherBulkResultDTO {
+    private long id;
+    private String status;
+    private TeacherReadOnlyDTO teacher;
+
+    public TeacherBulkResultDTO() { }
+
+    public TeacherBulkResultDTO(long id, String status, TeacherReadOnlyDTO teacher) {
+        this.id = id;
+        this.status = status;
+        this.teacher = teacher;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public TeacherReadOnlyDTO getTeacher() {
+        return teacher;
+    }
+
+    public void setTeacher(TeacherReadOnlyDTO teacher) {
+        this.teacher = teacher;
+    }
+}
@@ -0,0 +1,78 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for sending the progress
+ * and the outcome of a bulk import of teachers
+ * in the front-end of the app.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherImportDTO {
+    private String importId;
+    private String status;
+    private long records;
+    private long inserted;
+    private long rejected;
+    private String error;
+    private List<RowErrorDTO> errors;
+
+    public TeacherImportDTO() { }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<RowErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowErrorDTO> errors) {
+        this.errors = errors;
+    }
+}
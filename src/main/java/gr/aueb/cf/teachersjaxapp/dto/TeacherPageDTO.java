@@ -0,0 +1,39 @@
+package gr.aueb.cf.teachersjaxapp.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for sending one page
+ * of {@link gr.aueb.cf.teachersjaxapp.model.Teacher} entities
+ * in the front-end of the app, with the cursor
+ * of the next page (null on the last page).
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherPageDTO {
+    private List<TeacherReadOnlyDTO> teachers;
+    private String nextCursor;
+
+    public TeacherPageDTO() { }
+
+    public TeacherPageDTO(List<TeacherReadOnlyDTO> teachers, String nextCursor) {
+        this.teachers = teachers;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TeacherReadOnlyDTO> getTeachers() {
+        return teachers;
+    }
+
+    public void setTeachers(List<TeacherReadOnlyDTO> teachers) {
+        this.teachers = teachers;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,218 @@
+package gr.aueb.cf.teachersjaxapp.metrics;
+
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.rest.limit.AdaptiveConcurrencyLimiter;
+import gr.aueb.cf.teachersjaxapp.rest.limit.RateLimiter;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherIngestBuffer;
+import gr.aueb.cf.teachersjaxapp.service.invalidation.TeacherInvalidationRelay;
+import gr.aueb.cf.teachersjaxapp.service.util.DatabaseExecutor;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadOnly;
+import gr.aueb.cf.teachersjaxapp.service.util.ReplicaDataSource;
+import gr.aueb.cf.teachersjaxapp.service.util.SqlTraceRecorder;
+import gr.aueb.cf.teachersjaxapp.service.util.StatementListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CDI producer of the application's {@link MeterRegistry}.
+ * Besides the meters recorded by the app, the registry
+ * carries the gauges of the connection pool, of the
+ * routing of the reads to the replicas, of the
+ * teacher cache and of its invalidation between the nodes,
+ * of the database executor, of the ingest buffer and of the
+ * rate and concurrency limits, a timer
+ * per executed SQL statement, the count of the
+ * slow statements and the JVM metrics.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class MeterRegistryProducer {
+    @Inject
+    private InstrumentedDataSource dataSource;
+    @Inject
+    @ReadOnly
+    private ReplicaDataSource readDataSource;
+    @Inject
+    private TeacherCache teacherCache;
+    @Inject
+    private DatabaseExecutor databaseExecutor;
+    @Inject
+    private TeacherIngestBuffer ingestBuffer;
+    @Inject
+    private TeacherInvalidationRelay invalidationRelay;
+    @Inject
+    private RateLimiter rateLimiter;
+    @Inject
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Inject
+    private SqlTraceRecorder traceRecorder;
+
+    /**
+     * Produces the registry, injectable either as a {@link MeterRegistry}
+     * or as a {@link PrometheusMeterRegistry}.
+     *
+     * @return the application's {@link PrometheusMeterRegistry}.
+     */
+    @Produces
+    @Singleton
+    public PrometheusMeterRegistry produceMeterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+        bindPool(registry);
+        bindReplicas(registry);
+        bindCache(registry);
+        bindInvalidation(registry);
+        bindExecutor(registry);
+        bindIngest(registry);
+        bindLimits(registry);
+        bindStatements(registry);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+
+        return registry;
+    }
+
+    private void bindPool(MeterRegistry registry) {
+        InstrumentedDataSource ds = dataSource;
+
+        Gauge.builder("db.pool.connections.active", ds, InstrumentedDataSource::getNumActive)
+                .strongReference(true).register(registry);
+        Gauge.builder("db.pool.connections.idle", ds, InstrumentedDataSource::getNumIdle)
+                .strongReference(true).register(registry);
+        Gauge.builder("db.pool.connections.max", ds, InstrumentedDataSource::getMaxTotal)
+                .strongReference(true).register(registry);
+        Gauge.builder("db.pool.wait.avg", ds, InstrumentedDataSource::getAverageWaitMillis)
+                .baseUnit("milliseconds").strongReference(true).register(registry);
+        Gauge.builder("db.pool.wait.max", ds, InstrumentedDataSource::getMaxWaitMillis)
+                .baseUnit("milliseconds").strongReference(true).register(registry);
+        FunctionCounter.builder("db.pool.borrows", ds, InstrumentedDataSource::getBorrowCount)
+                .tag("outcome", "success").register(registry);
+        FunctionCounter.builder("db.pool.borrows", ds, InstrumentedDataSource::getFailedBorrowCount)
+                .tag("outcome", "error").register(registry);
+    }
+
+    private void bindReplicas(MeterRegistry registry) {
+        ReplicaDataSource ds = readDataSource;
+
+        FunctionCounter.builder("db.reads", ds, ReplicaDataSource::getReplicaReads)
+                .tag("target", "replica").register(registry);
+        FunctionCounter.builder("db.reads", ds, ReplicaDataSource::getPrimaryReads)
+                .tag("target", "primary").register(registry);
+        FunctionCounter.builder("db.replica.failures", ds, ReplicaDataSource::getReplicaFailures)
+                .register(registry);
+
+        List<InstrumentedDataSource> replicas = ds.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            Gauge.builder("db.replica.connections.active", replicas.get(i), InstrumentedDataSource::getNumActive)
+                    .tag("replica", Integer.toString(i)).strongReference(true).register(registry);
+        }
+    }
+
+    private void bindCache(MeterRegistry registry) {
+        TeacherCache cache = teacherCache;
+
+        Gauge.builder("cache.teachers.size", cache, TeacherCache::size)
+                .strongReference(true).register(registry);
+        FunctionCounter.builder("cache.teachers.requests", cache, TeacherCache::getHits)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.teachers.requests", cache, TeacherCache::getMisses)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.teachers.evictions", cache, TeacherCache::getEvictions)
+                .tag("cause", "size").register(registry);
+        FunctionCounter.builder("cache.teachers.evictions", cache, TeacherCache::getExpirations)
+                .tag("cause", "expired").register(registry);
+    }
+
+    private void bindInvalidation(MeterRegistry registry) {
+        TeacherInvalidationRelay relay = invalidationRelay;
+
+        FunctionCounter.builder("cache.invalidation.messages", relay, TeacherInvalidationRelay::getPublished)
+                .tag("direction", "published").register(registry);
+        FunctionCounter.builder("cache.invalidation.messages", relay, TeacherInvalidationRelay::getReceived)
+                .tag("direction", "received").register(registry);
+        FunctionCounter.builder("cache.invalidation.gaps", relay, TeacherInvalidationRelay::getGaps)
+                .register(registry);
+    }
+
+    private void bindExecutor(MeterRegistry registry) {
+        DatabaseExecutor executor = databaseExecutor;
+
+        Gauge.builder("db.executor.inflight", executor, DatabaseExecutor::getInFlight)
+                .strongReference(true).register(registry);
+        Gauge.builder("db.executor.capacity", executor, DatabaseExecutor::getCapacity)
+                .strongReference(true).register(registry);
+        FunctionCounter.builder("db.executor.rejected", executor, DatabaseExecutor::getRejected)
+                .tag("cause", "full").register(registry);
+        FunctionCounter.builder("db.executor.rejected", executor, DatabaseExecutor::getTimedOut)
+                .tag("cause", "timeout").register(registry);
+    }
+
+    private void bindIngest(MeterRegistry registry) {
+        TeacherIngestBuffer buffer = ingestBuffer;
+
+        Gauge.builder("ingest.queue.size", buffer, TeacherIngestBuffer::getQueued)
+                .strongReference(true).register(registry);
+        Gauge.builder("ingest.queue.capacity", buffer, TeacherIngestBuffer::getCapacity)
+                .strongReference(true).register(registry);
+        FunctionCounter.builder("ingest.teachers", buffer, TeacherIngestBuffer::getInserted)
+                .tag("outcome", "inserted").register(registry);
+        FunctionCounter.builder("ingest.teachers", buffer, TeacherIngestBuffer::getFailed)
+                .tag("outcome", "failed").register(registry);
+        FunctionCounter.builder("ingest.teachers", buffer, TeacherIngestBuffer::getRejected)
+                .tag("outcome", "rejected").register(registry);
+    }
+
+    private void bindLimits(MeterRegistry registry) {
+        RateLimiter rate = rateLimiter;
+        AdaptiveConcurrencyLimiter concurrency = concurrencyLimiter;
+
+        FunctionCounter.builder("http.server.rejected", rate, RateLimiter::getRejected)
+                .tag("cause", "rate").register(registry);
+        FunctionCounter.builder("http.server.rejected", concurrency, AdaptiveConcurrencyLimiter::getRejected)
+                .tag("cause", "concurrency").register(registry);
+        Gauge.builder("limit.rate.clients", rate, RateLimiter::getTrackedClients)
+                .strongReference(true).register(registry);
+        Gauge.builder("limit.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit)
+                .strongReference(true).register(registry);
+        Gauge.builder("limit.concurrency.inflight", concurrency, AdaptiveConcurrencyLimiter::getInFlight)
+                .strongReference(true).register(registry);
+    }
+
+    private void bindStatements(MeterRegistry registry) {
+        Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+        StatementListener listener = (sql, nanos, success) -> {
+            String outcome = success ? "success" : "error";
+            timers.computeIfAbsent(outcome + sql, key -> Timer.builder("db.statements")
+                            .tag("sql", sql)
+                            .tag("outcome", outcome)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        };
+        dataSource.setStatementListener(listener);
+        readDataSource.setStatementListener(listener);
+
+        FunctionCounter.builder("db.statements.slow", traceRecorder, SqlTraceRecorder::getSlowQueries)
+                .register(registry);
+    }
+}
@@ -0,0 +1,64 @@
+package gr.aueb.cf.teachersjaxapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every request in a histogram
+ * per resource method and status code.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+@PreMatching
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+
+    @Inject
+    private MeterRegistry registry;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (start == null) return;
+
+        Timer.builder("http.server.requests")
+                .tag("method", requestContext.getMethod())
+                .tag("resource", resourceOf(requestContext))
+                .tag("status", Integer.toString(responseContext.getStatus()))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - (long) start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the name of the resource method that handled
+     * the request, e.g. 'TeacherRestResource.getTeacher'.
+     */
+    private static String resourceOf(ContainerRequestContext requestContext) {
+        if (!(requestContext.getUriInfo() instanceof ExtendedUriInfo)) return "UNKNOWN";
+
+        ResourceMethod resourceMethod = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedResourceMethod();
+        if (resourceMethod == null) return "UNMATCHED";
+
+        Method method = resourceMethod.getInvocable().getHandlingMethod();
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+}
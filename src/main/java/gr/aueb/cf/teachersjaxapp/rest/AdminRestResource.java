@@ -0,0 +1,127 @@
+package gr.aueb.cf.teachersjaxapp.rest;
+
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dto.CacheStatsDTO;
+import gr.aueb.cf.teachersjaxapp.dto.PoolStatsDTO;
+import gr.aueb.cf.teachersjaxapp.dto.SqlTraceDTO;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import gr.aueb.cf.teachersjaxapp.service.util.SqlTrace;
+import gr.aueb.cf.teachersjaxapp.service.util.SqlTraceRecorder;
+
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Administration controller class.
+ * Exposes operational information of the app,
+ * such as the state of the connection pool,
+ * of the teacher cache and the recent SQL traces.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Path("/admin")
+public class AdminRestResource {
+    @Inject
+    private InstrumentedDataSource dataSource;
+    @Inject
+    private TeacherCache teacherCache;
+    @Inject
+    private SqlTraceRecorder traceRecorder;
+
+    /**
+     * Handles GET requests in the path '/api/admin/pool'.
+     * The API provides the current statistics of the
+     * connection pool in JSON format.
+     *
+     * @return a JSON object with the pool statistics.
+     */
+    @Path("/pool")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPoolStats() {
+        PoolStatsDTO dto = new PoolStatsDTO();
+        dto.setActive(dataSource.getNumActive());
+        dto.setIdle(dataSource.getNumIdle());
+        dto.setMaxTotal(dataSource.getMaxTotal());
+        dto.setBorrowCount(dataSource.getBorrowCount());
+        dto.setFailedBorrowCount(dataSource.getFailedBorrowCount());
+        dto.setAverageWaitMillis(dataSource.getAverageWaitMillis());
+        dto.setMaxWaitMillis(dataSource.getMaxWaitMillis());
+        dto.setLeakDetectionEnabled(dataSource.isLeakDetectionEnabled());
+        dto.setLeakDetectionTimeoutSeconds(dataSource.getLeakDetectionTimeoutSeconds());
+
+        return Response.status(Response.Status.OK).entity(dto).build();
+    }
+
+    /**
+     * Handles GET requests in the path '/api/admin/cache'.
+     * The API provides the hit / miss / eviction counters
+     * of the teacher cache in JSON format.
+     *
+     * @return a JSON object with the cache statistics.
+     */
+    @Path("/cache")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCacheStats() {
+        CacheStatsDTO dto = new CacheStatsDTO();
+        dto.setEnabled(teacherCache.isEnabled());
+        dto.setSize(teacherCache.size());
+        dto.setMaxSize(teacherCache.getMaxSize());
+        dto.setTtlSeconds(teacherCache.getTtlSeconds());
+        dto.setHits(teacherCache.getHits());
+        dto.setMisses(teacherCache.getMisses());
+        dto.setEvictions(teacherCache.getEvictions());
+        dto.setExpirations(teacherCache.getExpirations());
+
+        return Response.status(Response.Status.OK).entity(dto).build();
+    }
+
+    /**
+     * Handles GET requests in the path '/api/admin/traces'.
+     * The API provides the most recent traces of the executed
+     * SQL statements, newest first, in JSON format.
+     *
+     * @param limit         the maximum number of traces.
+     * @param correlationId the correlation id of a request, to get only its traces.
+     * @param slow          true to get only the statements slower than 'trace.slowQueryMillis'.
+     * @return a JSON array with the traces or a response with
+     * status code 400 if the limit is not positive.
+     */
+    @Path("/traces")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getTraces(@QueryParam("limit") @DefaultValue("100") int limit,
+                              @QueryParam("correlationId") String correlationId,
+                              @QueryParam("slow") @DefaultValue("false") boolean slow) {
+        if (limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+        }
+
+        List<SqlTraceDTO> dtos = new ArrayList<>();
+        for (SqlTrace trace : traceRecorder.getRecent(limit, correlationId, slow)) {
+            SqlTraceDTO dto = new SqlTraceDTO();
+            dto.setTimestamp(Instant.ofEpochMilli(trace.getTimestampMillis()).toString());
+            dto.setCorrelationId(trace.getCorrelationId());
+            dto.setSql(trace.getSql());
+            dto.setBinds(trace.getBinds());
+            dto.setExecutionMillis(trace.getExecutionNanos() / 1e6);
+            dto.setRows(trace.getRows());
+            dto.setConnectionWaitMillis(trace.getConnectionWaitNanos() / 1e6);
+            dto.setSuccess(trace.isSuccess());
+            dto.setSqlState(trace.getSqlState());
+            dtos.add(dto);
+        }
+
+        return Response.status(Response.Status.OK).entity(dtos).build();
+    }
+}
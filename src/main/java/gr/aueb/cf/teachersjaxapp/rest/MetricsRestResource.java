@@ -0,0 +1,37 @@
+package gr.aueb.cf.teachersjaxapp.rest;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+/**
+ * Metrics controller class.
+ * Exposes the metrics of the app
+ * in the Prometheus text format.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Path("/metrics")
+public class MetricsRestResource {
+    @Inject
+    private PrometheusMeterRegistry registry;
+
+    /**
+     * Handles GET requests in the path '/api/metrics'.
+     * The API provides the request latency histograms,
+     * the SQL statement timers, the pool and cache gauges
+     * and the JVM metrics, to be scraped by Prometheus.
+     *
+     * @return the metrics in the Prometheus text format.
+     */
+    @GET
+    @Produces(TextFormat.CONTENT_TYPE_004)
+    public Response getMetrics() {
+        return Response.status(Response.Status.OK).entity(registry.scrape()).build();
+    }
+}
@@ -1,68 +1,222 @@
 package gr.aueb.cf.teachersjaxapp.rest;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherCursor;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherBatchException;
 import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.dto.IngestTicketDTO;
+import gr.aueb.cf.teachersjaxapp.dto.RowErrorDTO;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherBulkResultDTO;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherImportDTO;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherPageDTO;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherReadOnlyDTO;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherUpdateDTO;
 import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.rest.encoding.SmileProvider;
+import gr.aueb.cf.teachersjaxapp.rest.limit.ConcurrencyLimited;
+import gr.aueb.cf.teachersjaxapp.rest.util.Csv;
+import gr.aueb.cf.teachersjaxapp.rest.util.CursorCodec;
+import gr.aueb.cf.teachersjaxapp.rest.util.EntityTags;
+import gr.aueb.cf.teachersjaxapp.rest.util.TeacherImportReader;
+import gr.aueb.cf.teachersjaxapp.rest.validation.Preloaded;
 import gr.aueb.cf.teachersjaxapp.service.ITeacherService;
 import gr.aueb.cf.teachersjaxapp.service.exceptions.TeacherNotFoundException;
+import gr.aueb.cf.teachersjaxapp.service.ingest.IngestTicket;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherImport;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.CorrelationId;
+import gr.aueb.cf.teachersjaxapp.service.util.DatabaseExecutor;
 
 import javax.inject.Inject;
 import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
+import javax.validation.Valid;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
+import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Teachers controller class.
  * Handles API calls (requests) and
- * manages the responses.
+ * manages the responses. The database work of
+ * the requests runs on the {@link DatabaseExecutor},
+ * so the HTTP threads are released while it runs.
+ * The teacher representations carry a strong ETag, so
+ * clients can revalidate them with If-None-Match and
+ * update them with If-Match.
  *
  * @author Thanasis Chousiadas
  */
 @Path("/teachers")
 public class TeacherRestResource {
+    private static final Logger LOGGER = Logger.getLogger(TeacherRestResource.class.getName());
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+    private static final MediaType TEXT_CSV_TYPE = MediaType.valueOf(Csv.TEXT_CSV)
+            .withCharset(StandardCharsets.UTF_8.name());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE, SmileProvider.APPLICATION_SMILE_TYPE).build();
+
     @Inject
     private ITeacherService teacherService;
-    private final Validator validator;
-
-    /**
-     * Initiate a validator to validate the incoming data due to some criteria.
-     */
-    public TeacherRestResource() {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        this.validator = factory.getValidator();
-    }
-
+    @Inject
+    @Preloaded
+    private Validator validator;
+    @Inject
+    private DatabaseExecutor databaseExecutor;
+    private final int maxBatchSize = ConfigUtil.getInt("rest.batch.maxSize", 10_000);
+    private final int maxLookupSize = ConfigUtil.getInt("rest.lookup.maxIds", 1000);
+    private final int importBatchSize = ConfigUtil.getInt("import.batchSize", 1000);
+    private final int maxImportRecordLength = ConfigUtil.getInt("import.maxRecordLength", 4096);
+    private final long importTimeoutMillis = ConfigUtil.getLong("import.timeoutMillis", 600_000);
+    private final int defaultPageLimit = ConfigUtil.getInt("rest.page.defaultLimit", 100);
+    private final int maxPageLimit = ConfigUtil.getInt("rest.page.maxLimit", 1000);
+    private final int defaultSearchLimit = ConfigUtil.getInt("search.defaultLimit", 10);
+    private final int maxSearchLimit = ConfigUtil.getInt("search.maxLimit", 100);
+    private final String retryAfterSeconds = ConfigUtil.getString("async.retryAfterSeconds", "1");
+    private final CacheControl cacheControl = cacheControl(ConfigUtil.getInt("http.cacheControl.maxAgeSeconds", 0));
 
     /**
      * Handles the GET requests with a query parameter
      * in the path '/api/teachers?lastname='. The
      * API provides {@link Teacher} objects in JSON format.
+     * With the 'limit' and / or 'after' query parameters the
+     * result is paginated and the response carries the cursor
+     * of the next page. With 'stream=true' the records are
+     * written to the response as they are read from the database.
+     * The result is also available in Smile for internal callers.
+     * A non-streamed result that has not changed since the client
+     * read it (If-None-Match) is answered with 304 (Not Modified).
      *
-     * @param lastname the query parameter
+     * @param lastname    the query parameter
+     * @param limit       the maximum number of teachers in a page.
+     * @param after       the cursor returned with the previous page.
+     * @param stream      whether the result should be streamed.
+     * @param ifNoneMatch the ETags of the representations the client has.
+     * @param request     the request, for choosing the media type of a stream.
      * @return a JSON object with the result for a successful
      * response.
      */
     @Path("")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getTeacherByLastname(@QueryParam("lastname") String lastname) {
-        try {
-            List<Teacher> teachers = teacherService.getTeachersByLastname(lastname);
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited
+    public CompletionStage<Response> getTeacherByLastname(@QueryParam("lastname") String lastname,
+                                                          @QueryParam("limit") Integer limit,
+                                                          @QueryParam("after") String after,
+                                                          @QueryParam("stream") boolean stream,
+                                                          @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                          @Context Request request) {
+        if (stream) {
+            return CompletableFuture.completedFuture(streamTeachersByLastname(lastname, request));
+        }
+        MediaType mediaType = negotiate(request);
+        return async(() -> {
+            if (limit != null || after != null) {
+                return getTeacherPageByLastname(lastname, limit, after, ifNoneMatch, mediaType);
+            }
+
+            try {
+                List<TeacherReadOnlyDTO> teachers = teacherService.getTeachersByLastname(lastname, TeacherReadOnlyDTO::new);
+
+                if (teachers.size() == 0) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("Bad Request")
+                            .build();
+                }
 
-            if (teachers.size() == 0) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Bad Request")
+                EntityTag tag = EntityTags.forMediaType(EntityTags.ofDTOs(teachers), mediaType);
+                if (EntityTags.matchesNoneMatch(ifNoneMatch, tag)) {
+                    return notModified(tag);
+                }
+                return Response.status(Response.Status.OK).entity(teachers).type(mediaType)
+                        .tag(tag)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .cacheControl(cacheControl)
+                        .build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
                         .build();
             }
-            return Response.status(Response.Status.OK).entity(teachers).build();
+        });
+    }
+
+    /**
+     * Returns one page of the teachers where their lastname begins
+     * with the parameter, starting after the given cursor.
+     *
+     * @param lastname    the lastname for searching.
+     * @param limit       the maximum number of teachers, or null for the default.
+     * @param after       the cursor of the previous page, or null for the first page.
+     * @param ifNoneMatch the ETags of the representations the client has.
+     * @param mediaType   the negotiated media type of the page.
+     * @return a JSON object with the teachers of the page and the next cursor.
+     */
+    private Response getTeacherPageByLastname(String lastname, Integer limit, String after, String ifNoneMatch,
+                                              MediaType mediaType) {
+        int pageSize = (limit == null) ? defaultPageLimit : limit;
+        if (pageSize < 1 || pageSize > maxPageLimit) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+        }
+
+        TeacherCursor cursor = null;
+        if (after != null) {
+            try {
+                cursor = CursorCodec.decode(after);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+            }
+        }
+
+        try {
+            List<TeacherReadOnlyDTO> readOnlyDTOS = teacherService.getTeachersByLastname(
+                    (lastname == null) ? "" : lastname, cursor, pageSize, TeacherReadOnlyDTO::new);
+
+            // The next cursor is derived from the teachers, so the tag covers it too
+            EntityTag tag = EntityTags.forMediaType(EntityTags.ofDTOs(readOnlyDTOS), mediaType);
+            if (EntityTags.matchesNoneMatch(ifNoneMatch, tag)) {
+                return notModified(tag);
+            }
+
+            String nextCursor = null;
+            if (readOnlyDTOS.size() == pageSize) {
+                TeacherReadOnlyDTO last = readOnlyDTOS.get(readOnlyDTOS.size() - 1);
+                nextCursor = CursorCodec.encode(new TeacherCursor(last.getLastname(), last.getId()));
+            }
+
+            return Response.status(Response.Status.OK).entity(new TeacherPageDTO(readOnlyDTOS, nextCursor))
+                    .type(mediaType)
+                    .tag(tag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .cacheControl(cacheControl)
+                    .build();
         } catch (TeacherDAOException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Internal Service Error")
@@ -70,40 +224,263 @@ public class TeacherRestResource {
         }
     }
 
+    /**
+     * Streams, as a JSON (or Smile) array, the teachers where their lastname
+     * begins with the parameter. Every row is written to the response as soon
+     * as it is read from the database, so the memory used does not depend
+     * on the size of the result.
+     *
+     * @param lastname the lastname for searching.
+     * @param request  the request, for choosing the media type.
+     * @return a response with a streaming JSON array as its body.
+     */
+    private Response streamTeachersByLastname(String lastname, Request request) {
+        String prefix = (lastname == null) ? "" : lastname;
+
+        MediaType mediaType = negotiate(request);
+        JsonFactory factory = SmileProvider.APPLICATION_SMILE_TYPE.equals(mediaType)
+                ? SmileProvider.SMILE_FACTORY
+                : JSON_FACTORY;
+
+        // The body is written after the response filters, which unbind the id of the request
+        String correlationId = CorrelationId.current();
+        StreamingOutput body = output -> {
+            String previousId = CorrelationId.bind(correlationId);
+            try (JsonGenerator generator = factory.createGenerator(output)) {
+                generator.writeStartArray();
+                teacherService.streamTeachersByLastname(prefix, teacher -> writeTeacher(generator, teacher));
+                generator.writeEndArray();
+            } catch (TeacherDAOException e) {
+                throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+            } finally {
+                CorrelationId.bind(previousId);
+            }
+        };
+
+        return Response.status(Response.Status.OK).entity(body).type(mediaType).build();
+    }
+
+    /**
+     * Handles GET requests in the path '/api/teachers/export' and
+     * streams all the teachers, ordered by id, as NDJSON (one JSON
+     * object per line) or as CSV with a header row. The format is
+     * chosen with the 'format' query parameter ('ndjson' or 'csv') or
+     * else with the Accept header, NDJSON by default. Every row is
+     * written to the response as soon as it is read from a streaming
+     * result set, with chunked transfer, so the memory used does not
+     * depend on the size of the table; the first row is flushed at
+     * once, so the client gets the first bytes without waiting for
+     * the response buffer to fill.
+     *
+     * @param format  the format of the export, or null to use the Accept header.
+     * @param headers the headers of the request, for choosing the format.
+     * @return a response with the streaming export as its body,
+     * or with status code 400 if the format is unknown.
+     */
+    @Path("/export")
+    @GET
+    @Produces({APPLICATION_NDJSON, Csv.TEXT_CSV})
+    @ConcurrencyLimited(measured = false)
+    public Response exportTeachers(@QueryParam("format") String format, @Context HttpHeaders headers) {
+        MediaType mediaType = APPLICATION_NDJSON_TYPE;
+        if (format == null) {
+            // The acceptable types are sorted by preference; a wildcard gets NDJSON
+            for (MediaType accepted : headers.getAcceptableMediaTypes()) {
+                if (accepted.isCompatible(APPLICATION_NDJSON_TYPE)) break;
+                if (accepted.isCompatible(TEXT_CSV_TYPE)) {
+                    mediaType = TEXT_CSV_TYPE;
+                    break;
+                }
+            }
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            mediaType = APPLICATION_NDJSON_TYPE;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            mediaType = TEXT_CSV_TYPE;
+        } else {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+        }
+        boolean csv = mediaType.isCompatible(TEXT_CSV_TYPE);
+
+        // The body is written after the response filters, which unbind the id of the request
+        String correlationId = CorrelationId.current();
+        StreamingOutput body = output -> {
+            String previousId = CorrelationId.bind(correlationId);
+            try {
+                if (csv) {
+                    exportCsv(output);
+                } else {
+                    exportNdjson(output);
+                }
+            } catch (TeacherDAOException e) {
+                throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+            } finally {
+                CorrelationId.bind(previousId);
+            }
+        };
+
+        return Response.status(Response.Status.OK).entity(body).type(mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header("Content-Disposition", "attachment; filename=\"teachers." + (csv ? "csv" : "ndjson") + "\"")
+                .build();
+    }
+
+    private void exportNdjson(OutputStream output) throws TeacherDAOException, IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            // Every object ends its own line, instead of being separated by a space
+            generator.setRootValueSeparator(null);
+            long[] rows = {0};
+            teacherService.exportTeachers(teacher -> {
+                writeTeacher(generator, teacher);
+                generator.writeRaw('\n');
+                if (rows[0]++ == 0) generator.flush();
+            });
+        }
+    }
+
+    private void exportCsv(OutputStream output) throws TeacherDAOException, IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            Csv.writeRow(writer, "id", "firstname", "lastname");
+            long[] rows = {0};
+            teacherService.exportTeachers(teacher -> {
+                Csv.writeRow(writer, Long.toString(teacher.getId()), teacher.getFirstname(), teacher.getLastname());
+                if (rows[0]++ == 0) writer.flush();
+            });
+        }
+    }
+
+    /**
+     * Handles GET requests in the path '/api/teachers/search?q='
+     * for typeahead search. The API provides the teachers whose
+     * firstname or lastname begin with the terms of the query,
+     * best matches first, in JSON format.
+     *
+     * @param query the search terms.
+     * @param limit the maximum number of teachers returned.
+     * @return a JSON array with the matching teachers.
+     */
+    @Path("/search")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited
+    public CompletionStage<Response> searchTeachers(@QueryParam("q") String query,
+                                                    @QueryParam("limit") Integer limit) {
+        int size = (limit == null) ? defaultSearchLimit : limit;
+        if (query == null || query.isBlank() || size < 1 || size > maxSearchLimit) {
+            return CompletableFuture.completedFuture(
+                    Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build());
+        }
+
+        return async(() -> {
+            try {
+                List<Teacher> teachers = teacherService.searchTeachers(query, size);
+
+                List<TeacherReadOnlyDTO> readOnlyDTOS = new ArrayList<>(teachers.size());
+                for (Teacher teacher : teachers) {
+                    readOnlyDTOS.add(mapFrom(teacher));
+                }
+                return Response.status(Response.Status.OK).entity(readOnlyDTOS).build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Handles POST requests in the path '/api/teachers/lookup'
+     * with a JSON array of ids in the body, so that clients
+     * resolve many teachers with one request (and one query)
+     * instead of one GET per id.
+     *
+     * @param ids the ids of the teachers.
+     * @return a JSON array with the found teachers, in the order of
+     * the ids; ids with no teacher are skipped.
+     */
+    @Path("/lookup")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited
+    public CompletionStage<Response> lookupTeachers(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > maxLookupSize || ids.contains(null)) {
+            return CompletableFuture.completedFuture(
+                    Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build());
+        }
+
+        return async(() -> {
+            try {
+                List<Teacher> teachers = teacherService.getTeachersByIds(ids);
+
+                List<TeacherReadOnlyDTO> readOnlyDTOS = new ArrayList<>(teachers.size());
+                for (Teacher teacher : teachers) {
+                    readOnlyDTOS.add(mapFrom(teacher));
+                }
+                return Response.status(Response.Status.OK).entity(readOnlyDTOS).build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
+    }
+
     /**
      * Handles GET requests with a path parameter
      * in the path '/api/teachers/teacherId'. The API provides
-     * a JSON object with that teacherId.
+     * a JSON object with that teacherId. A teacher that has not
+     * changed since the client read it (If-None-Match) is answered
+     * with 304 (Not Modified); the teacher usually comes from the
+     * cache, so the revalidation does not reach the database.
      *
-     * @param teacherId the path parameter
+     * @param teacherId   the path parameter
+     * @param ifNoneMatch the ETags of the representations the client has.
      * @return a JSON object for success requests.
      */
     @Path("/{teacherId}")
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getTeacher(@PathParam("teacherId") long teacherId) {
-        try {
-            Teacher teacher = teacherService.getTeacherById(teacherId);
+    @ConcurrencyLimited
+    public CompletionStage<Response> getTeacher(@PathParam("teacherId") long teacherId,
+                                                @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        return async(() -> {
+            try {
+                Teacher teacher = teacherService.getTeacherById(teacherId);
 
-            if (teacher == null) {
-                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
-            }
+                if (teacher == null) {
+                    return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+                }
 
-            TeacherReadOnlyDTO dto = mapFrom(teacher);
+                EntityTag tag = EntityTags.of(teacher);
+                if (EntityTags.matchesNoneMatch(ifNoneMatch, tag)) {
+                    return notModified(tag);
+                }
 
-            return Response.status(Response.Status.OK).entity(dto).build();
-        } catch (TeacherDAOException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Internal Service Error")
-                    .build();
-        }
+                TeacherReadOnlyDTO dto = mapFrom(teacher);
+
+                return Response.status(Response.Status.OK).entity(dto)
+                        .tag(tag)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .cacheControl(cacheControl)
+                        .build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
     }
 
     /**
      * Handles POST requests in the path '/api/teachers'
      * with a JSON object in the body for adding new teacher.
+     * The body is validated by Jersey before this method is called.
+     * With 'async=true' the teacher is queued and inserted in the
+     * background; the client gets a 202 (Accepted) with a ticket,
+     * whose status is at '/api/teachers/ingest/ticketId'.
      *
      * @param dto     the {@link TeacherInsertDTO} for adding new teacher.
+     * @param async   whether the teacher should be inserted in the background.
      * @param uriInfo the information (URI path) of the referer that called that resource.
      * @return a JSON object for success requests.
      */
@@ -111,34 +488,377 @@ public class TeacherRestResource {
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addTeacher(TeacherInsertDTO dto, @Context UriInfo uriInfo) {
+    @ConcurrencyLimited
+    public CompletionStage<Response> addTeacher(@NotNull @Valid TeacherInsertDTO dto,
+                                                @QueryParam("async") boolean async,
+                                                @Context UriInfo uriInfo) {
+        if (async) {
+            return CompletableFuture.completedFuture(addTeacherAsync(dto, uriInfo));
+        }
+        return async(() -> {
+            try {
+                Teacher teacher = teacherService.insertTeacher(dto);
+                if (teacher == null) {
+                    return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+                }
 
-        Set<ConstraintViolation<TeacherInsertDTO>> violations = validator.validate(dto);
-        if (!violations.isEmpty()) {
-            List<String> errors = new ArrayList<>();
-            for (ConstraintViolation<TeacherInsertDTO> violation : violations) {
-                errors.add(violation.getMessage());
+                TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
+                UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder();
+                return Response.created(uriBuilder.path(Long.toString(readOnlyDTO.getId())).build())
+                        .entity(readOnlyDTO)
+                        .build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
             }
-            return Response.status(Response.Status.BAD_REQUEST).entity(errors).build();
-        }
+        }, false);
+    }
 
+    /**
+     * Queues a teacher for the background insert. It does not
+     * wait for the database, so it runs on the calling thread.
+     *
+     * @param dto     the {@link TeacherInsertDTO} for adding new teacher.
+     * @param uriInfo the information (URI path) of the referer that called that resource.
+     * @return a 202 (Accepted) response with the ticket, or a 503 if the queue is full.
+     */
+    private Response addTeacherAsync(TeacherInsertDTO dto, UriInfo uriInfo) {
         try {
-            Teacher teacher = teacherService.insertTeacher(dto);
-            if (teacher == null) {
-                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
-            }
+            IngestTicket ticket = teacherService.insertTeacherAsync(dto);
 
-            TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
-            UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder();
-            return Response.created(uriBuilder.path(Long.toString(readOnlyDTO.getId())).build())
-                    .entity(readOnlyDTO)
+            UriBuilder uriBuilder = uriInfo.getBaseUriBuilder().path(TeacherRestResource.class);
+            return Response.accepted(mapFrom(ticket))
+                    .location(uriBuilder.path("ingest").path(ticket.getId()).build())
                     .build();
+        } catch (RejectedExecutionException e) {
+            return mapFailure(e);
+        }
+    }
+
+    /**
+     * Handles GET requests in the path '/api/teachers/ingest/ticketId'.
+     * The API provides the status of a background insert and, once
+     * it is inserted, the id of the teacher.
+     *
+     * @param ticketId the id of the ticket returned by the insert.
+     * @return a JSON object with the status of the insert.
+     */
+    @Path("/ingest/{ticketId}")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getIngestTicket(@PathParam("ticketId") String ticketId) {
+        IngestTicket ticket = teacherService.getIngestTicket(ticketId);
+
+        if (ticket == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+        }
+        return Response.status(Response.Status.OK).entity(mapFrom(ticket)).build();
+    }
+
+    /**
+     * Handles POST requests in the path '/api/teachers/import' with
+     * an NDJSON or CSV file of teachers in the body, e.g. an export.
+     * The file is read one record at a time while it is uploaded, so
+     * it is never held in memory. Every record is validated like a new
+     * teacher; the valid ones are inserted in batches of 'import.batchSize',
+     * each in its own transaction, and the invalid ones are rejected without
+     * stopping the import. The import runs on the {@link DatabaseExecutor}
+     * like the other database work, but within 'import.timeoutMillis', since
+     * its duration depends on the size of the file; for the same reason it
+     * holds a concurrency slot without counting as a slow request. The id of the import is
+     * generated by the server and logged when the import starts; the response
+     * carries it, with the progress at '/api/teachers/import/importId' in its
+     * Location header.
+     *
+     * @param body    the file.
+     * @param headers the headers of the request, for the format of the file.
+     * @param uriInfo the information (URI path) of the referer that called that resource.
+     * @return a JSON object with the counts of the read, inserted and rejected
+     * records and the errors of the rejected ones, with status code 400 if
+     * the file cannot be read, 500 if the database fails, or 503 / 504 if
+     * the import could not start or complete in time.
+     */
+    @Path("/import")
+    @POST
+    @Consumes({APPLICATION_NDJSON, Csv.TEXT_CSV})
+    @Produces(MediaType.APPLICATION_JSON)
+    @ConcurrencyLimited(measured = false)
+    public CompletionStage<Response> importTeachers(InputStream body, @Context HttpHeaders headers,
+                                                    @Context UriInfo uriInfo) {
+        boolean csv = TEXT_CSV_TYPE.isCompatible(headers.getMediaType());
+        TeacherImport teacherImport = teacherService.startImport();
+        LOGGER.log(Level.INFO, "Import {0} started", teacherImport.getId());
+        UriBuilder uriBuilder = uriInfo.getBaseUriBuilder().path(TeacherRestResource.class);
+        URI location = uriBuilder.path("import").path(teacherImport.getId()).build();
+
+        return databaseExecutor.submit(() -> importTeachers(body, csv, teacherImport), importTimeoutMillis)
+                .thenApply(status -> Response.status(status).entity(mapFrom(teacherImport)).location(location).build())
+                .exceptionally(t -> {
+                    teacherImport.failed("The import did not complete");
+                    return mapFailure(t, false);
+                });
+    }
+
+    /**
+     * Reads, validates and inserts the records of an import file.
+     *
+     * @param body          the file.
+     * @param csv           true for a CSV file, false for NDJSON.
+     * @param teacherImport the progress of the import.
+     * @return the status of the response.
+     */
+    private Response.Status importTeachers(InputStream body, boolean csv, TeacherImport teacherImport) {
+        try (TeacherImportReader reader = new TeacherImportReader(body, csv, maxImportRecordLength)) {
+            List<TeacherInsertDTO> batch = new ArrayList<>(importBatchSize);
+            List<Integer> indexes = new ArrayList<>(importBatchSize);
+
+            for (int index = 0; ; index++) {
+                TeacherInsertDTO dto;
+                try {
+                    dto = reader.next();
+                } catch (IllegalArgumentException e) {
+                    teacherImport.read();
+                    teacherImport.rejected(index, List.of(e.getMessage()));
+                    continue;
+                }
+                if (dto == null) break;
+                teacherImport.read();
+
+                Set<ConstraintViolation<TeacherInsertDTO>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    List<String> errors = new ArrayList<>();
+                    for (ConstraintViolation<TeacherInsertDTO> violation : violations) {
+                        errors.add(violation.getMessage());
+                    }
+                    teacherImport.rejected(index, errors);
+                    continue;
+                }
+
+                batch.add(dto);
+                indexes.add(index);
+                if (batch.size() == importBatchSize) {
+                    insertImportBatch(teacherImport, batch, indexes);
+                    batch.clear();
+                    indexes.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertImportBatch(teacherImport, batch, indexes);
+            }
+
+            teacherImport.completed();
+            return Response.Status.OK;
+        } catch (IllegalArgumentException | IOException e) {
+            // A CSV file without a valid header, or an upload that broke off
+            teacherImport.failed(e.getMessage());
+            return Response.Status.BAD_REQUEST;
         } catch (TeacherDAOException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Internal Service Error")
-                    .build();
+            teacherImport.failed("Internal Service Error");
+            return Response.Status.INTERNAL_SERVER_ERROR;
         }
+    }
 
+    /**
+     * Inserts a batch of valid records of an import. If the database
+     * rejects some of them, the transaction of the batch is rolled back,
+     * so the rejected records are dropped and the rest inserted again.
+     *
+     * @param teacherImport the progress of the import.
+     * @param batch         the records of the batch.
+     * @param indexes       the indexes of the records in the file.
+     * @throws TeacherDAOException if the database fails for another reason.
+     */
+    private void insertImportBatch(TeacherImport teacherImport, List<TeacherInsertDTO> batch, List<Integer> indexes)
+            throws TeacherDAOException {
+        try {
+            teacherService.insertTeachers(batch);
+            teacherImport.inserted(batch.size());
+            return;
+        } catch (TeacherBatchException e) {
+            List<TeacherInsertDTO> retry = new ArrayList<>(batch.size());
+            List<Integer> retryIndexes = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                String error = e.getRowErrors().get(i);
+                if (error != null) {
+                    teacherImport.rejected(indexes.get(i), List.of(error));
+                } else {
+                    retry.add(batch.get(i));
+                    retryIndexes.add(indexes.get(i));
+                }
+            }
+            batch = retry;
+            indexes = retryIndexes;
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            teacherService.insertTeachers(batch);
+            teacherImport.inserted(batch.size());
+        } catch (TeacherBatchException e) {
+            for (Integer index : indexes) {
+                teacherImport.rejected(index, List.of(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Handles GET requests in the path '/api/teachers/import/importId'.
+     * The API provides the progress of a running import, or the
+     * outcome of a finished one.
+     *
+     * @param importId the id of the import, returned by the import request.
+     * @return a JSON object with the counts of the import.
+     */
+    @Path("/import/{importId}")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getImport(@PathParam("importId") String importId) {
+        TeacherImport teacherImport = teacherService.getImport(importId);
+
+        if (teacherImport == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+        }
+        return Response.status(Response.Status.OK).entity(mapFrom(teacherImport)).build();
+    }
+
+    /**
+     * Handles POST requests in the path '/api/teachers/batch'
+     * with a JSON array in the body for adding many new teachers
+     * at once. The whole array is validated before any insert and
+     * the teachers are inserted in one transaction.
+     *
+     * @param dtos the {@link TeacherInsertDTO} objects for adding new teachers.
+     * @return a JSON array with the inserted teachers for success requests, or
+     * a JSON array with the errors of each invalid / rejected row.
+     */
+    @Path("/batch")
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited(measured = false)
+    public CompletionStage<Response> addTeachers(List<TeacherInsertDTO> dtos) {
+        return async(() -> {
+            if (dtos == null || dtos.isEmpty() || dtos.size() > maxBatchSize) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+            }
+
+            List<RowErrorDTO> rowErrors = new ArrayList<>();
+            for (int i = 0; i < dtos.size(); i++) {
+                TeacherInsertDTO dto = dtos.get(i);
+                if (dto == null) {
+                    rowErrors.add(new RowErrorDTO(i, List.of("Teacher must not be null")));
+                    continue;
+                }
+
+                Set<ConstraintViolation<TeacherInsertDTO>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    List<String> errors = new ArrayList<>();
+                    for (ConstraintViolation<TeacherInsertDTO> violation : violations) {
+                        errors.add(violation.getMessage());
+                    }
+                    rowErrors.add(new RowErrorDTO(i, errors));
+                }
+            }
+            if (!rowErrors.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(rowErrors).build();
+            }
+
+            try {
+                List<Teacher> teachers = teacherService.insertTeachers(dtos);
+
+                List<TeacherReadOnlyDTO> readOnlyDTOS = new ArrayList<>(teachers.size());
+                for (Teacher teacher : teachers) {
+                    readOnlyDTOS.add(mapFrom(teacher));
+                }
+                return Response.status(Response.Status.CREATED).entity(readOnlyDTOS).build();
+            } catch (TeacherBatchException e) {
+                for (Map.Entry<Integer, String> error : e.getRowErrors().entrySet()) {
+                    rowErrors.add(new RowErrorDTO(error.getKey(), List.of(error.getValue())));
+                }
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(rowErrors).build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        }, false);
+    }
+
+    /**
+     * Handles requests with PATCH HTTP method in the path
+     * '/api/teachers' with a JSON array in the body for updating
+     * many teachers at once. The whole array is validated before
+     * any update (every teacher needs its id, once) and the teachers
+     * are updated with batched statements in one transaction.
+     *
+     * @param dtos the {@link TeacherUpdateDTO} objects with the ids and the new information.
+     * @return a JSON array with the outcome for every id, in the order of the
+     * body ('UPDATED' with the teacher, or 'NOT_FOUND'), or a JSON array
+     * with the errors of each invalid / rejected row.
+     */
+    @Path("")
+    @PATCH
+    @Consumes({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited(measured = false)
+    public CompletionStage<Response> updateTeachers(List<TeacherUpdateDTO> dtos) {
+        return async(() -> {
+            if (dtos == null || dtos.isEmpty() || dtos.size() > maxBatchSize) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
+            }
+
+            List<RowErrorDTO> rowErrors = new ArrayList<>();
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < dtos.size(); i++) {
+                TeacherUpdateDTO dto = dtos.get(i);
+                if (dto == null) {
+                    rowErrors.add(new RowErrorDTO(i, List.of("Teacher must not be null")));
+                    continue;
+                }
+
+                List<String> errors = new ArrayList<>();
+                if (dto.getId() == null) {
+                    errors.add("Id must not be null");
+                } else if (!ids.add(dto.getId())) {
+                    errors.add("Id " + dto.getId() + " is given more than once");
+                }
+                for (ConstraintViolation<TeacherUpdateDTO> violation : validator.validate(dto)) {
+                    errors.add(violation.getMessage());
+                }
+                if (!errors.isEmpty()) {
+                    rowErrors.add(new RowErrorDTO(i, errors));
+                }
+            }
+            if (!rowErrors.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(rowErrors).build();
+            }
+
+            try {
+                Map<Long, Teacher> updated = new HashMap<>();
+                for (Teacher teacher : teacherService.updateTeachers(dtos)) {
+                    updated.put(teacher.getId(), teacher);
+                }
+
+                List<TeacherBulkResultDTO> results = new ArrayList<>(dtos.size());
+                for (TeacherUpdateDTO dto : dtos) {
+                    Teacher teacher = updated.get(dto.getId());
+                    results.add((teacher == null)
+                            ? new TeacherBulkResultDTO(dto.getId(), "NOT_FOUND", null)
+                            : new TeacherBulkResultDTO(dto.getId(), "UPDATED", mapFrom(teacher)));
+                }
+                return Response.status(Response.Status.OK).entity(results).build();
+            } catch (TeacherBatchException e) {
+                for (Map.Entry<Integer, String> error : e.getRowErrors().entrySet()) {
+                    rowErrors.add(new RowErrorDTO(error.getKey(), List.of(error.getValue())));
+                }
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(rowErrors).build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
     }
 
     /**
@@ -147,65 +867,245 @@ public class TeacherRestResource {
      * from the database.
      *
      * @param teacherId the teacher's id.
-     * @return a JSON object with the information of the deleted teacher.
+     * @return a JSON object with the information of the deleted teacher,
+     * or a 404 (Not Found) if there is no teacher with that id.
      */
     @Path("/{teacherId}")
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteTeacher(@PathParam("teacherId") long teacherId) {
-        try {
-            Teacher teacher = teacherService.getTeacherById(teacherId);
-            teacherService.deleteTeacher(teacherId);
+    @ConcurrencyLimited
+    public CompletionStage<Response> deleteTeacher(@PathParam("teacherId") long teacherId) {
+        return async(() -> {
+            try {
+                Teacher teacher = teacherService.deleteTeacher(teacherId);
 
-            TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
+                TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
 
-            return Response.status(Response.Status.OK).entity(readOnlyDTO).build();
-        } catch (TeacherDAOException | TeacherNotFoundException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Internal Service Error")
-                    .build();
+                return Response.status(Response.Status.OK).entity(readOnlyDTO).build();
+            } catch (TeacherNotFoundException e) {
+                return Response.status(Response.Status.NOT_FOUND).entity("Not Found").build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Handles DELETE requests in the path '/api/teachers?ids='
+     * where deletes many teachers from the database in one
+     * transaction. The ids are comma-separated and / or given
+     * as repeated query parameters, e.g. '?ids=1,2&amp;ids=3'.
+     *
+     * @param values the values of the 'ids' query parameter.
+     * @return a JSON array with the outcome for every id, in the order
+     * of the query ('DELETED' with the deleted teacher, or 'NOT_FOUND').
+     */
+    @Path("")
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE})
+    @ConcurrencyLimited(measured = false)
+    public CompletionStage<Response> deleteTeachers(@QueryParam("ids") List<String> values) {
+        Set<Long> ids = parseIds(values);
+        if (ids.isEmpty() || ids.size() > maxBatchSize) {
+            return CompletableFuture.completedFuture(
+                    Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build());
         }
+
+        return async(() -> {
+            try {
+                Map<Long, Teacher> deleted = new HashMap<>();
+                for (Teacher teacher : teacherService.deleteTeachers(ids)) {
+                    deleted.put(teacher.getId(), teacher);
+                }
+
+                List<TeacherBulkResultDTO> results = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    Teacher teacher = deleted.get(id);
+                    results.add((teacher == null)
+                            ? new TeacherBulkResultDTO(id, "NOT_FOUND", null)
+                            : new TeacherBulkResultDTO(id, "DELETED", mapFrom(teacher)));
+                }
+                return Response.status(Response.Status.OK).entity(results).build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
+            }
+        });
     }
 
     /**
      * Handles requests with PUT HTTP method in the path
      * '/api/teachers/teacherId' and updates a teacher.
+     * The body is validated by Jersey before this method is called.
+     * With an If-Match header the teacher is updated only if it
+     * has not changed since the client read it, otherwise the
+     * client gets a 412 (Precondition Failed).
      *
      * @param teacherId the id of the teacher in the database.
      * @param dto       the new information of the teacher.
-     * @return a JSON object with the updated teacher.
+     * @param ifMatch   the ETag of the teacher the client has read, or null.
+     * @return a JSON object with the updated teacher, or a 404 (Not Found)
+     * if there is no teacher with that id.
      */
     @Path("/{teacherId}")
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateTeacher(@PathParam("teacherId") long teacherId, TeacherUpdateDTO dto) {
-        try {
-            dto.setId(teacherId);
+    @ConcurrencyLimited
+    public CompletionStage<Response> updateTeacher(@PathParam("teacherId") long teacherId, @NotNull @Valid TeacherUpdateDTO dto,
+                                                   @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        return async(() -> {
+            try {
+                dto.setId(teacherId);
 
-            Set<ConstraintViolation<TeacherUpdateDTO>> violations = validator.validate(dto);
+                Teacher expected = null;
+                if (ifMatch != null) {
+                    expected = teacherService.getTeacherById(teacherId);
+                    if (expected == null || !EntityTags.matchesIfMatch(ifMatch, EntityTags.of(expected))) {
+                        return preconditionFailed();
+                    }
+                }
 
-            if (!violations.isEmpty()) {
-                List<String> errors = new ArrayList<>();
-                for (ConstraintViolation<TeacherUpdateDTO> violation : violations) {
-                    errors.add(violation.getMessage());
+                Teacher teacher;
+                try {
+                    teacher = teacherService.updateTeacher(dto, expected);
+                } catch (TeacherNotFoundException e) {
+                    // The conditional update matched no row: the teacher changed after it was read
+                    if (expected != null) return preconditionFailed();
+                    return Response.status(Response.Status.NOT_FOUND).entity("Not Found").build();
+                }
+                if (teacher == null) {
+                    return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
                 }
 
-                return Response.status(Response.Status.BAD_REQUEST).entity(errors).build();
+                TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
+                return Response.status(Response.Status.OK).entity(readOnlyDTO)
+                        .tag(EntityTags.of(teacher))
+                        .build();
+            } catch (TeacherDAOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Internal Service Error")
+                        .build();
             }
+        });
+    }
 
-            Teacher teacher = teacherService.updateTeacher(dto);
-            if (teacher == null) {
-                return Response.status(Response.Status.BAD_REQUEST).entity("Bad Request").build();
-            }
+    /**
+     * Runs the work of an idempotent request on the {@link DatabaseExecutor}.
+     * If the executor is full or the work does not complete in time,
+     * the client gets a 503 (Service Unavailable) with a Retry-After header.
+     *
+     * @param task the work of the request.
+     * @return a stage that completes with the response.
+     */
+    private CompletionStage<Response> async(Callable<Response> task) {
+        return async(task, true);
+    }
 
-            TeacherReadOnlyDTO readOnlyDTO = mapFrom(teacher);
-            return Response.status(Response.Status.OK).entity(readOnlyDTO).build();
-        } catch (TeacherDAOException | TeacherNotFoundException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Internal Service Error")
+    /**
+     * Runs the work of a request on the {@link DatabaseExecutor}.
+     * If the executor is full, or the work did not start in time, the
+     * client gets a 503 (Service Unavailable) with a Retry-After header.
+     * If the work started but did not complete in time, a non-idempotent
+     * request may or may not have been applied, so the client gets a
+     * 504 (Gateway Timeout) without an offer to retry.
+     *
+     * @param task       the work of the request.
+     * @param idempotent whether the request can safely be sent again.
+     * @return a stage that completes with the response.
+     */
+    private CompletionStage<Response> async(Callable<Response> task, boolean idempotent) {
+        return databaseExecutor.submit(task).exceptionally(t -> mapFailure(t, idempotent));
+    }
+
+    private Response mapFailure(Throwable t) {
+        return mapFailure(t, true);
+    }
+
+    private Response mapFailure(Throwable t, boolean idempotent) {
+        Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+
+        if (cause instanceof TimeoutException && !idempotent) {
+            return Response.status(Response.Status.GATEWAY_TIMEOUT)
+                    .entity("Gateway Timeout")
                     .build();
         }
+        if (cause instanceof RejectedExecutionException || cause instanceof TimeoutException) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .entity("Service Unavailable")
+                    .build();
+        }
+        if (cause instanceof WebApplicationException) {
+            return ((WebApplicationException) cause).getResponse();
+        }
+
+        LOGGER.log(Level.WARNING, "Unexpected failure of a request", cause);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity("Internal Service Error")
+                .build();
+    }
+
+    /**
+     * Answers a conditional GET whose representation has not changed,
+     * without a body.
+     *
+     * @param tag the current ETag of the representation.
+     * @return a 304 (Not Modified) response.
+     */
+    private Response notModified(EntityTag tag) {
+        return Response.notModified(tag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    /**
+     * Chooses JSON or Smile from the Accept header of the request.
+     *
+     * @param request the request.
+     * @return the media type of the response, JSON if the client accepts both.
+     */
+    private static MediaType negotiate(Request request) {
+        Variant variant = request.selectVariant(VARIANTS);
+        return (variant == null) ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+    }
+
+    /**
+     * Parses the values of the 'ids' query parameter.
+     *
+     * @param values the values, each with one or more comma-separated ids.
+     * @return the distinct ids, in the order of the query, or an
+     * empty set if some id is not a number.
+     */
+    static Set<Long> parseIds(List<String> values) {
+        Set<Long> ids = new LinkedHashSet<>();
+        try {
+            for (String value : values) {
+                for (String id : value.split(",")) {
+                    if (!id.isBlank()) ids.add(Long.parseLong(id.trim()));
+                }
+            }
+        } catch (NumberFormatException e) {
+            ids.clear();
+        }
+        return ids;
+    }
+
+    private static Response preconditionFailed() {
+        return Response.status(Response.Status.PRECONDITION_FAILED).entity("Precondition Failed").build();
+    }
+
+    private static CacheControl cacheControl(int maxAgeSeconds) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoTransform(false);
+        cacheControl.setPrivate(true);
+        cacheControl.setMaxAge(maxAgeSeconds);
+        cacheControl.setMustRevalidate(true);
+        return cacheControl;
     }
 
     /**
@@ -218,4 +1118,55 @@ public class TeacherRestResource {
     private TeacherReadOnlyDTO mapFrom(Teacher teacher) {
         return new TeacherReadOnlyDTO(teacher.getId(), teacher.getFirstname(), teacher.getLastname());
     }
+
+    /**
+     * This method maps an {@link IngestTicket} object to
+     * {@link IngestTicketDTO} object.
+     *
+     * @param ticket an {@link IngestTicket} object.
+     * @return an {@link IngestTicketDTO} object.
+     */
+    private IngestTicketDTO mapFrom(IngestTicket ticket) {
+        return new IngestTicketDTO(ticket.getId(), ticket.getStatus().name(), ticket.getTeacherId(), ticket.getError());
+    }
+
+    /**
+     * This method maps a {@link TeacherImport} object to
+     * {@link TeacherImportDTO} object.
+     *
+     * @param teacherImport a {@link TeacherImport} object.
+     * @return a {@link TeacherImportDTO} object.
+     */
+    private TeacherImportDTO mapFrom(TeacherImport teacherImport) {
+        TeacherImportDTO dto = new TeacherImportDTO();
+        dto.setImportId(teacherImport.getId());
+        dto.setStatus(teacherImport.getStatus().name());
+        dto.setRecords(teacherImport.getRecords());
+        dto.setInserted(teacherImport.getInserted());
+        dto.setRejected(teacherImport.getRejected());
+        dto.setError(teacherImport.getError());
+
+        List<RowErrorDTO> errors = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> error : teacherImport.getErrors().entrySet()) {
+            errors.add(new RowErrorDTO(error.getKey(), error.getValue()));
+        }
+        dto.setErrors(errors);
+        return dto;
+    }
+
+    /**
+     * This method writes a {@link Teacher} object as a JSON object
+     * with the same fields as {@link TeacherReadOnlyDTO}.
+     *
+     * @param generator the {@link JsonGenerator} of the response.
+     * @param teacher   a {@link Teacher} object.
+     * @throws IOException if the response cannot be written.
+     */
+    private static void writeTeacher(JsonGenerator generator, Teacher teacher) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", teacher.getId());
+        generator.writeStringField("firstname", teacher.getFirstname());
+        generator.writeStringField("lastname", teacher.getLastname());
+        generator.writeEndObject();
+    }
 }
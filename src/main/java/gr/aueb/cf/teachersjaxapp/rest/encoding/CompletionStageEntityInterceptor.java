@@ -0,0 +1,33 @@
+package gr.aueb.cf.teachersjaxapp.rest.encoding;
+
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Corrects the generic type of the entities of the resource
+ * methods that return a {@code CompletionStage<Response>}.
+ * Jersey hands the writers the declared return type of the
+ * method instead of the type of the entity, which the JSON
+ * writers reject, so the entity is written as its own class.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+public class CompletionStageEntityInterceptor implements WriterInterceptor {
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Type genericType = context.getGenericType();
+        if (context.getEntity() != null && genericType instanceof ParameterizedType
+                && ((ParameterizedType) genericType).getRawType() == CompletionStage.class) {
+            context.setType(context.getEntity().getClass());
+            context.setGenericType(context.getEntity().getClass());
+        }
+        context.proceed();
+    }
+}
@@ -0,0 +1,286 @@
+package gr.aueb.cf.teachersjaxapp.rest.encoding;
+
+import gr.aueb.cf.teachersjaxapp.rest.util.EntityTags;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the response bodies with gzip or deflate, as
+ * negotiated by the Accept-Encoding header of the request.
+ * The response filter picks the encoding and the writer
+ * interceptor applies it. The first bytes of the body are
+ * buffered, so that bodies smaller than the threshold are
+ * sent as they are; the Content-Encoding header is only set
+ * once the body is known to be larger. Streamed bodies
+ * ({@link StreamingOutput}) are compressed from the first byte,
+ * so that their flushes reach the client at once.
+ * <p>
+ * A compressed body is a different representation, so its ETag
+ * gets the encoding as a suffix (see {@link EntityTags#encoded}).
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+public class CompressionInterceptor implements ContainerResponseFilter, WriterInterceptor {
+    private static final String ENCODING_PROPERTY = CompressionInterceptor.class.getName() + ".encoding";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final boolean enabled = ConfigUtil.getBoolean("http.compression.enabled", true);
+    private final int threshold = ConfigUtil.getInt("http.compression.thresholdBytes", 1024);
+    private final int level = ConfigUtil.getInt("http.compression.level", Deflater.DEFAULT_COMPRESSION);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!enabled) return;
+        if (responseContext.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            // Answers with the tag of the representation the client has, compressed or not
+            String encoding = negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+            String ifNoneMatch = requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+            EntityTag tag = responseContext.getEntityTag();
+            if (encoding != null && tag != null && ifNoneMatch != null
+                    && ifNoneMatch.contains(EntityTags.encoded(tag, encoding).getValue())) {
+                encodeEntityTag(responseContext.getHeaders(), encoding);
+            }
+            return;
+        }
+        if (!responseContext.hasEntity()) return;
+        if (responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) return;
+
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String encoding = negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            requestContext.setProperty(ENCODING_PROPERTY, encoding);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object encoding = context.getProperty(ENCODING_PROPERTY);
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream stream = new ThresholdOutputStream(context, (String) encoding,
+                context.getEntity() instanceof StreamingOutput);
+        context.setOutputStream(stream);
+        try {
+            context.proceed();
+        } finally {
+            stream.finish();
+        }
+    }
+
+    /**
+     * Replaces a strong or weak ETag header with the tag of the compressed representation.
+     */
+    private static void encodeEntityTag(MultivaluedMap<String, Object> headers, String encoding) {
+        Object value = headers.getFirst(HttpHeaders.ETAG);
+        if (value == null) return;
+
+        EntityTag tag = (value instanceof EntityTag) ? (EntityTag) value : EntityTag.valueOf(value.toString());
+        headers.putSingle(HttpHeaders.ETAG, EntityTags.encoded(tag, encoding));
+    }
+
+    /**
+     * Picks gzip or deflate, whichever the client prefers
+     * (gzip on a tie), from an Accept-Encoding header.
+     *
+     * @param acceptEncoding the value of the header, or null.
+     * @return the encoding, or null if the client accepts neither.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+
+        double gzip = 0;
+        double deflate = 0;
+        double any = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) gzip = q;
+            else if (coding.equals(DEFLATE)) deflate = q;
+            else if (coding.equals("*")) any = q;
+        }
+        if (!acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) gzip = any;
+
+        if (gzip > 0 && gzip >= deflate) return GZIP;
+        if (deflate > 0) return DEFLATE;
+        return null;
+    }
+
+    /**
+     * Buffers the body up to the threshold and switches to
+     * the compressed stream when the body grows beyond it.
+     * A streamed body is not buffered.
+     */
+    private final class ThresholdOutputStream extends OutputStream {
+        private final WriterInterceptorContext context;
+        private final OutputStream target;
+        private final String encoding;
+        private byte[] buffer;
+        private int count;
+        private DeflaterOutputStream compressed;
+        private boolean finished;
+
+        private ThresholdOutputStream(WriterInterceptorContext context, String encoding, boolean streamed) {
+            this.context = context;
+            this.target = context.getOutputStream();
+            this.encoding = encoding;
+            this.buffer = new byte[streamed ? 0 : Math.max(threshold, 1)];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (compressed == null && count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            compressing().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed == null && count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            compressing().write(b, off, len);
+        }
+
+        private OutputStream compressing() throws IOException {
+            if (compressed == null) {
+                context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+                context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                encodeEntityTag(context.getHeaders(), encoding);
+
+                OutputStream body = new UnclosableOutputStream(target);
+                compressed = encoding.equals(GZIP)
+                        ? new LeveledGZIPOutputStream(body, level)
+                        : new LeveledDeflaterOutputStream(body, level);
+                compressed.write(buffer, 0, count);
+                buffer = null;
+            }
+            return compressed;
+        }
+
+        /**
+         * Flushes the compressed body so far (a sync flush, so the client
+         * can decompress it). A buffered body is still waiting to find out
+         * whether it reaches the threshold, and is written soon anyway.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) compressed.flush();
+        }
+
+        /**
+         * Writes the rest of the body, without closing the target.
+         */
+        void finish() throws IOException {
+            if (finished) return;
+            finished = true;
+
+            if (compressed == null) {
+                target.write(buffer, 0, count);
+                buffer = null;
+            } else {
+                // Also releases the native memory of the Deflater
+                compressed.close();
+            }
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+    }
+
+    private static final class LeveledDeflaterOutputStream extends DeflaterOutputStream {
+        private LeveledDeflaterOutputStream(OutputStream out, int level) {
+            super(out, new Deflater(level), 8192, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+        private LeveledGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192, true);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * Lets the compressed stream be closed without closing the
+     * response stream, which is closed by Jersey.
+     */
+    private static final class UnclosableOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        private UnclosableOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
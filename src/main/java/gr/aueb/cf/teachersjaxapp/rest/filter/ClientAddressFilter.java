@@ -0,0 +1,29 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import java.io.IOException;
+
+/**
+ * Servlet filter that keeps the address of the client in a request
+ * attribute, which Jersey shows as a property of the request. The
+ * JAX-RS filters read the address from there, since the CDI SE
+ * injection manager of Jersey can not inject the HttpServletRequest.
+ *
+ * @author Thanasis Chousiadas
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class ClientAddressFilter implements Filter {
+    public static final String CLIENT_ADDRESS = ClientAddressFilter.class.getName() + ".address";
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        request.setAttribute(CLIENT_ADDRESS, request.getRemoteAddr());
+        chain.doFilter(request, response);
+    }
+}
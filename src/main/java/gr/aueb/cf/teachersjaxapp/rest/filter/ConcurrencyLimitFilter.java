@@ -0,0 +1,175 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import gr.aueb.cf.teachersjaxapp.rest.limit.AdaptiveConcurrencyLimiter;
+import gr.aueb.cf.teachersjaxapp.rest.limit.ConcurrencyLimited;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the {@link ConcurrencyLimited} resource methods within the
+ * limit of the {@link AdaptiveConcurrencyLimiter} and rejects the
+ * requests beyond it with 503 (Service Unavailable). The slot of a
+ * request without a body is freed by the response filter; the slot of
+ * a request with a body is held until the body is written, since a
+ * streamed body does its database work only then. If the request fails
+ * before that, the slot is freed when Jersey has finished with it, so an
+ * exception can not leak a slot. Jersey does not report the end of every
+ * asynchronous request, so the filter and the interceptor come first.
+ * <p>
+ * The latency of the unmeasured methods (see {@link ConcurrencyLimited#measured()})
+ * and of the streamed bodies depends on the size of the data, so it does
+ * not adapt the limit; only their server errors do.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION + 1)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor,
+        ApplicationEventListener {
+    private static final String SLOT_PROPERTY = ConcurrencyLimitFilter.class.getName() + ".slot";
+
+    @Inject
+    private AdaptiveConcurrencyLimiter limiter;
+    @Context
+    private ResourceInfo resourceInfo;
+
+    private final String retryAfterSeconds = ConfigUtil.getString("async.retryAfterSeconds", "1");
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public ConcurrencyLimitFilter() { }
+
+    /**
+     * Creates a filter outside of a CDI container, e.g. for tests.
+     *
+     * @param limiter      the {@link AdaptiveConcurrencyLimiter} of the requests.
+     * @param resourceInfo the resource method of the request.
+     */
+    ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, ResourceInfo resourceInfo) {
+        this.limiter = limiter;
+        this.resourceInfo = resourceInfo;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!limiter.isEnabled()) return;
+        ConcurrencyLimited limited = limitOf(resourceInfo.getResourceMethod());
+        if (limited == null) return;
+
+        int slot = limiter.tryAcquire();
+        if (slot == 0) {
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .entity("Service Unavailable")
+                    .build());
+            return;
+        }
+        requestContext.setProperty(SLOT_PROPERTY, new Slot(slot, limited.measured()));
+    }
+
+    private static ConcurrencyLimited limitOf(Method method) {
+        if (method == null) return null;
+
+        ConcurrencyLimited limited = method.getAnnotation(ConcurrencyLimited.class);
+        return (limited != null) ? limited : method.getDeclaringClass().getAnnotation(ConcurrencyLimited.class);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Slot slot = (Slot) requestContext.getProperty(SLOT_PROPERTY);
+        if (slot == null) return;
+
+        slot.status = responseContext.getStatus();
+        if (!responseContext.hasEntity() || HttpMethod.HEAD.equals(requestContext.getMethod())) {
+            release(slot, slot.status);
+            return;
+        }
+        if (responseContext.getEntity() instanceof StreamingOutput) {
+            slot.measured = false;
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Slot slot = (Slot) context.getProperty(SLOT_PROPERTY);
+        if (slot == null) {
+            context.proceed();
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            context.proceed();
+            failed = false;
+        } finally {
+            release(slot, failed ? Response.Status.INTERNAL_SERVER_ERROR.getStatusCode() : slot.status);
+        }
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return event -> {
+            if (event.getType() != RequestEvent.Type.FINISHED) return;
+
+            Slot slot = (Slot) event.getContainerRequest().getProperty(SLOT_PROPERTY);
+            if (slot == null) return;
+            ContainerResponse response = event.getContainerResponse();
+            release(slot, (response == null) ? 500 : response.getStatus());
+        };
+    }
+
+    private void release(Slot slot, int status) {
+        if (!slot.released.compareAndSet(false, true)) return;
+
+        if (slot.measured) {
+            limiter.release(slot.inFlightAtStart, System.nanoTime() - slot.startNanos, status >= 500);
+        } else {
+            limiter.releaseUnmeasured(status >= 500);
+        }
+    }
+
+    /**
+     * The slot a request holds, from the request filter until it is freed once.
+     */
+    private static final class Slot {
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean measured;
+        private volatile int status;
+
+        private Slot(int inFlightAtStart, boolean measured) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.measured = measured;
+        }
+    }
+}
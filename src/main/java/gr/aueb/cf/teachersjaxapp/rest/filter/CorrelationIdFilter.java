@@ -0,0 +1,52 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import gr.aueb.cf.teachersjaxapp.service.util.CorrelationId;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Binds the {@link CorrelationId} of every request and returns it in
+ * the 'X-Correlation-Id' header of the response. A client, or a proxy
+ * in front of the app, may send its own id in the same header; any
+ * other request gets a random one. The SQL traces of the request carry
+ * the id, so a slow response can be matched with its statements at
+ * '/api/admin/traces?correlationId='.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+public class CorrelationIdFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    public static final String CORRELATION_ID = "X-Correlation-Id";
+    private static final String ID_PROPERTY = CorrelationIdFilter.class.getName() + ".id";
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String id = requestContext.getHeaderString(CORRELATION_ID);
+        if (id == null || !VALID_ID.matcher(id).matches()) {
+            id = UUID.randomUUID().toString();
+        }
+        requestContext.setProperty(ID_PROPERTY, id);
+        CorrelationId.bind(id);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String id = (String) requestContext.getProperty(ID_PROPERTY);
+        if (id == null) return;
+
+        responseContext.getHeaders().putSingle(CORRELATION_ID, id);
+        if (id.equals(CorrelationId.current())) CorrelationId.bind(null);
+    }
+}
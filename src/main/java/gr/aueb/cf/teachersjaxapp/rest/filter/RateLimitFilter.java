@@ -0,0 +1,103 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import gr.aueb.cf.teachersjaxapp.rest.limit.RateLimiter;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects with 429 (Too Many Requests) the requests of a client
+ * or to a resource method beyond their rate limits (see {@link RateLimiter}).
+ * The client is identified by its address (see {@link ClientAddressFilter}).
+ * Only when the request comes from one of the 'limit.rate.trustedProxies',
+ * the client is identified by the 'limit.rate.clientHeader' header, e.g. an
+ * API key set by a gateway, or else by the last address of the X-Forwarded-For
+ * header that is not a trusted proxy; any client could set these headers itself.
+ * The 'Retry-After' header tells the client when the next token is due.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION)
+public class RateLimitFilter implements ContainerRequestFilter {
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    @Inject
+    private RateLimiter rateLimiter;
+    @Context
+    private ResourceInfo resourceInfo;
+
+    private final String clientHeader = ConfigUtil.getString("limit.rate.clientHeader", "X-Client-Id");
+    private final Set<String> trustedProxies = addresses(ConfigUtil.getString("limit.rate.trustedProxies", ""));
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Method method = resourceInfo.getResourceMethod();
+        if (!rateLimiter.isEnabled() || method == null) return;
+
+        long waitNanos = rateLimiter.tryTake(clientOf(requestContext),
+                method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .entity("Too Many Requests")
+                    .build());
+        }
+    }
+
+    private String clientOf(ContainerRequestContext requestContext) {
+        Object address = requestContext.getProperty(ClientAddressFilter.CLIENT_ADDRESS);
+        return clientOf((address == null) ? null : address.toString(),
+                requestContext.getHeaderString(clientHeader),
+                requestContext.getHeaderString(FORWARDED_FOR),
+                trustedProxies);
+    }
+
+    /**
+     * Identifies the client of a request.
+     *
+     * @param address        the address the request came from, or null.
+     * @param client         the value of the client header, or null.
+     * @param forwardedFor   the value of the X-Forwarded-For header, or null.
+     * @param trustedProxies the addresses of the proxies whose headers are trusted.
+     * @return the identity of the client.
+     */
+    static String clientOf(String address, String client, String forwardedFor, Set<String> trustedProxies) {
+        if (address == null) return "unknown";
+        if (!trustedProxies.contains(address)) return address;
+
+        if (client != null && !client.isBlank()) return client.trim();
+
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            // Each proxy appends the address it got the request from, so the client set the leftmost ones
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && (i == 0 || !trustedProxies.contains(hop))) return hop;
+            }
+        }
+        return address;
+    }
+
+    static Set<String> addresses(String value) {
+        Set<String> addresses = new HashSet<>();
+        for (String address : value.split(",")) {
+            if (!address.isBlank()) addresses.add(address.trim());
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,58 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Binds the {@link ReadConsistency} of every request. A client gets
+ * read-your-writes by sending the 'X-Read-Your-Writes' header, either
+ * as 'true' or with the value of the 'X-Last-Write' header of its last
+ * write; in the latter case its reads go to the primary until the
+ * replicas have had 'db.replicas.maxLagMillis' to catch up.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+public class ReadConsistencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    public static final String READ_YOUR_WRITES = "X-Read-Your-Writes";
+    public static final String LAST_WRITE = "X-Last-Write";
+    private static final String CONSISTENCY_PROPERTY = ReadConsistencyFilter.class.getName() + ".consistency";
+
+    private final long maxLagMillis = ConfigUtil.getLong("db.replicas.maxLagMillis", 5000);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        ReadConsistency consistency = new ReadConsistency(isPrimaryRequired(requestContext.getHeaderString(READ_YOUR_WRITES)));
+        requestContext.setProperty(CONSISTENCY_PROPERTY, consistency);
+        ReadConsistency.bind(consistency);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        ReadConsistency consistency = (ReadConsistency) requestContext.getProperty(CONSISTENCY_PROPERTY);
+        if (consistency == null) return;
+
+        if (consistency.getLastWriteMillis() != 0) {
+            responseContext.getHeaders().putSingle(LAST_WRITE, Long.toString(consistency.getLastWriteMillis()));
+        }
+        if (ReadConsistency.current() == consistency) ReadConsistency.bind(null);
+    }
+
+    private boolean isPrimaryRequired(String header) {
+        if (header == null || header.isBlank()) return false;
+        if (header.trim().equalsIgnoreCase("true")) return true;
+
+        try {
+            long lastWriteMillis = Long.parseLong(header.trim());
+            return System.currentTimeMillis() - lastWriteMillis < maxLagMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Limits the number of database-bound requests that run at the same
+ * time, with a limit that adapts to the latency of the requests (AIMD).
+ * The limit grows by one after a fast request that found the limiter
+ * at least half full, and it is cut by 'limit.concurrency.backoffRatio'
+ * after a request that was slower than 'limit.concurrency.latencyMillis'
+ * or that failed with 5xx, at most once per latency threshold. So the
+ * requests beyond what the database can serve are turned away at once,
+ * instead of waiting for a pooled connection until they time out.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class AdaptiveConcurrencyLimiter {
+    private final boolean enabled = ConfigUtil.getBoolean("limit.concurrency.enabled", true);
+    private final int minLimit = ConfigUtil.getInt("limit.concurrency.min", 4);
+    private final int maxLimit = ConfigUtil.getInt("limit.concurrency.max", 256);
+    private final long latencyNanos = TimeUnit.MILLISECONDS.toNanos(ConfigUtil.getLong("limit.concurrency.latencyMillis", 250));
+    private final double backoffRatio = Double.parseDouble(ConfigUtil.getString("limit.concurrency.backoffRatio", "0.9"));
+
+    private final AtomicLong limitBits = new AtomicLong(Double.doubleToLongBits(
+            ConfigUtil.getInt("limit.concurrency.initial", ConfigUtil.getInt("db.pool.maxTotal", 32))));
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime() - latencyNanos);
+
+    private final LongAdder rejected = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a slot for a request, if the limit allows it.
+     *
+     * @return the number of requests in flight, including this one,
+     * or 0 if the request must be rejected.
+     */
+    public int tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    /**
+     * Frees the slot of a completed request and adapts the limit.
+     *
+     * @param inFlightAtStart the value returned by {@link #tryAcquire()}.
+     * @param latencyNanos    the time the request took.
+     * @param failed          whether the request failed with a server error.
+     */
+    public void release(int inFlightAtStart, long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+
+        if (failed || latencyNanos > this.latencyNanos) {
+            backOff();
+        } else if (inFlightAtStart * 2 >= getLimit()) {
+            update(limit -> Math.min(maxLimit, limit + 1));
+        }
+    }
+
+    /**
+     * Frees the slot of a completed request whose latency says nothing
+     * about the load, e.g. a bulk request or a streamed body; only
+     * a server error cuts the limit, and the limit never grows.
+     *
+     * @param failed whether the request failed with a server error.
+     */
+    public void releaseUnmeasured(boolean failed) {
+        inFlight.decrementAndGet();
+
+        if (failed) backOff();
+    }
+
+    private void backOff() {
+        long now = System.nanoTime();
+        long last = lastDecreaseNanos.get();
+        // The requests that were slow at the same time count as one signal
+        if (now - last >= this.latencyNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+            update(limit -> Math.max(minLimit, limit * backoffRatio));
+        }
+    }
+
+    private void update(DoubleUnaryOperator function) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(function.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,24 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the resource methods that do database work, so that
+ * they run within the limit of the {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+
+    /**
+     * Whether the latency of the requests adapts the limit. The bulk
+     * methods, whose duration depends on the size of the request, hold
+     * a slot like the others, but only their server errors cut the limit.
+     */
+    boolean measured() default true;
+}
@@ -0,0 +1,101 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket rate limits per client and per resource method.
+ * A request must get a token from the bucket of its client and from
+ * the bucket of its resource method. The rate of a method can be set
+ * apart from the default, e.g. 'limit.rate.method.TeacherRestResource.addTeachers.perSecond'.
+ * Every 'limit.rate.client.cleanupMillis' a background thread drops the
+ * buckets of the clients that have been idle long enough to refill, since
+ * a full bucket is the same as a new one; the requests never scan the buckets.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class RateLimiter {
+    private final boolean enabled = ConfigUtil.getBoolean("limit.rate.enabled", true);
+    private final double clientRate = Double.parseDouble(ConfigUtil.getString("limit.rate.client.perSecond", "50"));
+    private final int clientBurst = ConfigUtil.getInt("limit.rate.client.burst", 100);
+    private final long cleanupMillis = ConfigUtil.getLong("limit.rate.client.cleanupMillis", 10_000);
+
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> methodBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::dropIdleClients, cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cleaner != null) cleaner.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a token for a request of a client to a resource method.
+     *
+     * @param client the identity of the client.
+     * @param method the name of the resource method, e.g. 'TeacherRestResource.getTeacher'.
+     * @return 0 if the request may proceed, otherwise the nanoseconds
+     * until the client may retry.
+     */
+    public long tryTake(String client, String method) {
+        long wait = clientBuckets.computeIfAbsent(client, key -> new TokenBucket(clientRate, clientBurst)).tryTake();
+        if (wait == 0) {
+            wait = methodBuckets.computeIfAbsent(method, RateLimiter::newMethodBucket).tryTake();
+        }
+
+        if (wait > 0) rejected.increment();
+        return wait;
+    }
+
+    /**
+     * Drops the buckets of the clients that have refilled them.
+     */
+    void dropIdleClients() {
+        clientBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private static TokenBucket newMethodBucket(String method) {
+        String prefix = "limit.rate.method." + method + ".";
+        return new TokenBucket(
+                Double.parseDouble(ConfigUtil.getString(prefix + "perSecond",
+                        ConfigUtil.getString("limit.rate.method.perSecond", "2000"))),
+                ConfigUtil.getInt(prefix + "burst", ConfigUtil.getInt("limit.rate.method.burst", 4000)));
+    }
+
+    public int getTrackedClients() {
+        return clientBuckets.size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
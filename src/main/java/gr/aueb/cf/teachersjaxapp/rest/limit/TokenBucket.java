@@ -0,0 +1,56 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket. The whole state is a single time, the
+ * moment when the bucket will be full again (the "theoretical arrival
+ * time" of the generic cell rate algorithm), updated with a CAS, so that
+ * taking a token costs no lock and no allocation.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param tokensPerSecond the rate at which the tokens are refilled.
+     * @param burst           the capacity of the bucket.
+     */
+    public TokenBucket(double tokensPerSecond, int burst) {
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.burstNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token, if there is one.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds
+     * until the next token is available.
+     */
+    public long tryTake() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+
+            long wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (fullAt.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * Returns whether the bucket has refilled completely, i.e. it has
+     * not been used for a while and can be dropped.
+     */
+    public boolean isFull() {
+        return System.nanoTime() - fullAt.get() >= 0;
+    }
+}
@@ -0,0 +1,119 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class that writes and reads the rows of the CSV
+ * (RFC 4180) representations of the teachers.
+ * A value with a comma, a quote or a line break
+ * is quoted, with its quotes doubled.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class Csv {
+    public static final String TEXT_CSV = "text/csv";
+
+    /**
+     * No instances of this class should be available.
+     */
+    private Csv() { }
+
+    /**
+     * Writes a row, ending with CRLF.
+     *
+     * @param writer the {@link Writer} of the representation.
+     * @param values the values of the row; null is written as an empty value.
+     * @throws IOException if the row cannot be written.
+     */
+    public static void writeRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writeValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeValue(Writer writer, String value) throws IOException {
+        if (value == null) return;
+
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Reads the next row. The rows end with CRLF or LF, and a quoted
+     * value may span lines. A row longer than the maximum is read to
+     * its end without keeping it, so the next row can still be read.
+     *
+     * @param reader    the {@link BufferedReader} of the representation.
+     * @param maxLength the maximum number of characters of a row.
+     * @return the values of the row, or null at the end of the input.
+     * @throws IOException              if the input cannot be read.
+     * @throws IllegalArgumentException if the row is longer than the maximum.
+     */
+    public static List<String> readRow(BufferedReader reader, int maxLength) throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        for (; c != -1; c = reader.read()) {
+            if (++length > maxLength) {
+                // Keep reading to the end of the row, without keeping it
+                values.clear();
+                value.setLength(0);
+            }
+
+            if (quoted) {
+                if (c != '"') {
+                    value.append((char) c);
+                } else if (peek(reader) == '"') {
+                    reader.read();
+                    value.append('"');
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek(reader) == '\n') reader.read();
+                break;
+            } else {
+                value.append((char) c);
+            }
+        }
+        if (length > maxLength) {
+            throw new IllegalArgumentException("Row longer than " + maxLength + " characters");
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+
+    private static int peek(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        int c = reader.read();
+        reader.reset();
+        return c;
+    }
+}
@@ -0,0 +1,42 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utility class that converts a {@link TeacherCursor}
+ * to the opaque, URL-safe string that is sent to the clients
+ * and back.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class CursorCodec {
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * No instances of this class should be available.
+     */
+    private CursorCodec() { }
+
+    public static String encode(TeacherCursor cursor) {
+        String raw = cursor.getId() + String.valueOf(SEPARATOR) + cursor.getLastname();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor sent by a client.
+     *
+     * @param value the opaque cursor.
+     * @return the decoded {@link TeacherCursor}.
+     * @throws IllegalArgumentException if the value is not a valid cursor.
+     */
+    public static TeacherCursor decode(String value) {
+        String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator < 0) throw new IllegalArgumentException("Invalid cursor");
+
+        return new TeacherCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+    }
+}
@@ -0,0 +1,148 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import gr.aueb.cf.teachersjaxapp.dto.TeacherReadOnlyDTO;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.rest.encoding.SmileProvider;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * Utility class that computes the strong entity tags (ETags)
+ * of the teacher representations and evaluates the
+ * If-None-Match / If-Match request headers against them.
+ * The tag is a 64-bit FNV-1a hash of the content of the
+ * teachers, so it changes whenever a teacher changes.
+ * A Smile representation has the tag with a "-smile" suffix,
+ * since its bytes differ from the JSON one; the tagged responses
+ * also carry a Vary: Accept header.
+ * A compressed representation has the tag with the content
+ * coding as a suffix, e.g. "1a2b-gzip"; the headers match
+ * both tags, since they carry the same teachers.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class EntityTags {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String SMILE_SUFFIX = "-smile";
+    private static final List<String> ENCODING_SUFFIXES = List.of("-gzip", "-deflate");
+
+    /**
+     * No instances of this class should be available.
+     */
+    private EntityTags() { }
+
+    public static EntityTag of(Teacher teacher) {
+        return new EntityTag(Long.toHexString(hash(FNV_OFFSET_BASIS, teacher)));
+    }
+
+    public static EntityTag of(List<Teacher> teachers) {
+        long hash = FNV_OFFSET_BASIS;
+        for (Teacher teacher : teachers) {
+            hash = hash(hash, teacher);
+        }
+        return new EntityTag(Long.toHexString(hash));
+    }
+
+    /**
+     * Returns the tag of a list of teachers that were mapped straight
+     * to DTOs; it is equal to the tag of the same list of {@link Teacher}s.
+     */
+    public static EntityTag ofDTOs(List<TeacherReadOnlyDTO> teachers) {
+        long hash = FNV_OFFSET_BASIS;
+        for (TeacherReadOnlyDTO teacher : teachers) {
+            hash = hash(hash, teacher.getId(), teacher.getFirstname(), teacher.getLastname());
+        }
+        return new EntityTag(Long.toHexString(hash));
+    }
+
+    /**
+     * Returns the tag of a representation in a negotiated media type.
+     *
+     * @param tag       the tag of the teachers, i.e. of their JSON representation.
+     * @param mediaType the media type of the representation.
+     * @return the tag with a "-smile" suffix for Smile, otherwise the tag itself.
+     */
+    public static EntityTag forMediaType(EntityTag tag, MediaType mediaType) {
+        if (!SmileProvider.APPLICATION_SMILE_TYPE.isCompatible(mediaType)) return tag;
+        return new EntityTag(tag.getValue() + SMILE_SUFFIX, tag.isWeak());
+    }
+
+    /**
+     * Returns the tag of a representation compressed with a content coding.
+     *
+     * @param tag      the tag of the uncompressed representation.
+     * @param encoding the content coding, e.g. 'gzip'.
+     * @return the tag with the coding as a suffix.
+     */
+    public static EntityTag encoded(EntityTag tag, String encoding) {
+        return new EntityTag(tag.getValue() + "-" + encoding, tag.isWeak());
+    }
+
+    /**
+     * Evaluates an If-None-Match header (weak comparison).
+     *
+     * @param header the value of the header, or null if it is missing.
+     * @param tag    the current tag of the resource.
+     * @return true if the client already has the current representation.
+     */
+    public static boolean matchesNoneMatch(String header, EntityTag tag) {
+        return header != null && matches(header, tag, false);
+    }
+
+    /**
+     * Evaluates an If-Match header (strong comparison).
+     *
+     * @param header the value of the header.
+     * @param tag    the current tag of the resource.
+     * @return true if the client's representation is the current one.
+     */
+    public static boolean matchesIfMatch(String header, EntityTag tag) {
+        return matches(header, tag, true);
+    }
+
+    private static boolean matches(String header, EntityTag tag, boolean strong) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) return true;
+
+            boolean weak = value.startsWith("W/");
+            if (weak) {
+                if (strong) continue;
+                value = value.substring(2);
+            }
+            if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) continue;
+            if (withoutEncoding(value.substring(1, value.length() - 1)).equals(tag.getValue())) return true;
+        }
+        return false;
+    }
+
+    private static String withoutEncoding(String value) {
+        for (String suffix : ENCODING_SUFFIXES) {
+            if (value.endsWith(suffix)) return value.substring(0, value.length() - suffix.length());
+        }
+        return value;
+    }
+
+    private static long hash(long hash, Teacher teacher) {
+        return hash(hash, teacher.getId(), teacher.getFirstname(), teacher.getLastname());
+    }
+
+    private static long hash(long hash, Long id, String firstname, String lastname) {
+        hash = hash(hash, String.valueOf(id));
+        hash = hash(hash, firstname);
+        return hash(hash, lastname);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Separator, so that ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xffff) * FNV_PRIME;
+    }
+}
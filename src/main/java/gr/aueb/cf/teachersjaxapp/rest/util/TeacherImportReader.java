@@ -0,0 +1,131 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads the teachers of an import file one record at a time, as
+ * the file is uploaded, so that the file is never held in memory.
+ * The file is either NDJSON (one JSON object per line) or CSV with
+ * a header row that names the 'firstname' and 'lastname' columns;
+ * other fields and columns, e.g. the ids of an export, are ignored.
+ * Blank lines are skipped.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherImportReader implements Closeable {
+    private static final ObjectReader JSON_READER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(TeacherInsertDTO.class);
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final int maxRecordLength;
+    private int columns;
+    private int firstnameColumn = -1;
+    private int lastnameColumn = -1;
+
+    /**
+     * Creates a reader and, for a CSV file, reads its header.
+     *
+     * @param input           the body of the request.
+     * @param csv             true for a CSV file, false for NDJSON.
+     * @param maxRecordLength the maximum number of characters of a record.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the CSV header is missing or lacks a column.
+     */
+    public TeacherImportReader(InputStream input, boolean csv, int maxRecordLength) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.csv = csv;
+        this.maxRecordLength = maxRecordLength;
+        if (csv) readHeader();
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = Csv.readRow(reader, maxRecordLength);
+        if (header == null) throw new IllegalArgumentException("The file has no header row");
+
+        columns = header.size();
+        for (int i = 0; i < columns; i++) {
+            String column = header.get(i).trim();
+            if ("firstname".equalsIgnoreCase(column)) firstnameColumn = i;
+            if ("lastname".equalsIgnoreCase(column)) lastnameColumn = i;
+        }
+        if (firstnameColumn < 0 || lastnameColumn < 0) {
+            throw new IllegalArgumentException("The header row must name the firstname and lastname columns");
+        }
+    }
+
+    /**
+     * Reads the next record. A malformed record has been read to
+     * its end when it is reported, so the next one can be read.
+     *
+     * @return the teacher of the record, or null at the end of the file.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the record is malformed.
+     */
+    public TeacherInsertDTO next() throws IOException {
+        if (csv) {
+            List<String> row;
+            do {
+                row = Csv.readRow(reader, maxRecordLength);
+                if (row == null) return null;
+            } while (row.size() == 1 && row.get(0).isBlank());
+
+            if (row.size() != columns) {
+                throw new IllegalArgumentException("Expected " + columns + " columns, found " + row.size());
+            }
+            return new TeacherInsertDTO(row.get(firstnameColumn), row.get(lastnameColumn));
+        }
+
+        String line;
+        do {
+            line = readLine();
+            if (line == null) return null;
+        } while (line.isBlank());
+
+        TeacherInsertDTO dto;
+        try {
+            dto = JSON_READER.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (dto == null) throw new IllegalArgumentException("Teacher must not be null");
+        return dto;
+    }
+
+    /**
+     * Reads a line of an NDJSON file; JSON strings cannot contain
+     * line breaks, so a line is always a whole record.
+     */
+    private String readLine() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        StringBuilder line = new StringBuilder();
+        int length = 0;
+        for (; c != -1 && c != '\n'; c = reader.read()) {
+            if (++length <= maxRecordLength && c != '\r') line.append((char) c);
+        }
+        if (length > maxRecordLength) {
+            throw new IllegalArgumentException("Record longer than " + maxRecordLength + " characters");
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,35 @@
+package gr.aueb.cf.teachersjaxapp.rest.validation;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the violations found when Jersey validates
+ * a {@link javax.validation.Valid} resource method parameter
+ * to a 400 (Bad Request) response with a JSON array
+ * of the violation messages.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+public class ConstraintViolationExceptionMapper implements ExceptionMapper<ConstraintViolationException> {
+
+    @Override
+    public Response toResponse(ConstraintViolationException exception) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<?> violation : exception.getConstraintViolations()) {
+            errors.add(violation.getMessage());
+        }
+
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(errors)
+                .build();
+    }
+}
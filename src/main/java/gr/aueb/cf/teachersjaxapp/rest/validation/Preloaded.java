@@ -0,0 +1,22 @@
+package gr.aueb.cf.teachersjaxapp.rest.validation;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Qualifies the {@link javax.validation.Validator} of the app, whose
+ * constraint metadata is loaded at startup, apart from the validator
+ * that jersey-bean-validation also offers for injection.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE})
+public @interface Preloaded {
+}
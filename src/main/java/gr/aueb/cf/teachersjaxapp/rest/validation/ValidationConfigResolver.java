@@ -0,0 +1,28 @@
+package gr.aueb.cf.teachersjaxapp.rest.validation;
+
+import org.glassfish.jersey.server.validation.ValidationConfig;
+
+import javax.inject.Inject;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Configures the validation of the resource methods by Jersey
+ * with the constraint validator factory of the application's
+ * {@link ValidatorProducer preloaded} validator. Jersey's own
+ * factory looks the validators up through the JAX-RS resource
+ * context, which is not injected when the beans are managed by CDI SE.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Provider
+public class ValidationConfigResolver implements ContextResolver<ValidationConfig> {
+    @Inject
+    private ValidatorProducer validatorProducer;
+
+    @Override
+    public ValidationConfig getContext(Class<?> type) {
+        return new ValidationConfig()
+                .constraintValidatorFactory(validatorProducer.getFactory().getConstraintValidatorFactory());
+    }
+}
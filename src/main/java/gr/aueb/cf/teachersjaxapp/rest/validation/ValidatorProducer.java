@@ -0,0 +1,78 @@
+package gr.aueb.cf.teachersjaxapp.rest.validation;
+
+import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+import gr.aueb.cf.teachersjaxapp.dto.TeacherUpdateDTO;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+
+/**
+ * CDI producer of the application's {@link Validator}.
+ * Bootstrapping the validation provider is expensive, so the
+ * factory is built once per application and the constraint
+ * metadata of the DTOs is warmed up when the application starts,
+ * instead of on the first request.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class ValidatorProducer {
+    private ValidatorFactory factory;
+    private Validator validator;
+
+    @PostConstruct
+    public void init() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+
+        // Resolves and caches the constraint metadata of the validated DTOs
+        validator.validate(new TeacherInsertDTO());
+        validator.validate(new TeacherUpdateDTO());
+    }
+
+    /**
+     * Produces the shared, thread-safe {@link Validator}, injectable
+     * as a {@link Preloaded} one.
+     *
+     * @return the application's {@link Validator}.
+     */
+    @Produces
+    @Singleton
+    @Preloaded
+    public Validator produceValidator() {
+        return validator;
+    }
+
+    /**
+     * Returns the factory of the validator, whose configuration
+     * Jersey shares when it validates the resource methods.
+     *
+     * @return the application's {@link ValidatorFactory}.
+     */
+    public ValidatorFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Creates this bean, and so warms up the validator,
+     * as soon as the application starts.
+     *
+     * @param init the event payload.
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        // Nothing else to do, the bean has been initialized
+    }
+
+    @PreDestroy
+    public void close() {
+        factory.close();
+    }
+}
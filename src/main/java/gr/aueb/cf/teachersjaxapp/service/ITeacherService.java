@@ -1,11 +1,18 @@
 package gr.aueb.cf.teachersjaxapp.service;
 
+import gr.aueb.cf.teachersjaxapp.dao.TeacherCursor;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherMapper;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherRowCallback;
 import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherUpdateDTO;
 import gr.aueb.cf.teachersjaxapp.model.Teacher;
 import gr.aueb.cf.teachersjaxapp.service.exceptions.TeacherNotFoundException;
+import gr.aueb.cf.teachersjaxapp.service.ingest.IngestTicket;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherImport;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,8 +24,24 @@ import java.util.List;
  */
 public interface ITeacherService {
     Teacher insertTeacher(TeacherInsertDTO dto) throws TeacherDAOException;
+    IngestTicket insertTeacherAsync(TeacherInsertDTO dto);
+    IngestTicket getIngestTicket(String ticketId);
+    List<Teacher> insertTeachers(List<TeacherInsertDTO> dtos) throws TeacherDAOException;
+    TeacherImport startImport();
+    TeacherImport getImport(String importId);
     Teacher updateTeacher(TeacherUpdateDTO dto) throws TeacherDAOException, TeacherNotFoundException;
-    void deleteTeacher(long id) throws TeacherDAOException, TeacherNotFoundException;
+    Teacher updateTeacher(TeacherUpdateDTO dto, Teacher expected) throws TeacherDAOException, TeacherNotFoundException;
+    List<Teacher> updateTeachers(List<TeacherUpdateDTO> dtos) throws TeacherDAOException;
+    Teacher deleteTeacher(long id) throws TeacherDAOException, TeacherNotFoundException;
+    List<Teacher> deleteTeachers(Collection<Long> ids) throws TeacherDAOException;
     List<Teacher> getTeachersByLastname(String lastname) throws TeacherDAOException;
+    <T> List<T> getTeachersByLastname(String lastname, TeacherMapper<T> mapper) throws TeacherDAOException;
+    List<Teacher> getTeachersByLastname(String lastname, TeacherCursor after, int limit) throws TeacherDAOException;
+    <T> List<T> getTeachersByLastname(String lastname, TeacherCursor after, int limit, TeacherMapper<T> mapper)
+            throws TeacherDAOException;
+    void streamTeachersByLastname(String lastname, TeacherRowCallback callback) throws TeacherDAOException, IOException;
+    void exportTeachers(TeacherRowCallback callback) throws TeacherDAOException, IOException;
     Teacher getTeacherById(long id) throws TeacherDAOException;
+    List<Teacher> getTeachersByIds(Collection<Long> ids) throws TeacherDAOException;
+    List<Teacher> searchTeachers(String query, int limit) throws TeacherDAOException;
 }
@@ -2,33 +2,74 @@ package gr.aueb.cf.teachersjaxapp.service;
 
 
 import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherCursor;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherMapper;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherRowCallback;
 import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
 import gr.aueb.cf.teachersjaxapp.dto.TeacherUpdateDTO;
 import gr.aueb.cf.teachersjaxapp.model.Teacher;
 import gr.aueb.cf.teachersjaxapp.service.exceptions.TeacherNotFoundException;
+import gr.aueb.cf.teachersjaxapp.service.ingest.IngestTicket;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherImport;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherImportRegistry;
+import gr.aueb.cf.teachersjaxapp.service.ingest.TeacherIngestBuffer;
+import gr.aueb.cf.teachersjaxapp.service.loader.TeacherBatchLoader;
+import gr.aueb.cf.teachersjaxapp.service.search.TeacherSearchIndex;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.ext.Provider;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This interface implements the Public API
  * of the {@link ITeacherService} interface, for
  * the Service Layer of this application.
  * It implements services for CRUD operations in
- * {@link Teacher} objects.
+ * {@link Teacher} objects. The failures are logged at FINE,
+ * since the DAO has already logged the SQL errors and a missing
+ * teacher is an expected outcome.
  *
  * @author Thanasis Chousiadas
  */
 @Provider
 @ApplicationScoped
 public class TeacherServiceImpl implements ITeacherService {
+    private static final Logger LOGGER = Logger.getLogger(TeacherServiceImpl.class.getName());
 
     @Inject
     private ITeacherDAO teacherDAO;
+    @Inject
+    private TeacherSearchIndex searchIndex;
+    @Inject
+    private TeacherBatchLoader batchLoader;
+    @Inject
+    private TeacherIngestBuffer ingestBuffer;
+    @Inject
+    private TeacherImportRegistry importRegistry;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherServiceImpl() { }
+
+    /**
+     * Creates a service outside of a CDI container,
+     * e.g. for benchmarks.
+     *
+     * @param teacherDAO the {@link ITeacherDAO} of the service.
+     */
+    public TeacherServiceImpl(ITeacherDAO teacherDAO) {
+        this.teacherDAO = teacherDAO;
+    }
 
     /**
      * This method inserts a new teacher in the database.
@@ -48,13 +89,88 @@ public class TeacherServiceImpl implements ITeacherService {
 
             return teacherDAO.insert(teacher);
         } catch (TeacherDAOException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, e.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * This method queues a new teacher to be inserted in the database
+     * in the background, together with other queued teachers.
+     *
+     * @param dto the Data Transfer Object with the data for insert the record.
+     * @return the {@link IngestTicket} that reports the outcome of the insert.
+     * @throws RejectedExecutionException if the queue of the inserts is full.
+     */
+    @Override
+    public IngestTicket insertTeacherAsync(TeacherInsertDTO dto) {
+        if (dto == null) return null;
+        return ingestBuffer.submit(map(dto));
+    }
+
+    /**
+     * This method returns the ticket of an asynchronous insert.
+     *
+     * @param ticketId the id of the ticket.
+     * @return the {@link IngestTicket}, or null if it is unknown.
+     */
+    @Override
+    public IngestTicket getIngestTicket(String ticketId) {
+        return ingestBuffer.getTicket(ticketId);
+    }
+
+    /**
+     * This method inserts many new teachers in the database
+     * in one transaction.
+     *
+     * @param dtos the Data Transfer Objects with the data for insert the records.
+     * @return the inserted {@link Teacher} entities, in the same order as the dtos.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> insertTeachers(List<TeacherInsertDTO> dtos) throws TeacherDAOException {
+        if (dtos == null || dtos.isEmpty()) return new ArrayList<>();
+        List<Teacher> teachers = new ArrayList<>(dtos.size());
+        try {
+            for (TeacherInsertDTO dto : dtos) {
+                teachers.add(map(dto));
+            }
+
+            return teacherDAO.insertAll(teachers);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method registers a bulk import of teachers, whose
+     * records are then inserted with {@link #insertTeachers(List)}.
+     *
+     * @return the {@link TeacherImport} that reports the progress of the import.
+     */
+    @Override
+    public TeacherImport startImport() {
+        return importRegistry.start();
+    }
+
+    /**
+     * This method returns the progress of a bulk import.
+     *
+     * @param importId the id of the import.
+     * @return the {@link TeacherImport}, or null if it is unknown.
+     */
+    @Override
+    public TeacherImport getImport(String importId) {
+        return importRegistry.get(importId);
+    }
+
     /**
      * This method updates an old teacher record with a new one.
+     * A missing teacher is detected by the update itself, so
+     * it costs a single statement.
      *
      * @param dto the Data Transfer Object with the data for update the record.
      * @return the updated {@link Teacher} object.
@@ -66,27 +182,78 @@ public class TeacherServiceImpl implements ITeacherService {
      */
     @Override
     public Teacher updateTeacher(TeacherUpdateDTO dto) throws TeacherDAOException, TeacherNotFoundException {
+        return updateTeacher(dto, null);
+    }
+
+    /**
+     * This method updates an old teacher record with a new one,
+     * only if the record has not changed since the client read
+     * the expected teacher (optimistic concurrency).
+     *
+     * @param dto      the Data Transfer Object with the data for update the record.
+     * @param expected the teacher as the client read it, or null
+     *                 for an unconditional update.
+     * @return the updated {@link Teacher} object.
+     * @throws TeacherDAOException      wrapper exception to {@link SQLException}
+     *                                  that is thrown if an error is occurred
+     *                                  during database operations.
+     * @throws TeacherNotFoundException is thrown if the teacher is not found
+     *                                  or has been changed in the meantime.
+     */
+    @Override
+    public Teacher updateTeacher(TeacherUpdateDTO dto, Teacher expected)
+            throws TeacherDAOException, TeacherNotFoundException {
         if (dto == null) return null;
         Teacher teacher;
         try {
             teacher = map(dto);
 
-            if (teacherDAO.getById(teacher.getId()) == null) {
+            Teacher updatedTeacher = teacherDAO.update(teacher, expected);
+            if (updatedTeacher == null) {
                 throw new TeacherNotFoundException(teacher);
             }
 
-            return teacherDAO.update(teacher);
+            return updatedTeacher;
         } catch (TeacherDAOException | TeacherNotFoundException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method updates many teacher records in one transaction,
+     * with batched statements instead of one request per teacher.
+     *
+     * @param dtos the Data Transfer Objects with the data for update the records.
+     * @return the updated {@link Teacher} objects, in the order of the dtos;
+     * teachers that are not found are skipped.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> updateTeachers(List<TeacherUpdateDTO> dtos) throws TeacherDAOException {
+        if (dtos == null || dtos.isEmpty()) return new ArrayList<>();
+        List<Teacher> teachers = new ArrayList<>(dtos.size());
+        try {
+            for (TeacherUpdateDTO dto : dtos) {
+                teachers.add(map(dto));
+            }
+
+            return teacherDAO.updateAll(teachers);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
             throw e;
         }
     }
 
     /**
      * This method deletes a teacher with an id given
-     * by the user.
+     * by the user, reading and deleting the record in
+     * one transaction.
      *
      * @param id the id given by the user.
+     * @return the deleted {@link Teacher} object.
      * @throws TeacherDAOException      is thrown if the teacher with an id to be updated
      *                                  in the database is not found.
      * @throws TeacherNotFoundException wrapper exception to {@link SQLException}
@@ -94,19 +261,42 @@ public class TeacherServiceImpl implements ITeacherService {
      *                                  during database operations.
      */
     @Override
-    public void deleteTeacher(long id) throws TeacherDAOException, TeacherNotFoundException {
+    public Teacher deleteTeacher(long id) throws TeacherDAOException, TeacherNotFoundException {
         Teacher teacher;
 
         try {
-            teacher = teacherDAO.getById(id);
+            teacher = teacherDAO.delete(id);
 
             if (teacher == null) {
                 throw new TeacherNotFoundException("Delete Error: Teacher with id: " + id + " was not found");
             }
 
-            teacherDAO.delete(id);
+            return teacher;
         } catch (TeacherDAOException | TeacherNotFoundException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method deletes the teachers with the ids given
+     * by the user in one transaction.
+     *
+     * @param ids the ids given by the user.
+     * @return the deleted {@link Teacher} objects, ordered by id;
+     * ids with no teacher are skipped.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> deleteTeachers(Collection<Long> ids) throws TeacherDAOException {
+        if (ids == null || ids.isEmpty()) return new ArrayList<>();
+
+        try {
+            return teacherDAO.deleteAll(ids);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
             throw e;
         }
     }
@@ -129,13 +319,131 @@ public class TeacherServiceImpl implements ITeacherService {
             teachers = teacherDAO.getByLastname(lastname);
             return teachers;
         } catch (TeacherDAOException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns the teachers where their lastname
+     * begins with the parameter given by the client, each one
+     * mapped by the given mapper, e.g. straight to a DTO.
+     *
+     * @param lastname the parameter for searching the teachers' lastname.
+     * @param mapper   the {@link TeacherMapper} of the teachers.
+     * @param <T>      the type of the mapped teachers.
+     * @return an {@link java.util.ArrayList} with the mapped teachers.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public <T> List<T> getTeachersByLastname(String lastname, TeacherMapper<T> mapper) throws TeacherDAOException {
+        try {
+            return teacherDAO.getByLastname(lastname, mapper);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns one page of the teachers where their lastname
+     * begins with the parameter given by the client.
+     *
+     * @param lastname the parameter for searching the teachers' lastname.
+     * @param after    the cursor of the last teacher of the previous page,
+     *                 or null for the first page.
+     * @param limit    the maximum number of teachers returned.
+     * @return an {@link java.util.ArrayList} with {@link Teacher} objects.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> getTeachersByLastname(String lastname, TeacherCursor after, int limit)
+            throws TeacherDAOException {
+        try {
+            return teacherDAO.getByLastname(lastname, after, limit);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns one page of the teachers where their lastname
+     * begins with the parameter given by the client, each one mapped
+     * by the given mapper, e.g. straight to a DTO.
+     *
+     * @param lastname the parameter for searching the teachers' lastname.
+     * @param after    the cursor of the last teacher of the previous page,
+     *                 or null for the first page.
+     * @param limit    the maximum number of teachers returned.
+     * @param mapper   the {@link TeacherMapper} of the teachers.
+     * @param <T>      the type of the mapped teachers.
+     * @return an {@link java.util.ArrayList} with the mapped teachers.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public <T> List<T> getTeachersByLastname(String lastname, TeacherCursor after, int limit,
+                                             TeacherMapper<T> mapper) throws TeacherDAOException {
+        try {
+            return teacherDAO.getByLastname(lastname, after, limit, mapper);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method passes to the callback, one at a time, the teachers
+     * where their lastname begins with the parameter given by the client.
+     *
+     * @param lastname the parameter for searching the teachers' lastname.
+     * @param callback the {@link TeacherRowCallback} that receives every teacher.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     * @throws IOException         if the callback fails to write a teacher.
+     */
+    @Override
+    public void streamTeachersByLastname(String lastname, TeacherRowCallback callback)
+            throws TeacherDAOException, IOException {
+        try {
+            teacherDAO.streamByLastname(lastname, callback);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method passes to the callback, one at a time, all
+     * the teachers ordered by id, e.g. for a full export.
+     *
+     * @param callback the {@link TeacherRowCallback} that receives every teacher.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     * @throws IOException         if the callback fails to write a teacher.
+     */
+    @Override
+    public void exportTeachers(TeacherRowCallback callback) throws TeacherDAOException, IOException {
+        try {
+            teacherDAO.streamAll(callback);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
             throw e;
         }
     }
 
     /**
      * This method returns a teacher with a certain id (primary key).
+     * Concurrent lookups are read together by the {@link TeacherBatchLoader},
+     * with one query instead of one query per id.
      *
      * @param id the id of the student.
      * @return a {@link Teacher} object.
@@ -148,10 +456,61 @@ public class TeacherServiceImpl implements ITeacherService {
         Teacher teacher;
 
         try {
-            teacher = teacherDAO.getById(id);
+            teacher = (batchLoader != null) ? batchLoader.load(id) : teacherDAO.getById(id);
             return teacher;
         } catch (TeacherDAOException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns the teachers with the given ids (primary keys)
+     * with one query, instead of one query per id.
+     *
+     * @param ids the ids of the teachers.
+     * @return a {@link List} with the found {@link Teacher} objects, in the
+     * order of the ids; ids with no teacher are skipped.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> getTeachersByIds(Collection<Long> ids) throws TeacherDAOException {
+        if (ids == null || ids.isEmpty()) return new ArrayList<>();
+
+        try {
+            return (batchLoader != null) ? batchLoader.loadAll(ids) : teacherDAO.getByIds(ids);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * This method returns the teachers whose firstname or lastname
+     * begin with the terms of the query, best matches first.
+     * The query is answered by the in-memory {@link TeacherSearchIndex};
+     * until the index is built, it falls back to a lastname
+     * prefix search in the database.
+     *
+     * @param query the terms given by the client.
+     * @param limit the maximum number of teachers returned.
+     * @return a {@link List} with the matching {@link Teacher} objects.
+     * @throws TeacherDAOException wrapper exception to {@link SQLException}
+     *                             that is thrown if an error is occurred
+     *                             during database operations.
+     */
+    @Override
+    public List<Teacher> searchTeachers(String query, int limit) throws TeacherDAOException {
+        if (searchIndex != null && searchIndex.isReady()) {
+            return searchIndex.search(query, limit);
+        }
+
+        try {
+            return teacherDAO.getByLastname(query.trim(), null, limit);
+        } catch (TeacherDAOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
             throw e;
         }
     }
@@ -0,0 +1,52 @@
+package gr.aueb.cf.teachersjaxapp.service.ingest;
+
+/**
+ * The outcome of a teacher submitted for asynchronous insert.
+ * It is updated by the writer of the {@link TeacherIngestBuffer}
+ * and read by the status requests of the client.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class IngestTicket {
+
+    public enum Status {
+        QUEUED,
+        INSERTED,
+        FAILED
+    }
+
+    private final String id;
+    private volatile Status status = Status.QUEUED;
+    private volatile Long teacherId;
+    private volatile String error;
+
+    public IngestTicket(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getTeacherId() {
+        return teacherId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void inserted(long teacherId) {
+        this.teacherId = teacherId;
+        this.status = Status.INSERTED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+}
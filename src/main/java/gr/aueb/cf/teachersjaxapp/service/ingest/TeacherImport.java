@@ -0,0 +1,113 @@
+package gr.aueb.cf.teachersjaxapp.service.ingest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of a bulk import of teachers: the records read so far,
+ * how many of them were inserted and how many were rejected, with the
+ * errors of the first 'import.maxReportedErrors' rejected records.
+ * It is updated by the request that uploads the file and read by the
+ * progress requests of the client, while the import runs.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TeacherImport {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final int maxReportedErrors;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Map<Integer, List<String>> errors = new LinkedHashMap<>();
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+
+    public TeacherImport(String id, int maxReportedErrors) {
+        this.id = id;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRecords() {
+        return records.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the errors of the reported rejected records.
+     *
+     * @return the errors, keyed by the index of the record in the file.
+     */
+    public Map<Integer, List<String>> getErrors() {
+        synchronized (errors) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+        }
+    }
+
+    /**
+     * Counts a record read from the file, valid or not.
+     */
+    public void read() {
+        records.incrementAndGet();
+    }
+
+    /**
+     * Counts records inserted in the database.
+     *
+     * @param count the number of the records.
+     */
+    public void inserted(int count) {
+        inserted.addAndGet(count);
+    }
+
+    /**
+     * Counts a rejected record.
+     *
+     * @param index  the index of the record in the file, starting from 0.
+     * @param reason the errors of the record.
+     */
+    public void rejected(int index, List<String> reason) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) errors.put(index, new ArrayList<>(reason));
+        }
+    }
+
+    public void completed() {
+        status = Status.COMPLETED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,55 @@
+package gr.aueb.cf.teachersjaxapp.service.ingest;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link TeacherImport}s of the running and of the
+ * last 'import.retained' finished imports, so that their progress
+ * can be read while the file is still being uploaded.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherImportRegistry {
+    private final int maxReportedErrors = ConfigUtil.getInt("import.maxReportedErrors", 100);
+    private final int retained = ConfigUtil.getInt("import.retained", 100);
+
+    private final Map<String, TeacherImport> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TeacherImport> eldest) {
+            return size() > retained;
+        }
+    };
+
+    /**
+     * Registers a new import under an id generated here, so
+     * that a client can not read or replace the import of another.
+     *
+     * @return the {@link TeacherImport} of the import.
+     */
+    public TeacherImport start() {
+        TeacherImport teacherImport = new TeacherImport(UUID.randomUUID().toString(), maxReportedErrors);
+        synchronized (imports) {
+            imports.put(teacherImport.getId(), teacherImport);
+        }
+        return teacherImport;
+    }
+
+    /**
+     * Returns the import with the given id.
+     *
+     * @param id the id of the import.
+     * @return the {@link TeacherImport}, or null if it is unknown
+     * or no longer retained.
+     */
+    public TeacherImport get(String id) {
+        synchronized (imports) {
+            return imports.get(id);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package gr.aueb.cf.teachersjaxapp.service.ingest;
+
+import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherBatchException;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer for the asynchronous inserts of teachers.
+ * The submitted teachers wait in a bounded queue and a background
+ * writer inserts them in JDBC batches, either when a batch is full
+ * or when the oldest teacher of the batch has waited 'ingest.flushMillis'.
+ * When the queue is full the submit is rejected, so that the client
+ * slows down instead of the buffer growing without bound.
+ * The outcome of every insert is kept in an {@link IngestTicket}.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherIngestBuffer {
+    private static final Logger LOGGER = Logger.getLogger(TeacherIngestBuffer.class.getName());
+
+    @Inject
+    private ITeacherDAO teacherDAO;
+
+    private final int batchSize;
+    private final long flushNanos;
+    private final int ticketsRetained = ConfigUtil.getInt("ingest.ticketsRetained", 100_000);
+    private final BlockingQueue<Pending> queue;
+
+    private final Map<String, IngestTicket> tickets = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IngestTicket> eldest) {
+            return size() > ticketsRetained;
+        }
+    };
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherIngestBuffer() {
+        this(null, ConfigUtil.getInt("ingest.batchSize", 500), ConfigUtil.getLong("ingest.flushMillis", 50),
+                ConfigUtil.getInt("ingest.queueCapacity", 10_000));
+    }
+
+    /**
+     * Creates a buffer outside of a CDI container, e.g. for tests.
+     * The writer starts with {@link #start()}.
+     *
+     * @param teacherDAO    the {@link ITeacherDAO} the teachers are inserted with.
+     * @param batchSize     the most teachers inserted in one batch.
+     * @param flushMillis   how long the oldest teacher of a batch waits for a full batch.
+     * @param queueCapacity the most teachers waiting to be inserted.
+     */
+    public TeacherIngestBuffer(ITeacherDAO teacherDAO, int batchSize, long flushMillis, int queueCapacity) {
+        this.teacherDAO = teacherDAO;
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "teacher-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer after it has inserted the queued teachers.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a teacher to be inserted by the background writer.
+     *
+     * @param teacher the {@link Teacher} to be inserted.
+     * @return the {@link IngestTicket} of the insert.
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    public IngestTicket submit(Teacher teacher) {
+        IngestTicket ticket = new IngestTicket(UUID.randomUUID().toString());
+        if (!running || !queue.offer(new Pending(teacher, ticket))) {
+            rejected.increment();
+            throw new RejectedExecutionException("Ingest queue is full");
+        }
+
+        synchronized (tickets) {
+            tickets.put(ticket.getId(), ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * Returns the ticket with the given id.
+     *
+     * @param ticketId the id of the ticket.
+     * @return the {@link IngestTicket}, or null if it is unknown
+     * or too old to be retained.
+     */
+    public IngestTicket getTicket(String ticketId) {
+        synchronized (tickets) {
+            return tickets.get(ticketId);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) break;
+
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not insert a batch of teachers", e);
+                fail(batch, "Internal Service Error");
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch in one transaction. If some rows are rejected
+     * by the database the whole batch is rolled back, so the rejected
+     * rows are failed and the rest are written again.
+     */
+    private void write(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+
+        List<Teacher> teachers = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            teachers.add(pending.teacher);
+        }
+
+        try {
+            List<Teacher> insertedTeachers = teacherDAO.insertAll(teachers);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).ticket.inserted(insertedTeachers.get(i).getId());
+            }
+            inserted.add(batch.size());
+        } catch (TeacherBatchException e) {
+            Map<Integer, String> rowErrors = e.getRowErrors();
+            if (rowErrors.isEmpty()) {
+                fail(batch, e.getMessage());
+                return;
+            }
+
+            List<Pending> rest = new ArrayList<>(batch.size() - rowErrors.size());
+            for (int i = 0; i < batch.size(); i++) {
+                String error = rowErrors.get(i);
+                if (error != null) {
+                    fail(List.of(batch.get(i)), error);
+                } else {
+                    rest.add(batch.get(i));
+                }
+            }
+            write(rest);
+        } catch (TeacherDAOException e) {
+            fail(batch, e.getMessage());
+        }
+    }
+
+    private void fail(List<Pending> batch, String error) {
+        for (Pending pending : batch) {
+            pending.ticket.failed(error);
+        }
+        failed.add(batch.size());
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getInserted() {
+        return inserted.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private static final class Pending {
+        private final Teacher teacher;
+        private final IngestTicket ticket;
+
+        private Pending(Teacher teacher, IngestTicket ticket) {
+            this.teacher = teacher;
+            this.ticket = ticket;
+        }
+    }
+}
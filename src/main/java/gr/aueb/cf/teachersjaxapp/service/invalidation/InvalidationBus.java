@@ -0,0 +1,34 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries the {@link InvalidationMessage}s between the nodes of the app,
+ * so that every node can evict what the others have changed. The delivery
+ * is best effort; lost messages are detected from the gaps in the sequence
+ * numbers of the messages.
+ *
+ * @author Thanasis Chousiadas
+ */
+public interface InvalidationBus {
+
+    /**
+     * Sends a message to all the nodes, including the sender.
+     *
+     * @param message the {@link InvalidationMessage} to be sent.
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * Registers a listener of the received messages. The listener
+     * must return quickly, since it may run on the receiving thread.
+     *
+     * @param listener the listener of the messages.
+     */
+    void subscribe(Consumer<InvalidationMessage> listener);
+
+    /**
+     * Stops the delivery of the messages and releases the resources of the bus.
+     */
+    void close();
+}
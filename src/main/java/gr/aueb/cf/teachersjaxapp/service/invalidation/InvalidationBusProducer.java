@@ -0,0 +1,41 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+/**
+ * CDI producer of the application's {@link InvalidationBus},
+ * selected by 'cache.invalidation.transport': 'multicast' for
+ * several nodes, or 'local' for a single node.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class InvalidationBusProducer {
+
+    /**
+     * Produces the bus of the application.
+     *
+     * @return the {@link InvalidationBus}.
+     */
+    @Produces
+    @Singleton
+    public InvalidationBus produceInvalidationBus() {
+        String transport = ConfigUtil.getString("cache.invalidation.transport", "local");
+        if ("multicast".equals(transport)) {
+            return new MulticastInvalidationBus(
+                    ConfigUtil.getString("cache.invalidation.multicast.group", "239.255.42.99"),
+                    ConfigUtil.getInt("cache.invalidation.multicast.port", 45588),
+                    ConfigUtil.getInt("cache.invalidation.multicast.ttl", 1));
+        }
+        return new LocalInvalidationBus();
+    }
+
+    public void closeInvalidationBus(@Disposes InvalidationBus bus) {
+        bus.close();
+    }
+}
@@ -0,0 +1,114 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * A message of the {@link InvalidationBus}: a teacher that has been
+ * changed on a node, or a heartbeat of a node. Every node numbers its
+ * messages, so that the receivers can tell when they have lost some.
+ * A heartbeat carries the number of the last message of its node.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class InvalidationMessage {
+    private static final byte VERSION = 1;
+    private static final byte HEARTBEAT = -1;
+
+    public static final int SIZE = 1 + 16 + 8 + 1 + 8;
+
+    private final UUID nodeId;
+    private final long sequence;
+    private final TeacherChangedEvent.Type type;
+    private final long teacherId;
+
+    public InvalidationMessage(UUID nodeId, long sequence, TeacherChangedEvent.Type type, long teacherId) {
+        this.nodeId = nodeId;
+        this.sequence = sequence;
+        this.type = type;
+        this.teacherId = teacherId;
+    }
+
+    public static InvalidationMessage heartbeat(UUID nodeId, long sequence) {
+        return new InvalidationMessage(nodeId, sequence, null, 0);
+    }
+
+    public UUID getNodeId() {
+        return nodeId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the type of the change, or null for a heartbeat.
+     */
+    public TeacherChangedEvent.Type getType() {
+        return type;
+    }
+
+    public long getTeacherId() {
+        return teacherId;
+    }
+
+    public boolean isHeartbeat() {
+        return type == null;
+    }
+
+    /**
+     * Encodes the message in {@link #SIZE} bytes.
+     *
+     * @return the bytes of the message.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.put(VERSION);
+        buffer.putLong(nodeId.getMostSignificantBits());
+        buffer.putLong(nodeId.getLeastSignificantBits());
+        buffer.putLong(sequence);
+        buffer.put(type == null ? HEARTBEAT : (byte) type.ordinal());
+        buffer.putLong(teacherId);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a message encoded by {@link #toBytes()}.
+     *
+     * @param bytes  the buffer with the message.
+     * @param offset the offset of the message in the buffer.
+     * @param length the length of the message.
+     * @return the {@link InvalidationMessage}.
+     * @throws IllegalArgumentException if the bytes are not a message
+     * of this version.
+     */
+    public static InvalidationMessage fromBytes(byte[] bytes, int offset, int length) {
+        if (length != SIZE || bytes[offset] != VERSION) {
+            throw new IllegalArgumentException("Not an invalidation message");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset + 1, length - 1);
+        UUID nodeId = new UUID(buffer.getLong(), buffer.getLong());
+        long sequence = buffer.getLong();
+        byte type = buffer.get();
+        long teacherId = buffer.getLong();
+
+        if (type == HEARTBEAT) return heartbeat(nodeId, sequence);
+
+        TeacherChangedEvent.Type[] types = TeacherChangedEvent.Type.values();
+        if (type < 0 || type >= types.length) throw new IllegalArgumentException("Unknown change type " + type);
+        return new InvalidationMessage(nodeId, sequence, types[type], teacherId);
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationMessage{" +
+                "nodeId=" + nodeId +
+                ", sequence=" + sequence +
+                ", type=" + type +
+                ", teacherId=" + teacherId +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link InvalidationBus} within a single JVM. All the local
+ * buses of the JVM form one channel, so two app instances started
+ * in the same JVM (e.g. by a test) see each other's messages.
+ * With a single instance the messages only reach the sender,
+ * which is the right thing for a single node.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+    private static final Logger LOGGER = Logger.getLogger(LocalInvalidationBus.class.getName());
+    private static final List<Consumer<InvalidationMessage>> CHANNEL = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for (Consumer<InvalidationMessage> listener : CHANNEL) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "An invalidation listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+        CHANNEL.add(listener);
+    }
+
+    @Override
+    public void close() {
+        CHANNEL.removeAll(listeners);
+        listeners.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link InvalidationBus} over UDP multicast. Every message is
+ * one small datagram sent to the group, so a write costs one
+ * non-blocking send regardless of the number of nodes. A daemon
+ * thread receives the datagrams of the group and passes them to
+ * the listeners.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class MulticastInvalidationBus implements InvalidationBus {
+    private static final Logger LOGGER = Logger.getLogger(MulticastInvalidationBus.class.getName());
+
+    private final InetAddress group;
+    private final int port;
+    private final MulticastSocket socket;
+    private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+    private volatile boolean running = true;
+
+    /**
+     * Joins the multicast group and starts receiving.
+     *
+     * @param group the address of the multicast group, e.g. 239.255.42.99.
+     * @param port  the UDP port of the group.
+     * @param ttl   the time-to-live of the sent datagrams; 1 keeps them in the local network.
+     * @throws UncheckedIOException if the group cannot be joined.
+     */
+    @SuppressWarnings("deprecation")
+    public MulticastInvalidationBus(String group, int port, int ttl) {
+        try {
+            this.group = InetAddress.getByName(group);
+            this.port = port;
+            this.socket = new MulticastSocket(port);
+            socket.setTimeToLive(ttl);
+            socket.joinGroup(this.group);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot join the invalidation group " + group + ":" + port, e);
+        }
+
+        receiver = new Thread(this::receive, "invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        byte[] bytes = message.toBytes();
+        try {
+            socket.send(new DatagramPacket(bytes, bytes.length, group, port));
+        } catch (IOException e) {
+            // The receivers detect the lost message from the sequence numbers
+            LOGGER.log(Level.WARNING, "Could not send an invalidation message", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[InvalidationMessage.SIZE + 1];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+
+        while (running) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+
+                InvalidationMessage message = InvalidationMessage.fromBytes(packet.getData(), packet.getOffset(), packet.getLength());
+                for (Consumer<InvalidationMessage> listener : listeners) {
+                    listener.accept(message);
+                }
+            } catch (SocketException e) {
+                if (running) LOGGER.log(Level.WARNING, "Could not receive an invalidation message", e);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not handle an invalidation message", e);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void close() {
+        running = false;
+        try {
+            socket.leaveGroup(group);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not leave the invalidation group", e);
+        }
+        socket.close();
+    }
+}
@@ -0,0 +1,240 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.search.TeacherSearchIndex;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the teacher cache and the search index of this node in step
+ * with the writes of the other nodes. Every write of this node is
+ * published on the {@link InvalidationBus}; every write of another
+ * node evicts the teacher from the cache at once, and a background
+ * thread then reads the changed teachers from the primary database,
+ * in batches, to update the search index.
+ * <p>
+ * When messages of a node are lost, which the next message or
+ * heartbeat of that node reveals, the whole cache is cleared and the
+ * index is rebuilt. A node thus sees the writes of the others within
+ * a heartbeat ('cache.invalidation.heartbeatMillis') even when the
+ * network drops messages.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherInvalidationRelay {
+    private static final Logger LOGGER = Logger.getLogger(TeacherInvalidationRelay.class.getName());
+
+    @Inject
+    private InvalidationBus bus;
+    @Inject
+    private TeacherCache cache;
+    @Inject
+    private TeacherSearchIndex searchIndex;
+    @Inject
+    private ITeacherDAO teacherDAO;
+
+    private final long heartbeatMillis = ConfigUtil.getLong("cache.invalidation.heartbeatMillis", 1000);
+    private final long refreshMillis = ConfigUtil.getLong("cache.invalidation.refreshMillis", 50);
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long lastPublishMillis;
+
+    private final Map<UUID, Long> lastSequences = new ConcurrentHashMap<>();
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuildPending;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+
+    private volatile boolean running;
+    private Thread refresher;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherInvalidationRelay() { }
+
+    /**
+     * Creates a relay outside of a CDI container, e.g. for tests.
+     *
+     * @param bus         the {@link InvalidationBus} shared with the other nodes.
+     * @param cache       the {@link TeacherCache} of this node.
+     * @param searchIndex the {@link TeacherSearchIndex} of this node.
+     * @param teacherDAO  the {@link ITeacherDAO} the changed teachers are read with.
+     */
+    public TeacherInvalidationRelay(InvalidationBus bus, TeacherCache cache, TeacherSearchIndex searchIndex,
+                                    ITeacherDAO teacherDAO) {
+        this.bus = bus;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.teacherDAO = teacherDAO;
+    }
+
+    /**
+     * Starts listening to the other nodes as soon as the application starts.
+     *
+     * @param init the event payload.
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        bus.subscribe(this::onMessage);
+
+        running = true;
+        refresher = new Thread(this::run, "invalidation-refresher");
+        refresher.setDaemon(true);
+        refresher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (refresher != null) refresher.interrupt();
+    }
+
+    /**
+     * Publishes the writes of this node to the other nodes.
+     *
+     * @param event the change of a teacher.
+     */
+    public void onTeacherChanged(@Observes TeacherChangedEvent event) {
+        Long id = event.getTeacher().getId();
+        if (id == null) return;
+
+        // The sequence is taken under the lock, so the messages leave in the order of their numbers
+        synchronized (sequence) {
+            bus.publish(new InvalidationMessage(nodeId, sequence.incrementAndGet(), event.getType(), id));
+        }
+        lastPublishMillis = System.currentTimeMillis();
+        published.increment();
+    }
+
+    void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId())) return;
+        received.increment();
+
+        Long last = lastSequences.get(message.getNodeId());
+        long expected = message.isHeartbeat() ? message.getSequence() : message.getSequence() - 1;
+        if (last == null || last < expected) {
+            // The first message of a node only starts its numbering
+            if (last != null) lost();
+            lastSequences.put(message.getNodeId(), message.getSequence());
+        } else if (last == expected && !message.isHeartbeat()) {
+            lastSequences.put(message.getNodeId(), message.getSequence());
+        }
+
+        if (message.isHeartbeat()) return;
+
+        // Queued before the eviction, so that a refresh in progress evicts it again
+        pendingRefresh.add(message.getTeacherId());
+        cache.invalidate(message.getTeacherId());
+    }
+
+    private void lost() {
+        gaps.increment();
+        cache.invalidateAll();
+        rebuildPending = true;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(Math.min(refreshMillis, heartbeatMillis));
+
+                if (System.currentTimeMillis() - lastPublishMillis >= heartbeatMillis) {
+                    synchronized (sequence) {
+                        bus.publish(InvalidationMessage.heartbeat(nodeId, sequence.get()));
+                    }
+                    lastPublishMillis = System.currentTimeMillis();
+                }
+
+                if (rebuildPending) {
+                    rebuildPending = false;
+                    pendingRefresh.clear();
+                    if (searchIndex.isReady()) searchIndex.rebuild();
+                } else if (!pendingRefresh.isEmpty()) {
+                    refresh();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Could not apply the invalidations of the other nodes", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the changed teachers from the primary database and applies
+     * them to the search index; the teachers that are no longer found
+     * have been deleted.
+     */
+    private void refresh() throws Exception {
+        List<Long> ids = new ArrayList<>(pendingRefresh);
+        pendingRefresh.removeAll(ids);
+
+        // A request may have cached a teacher again from a replica that lags behind
+        for (Long id : ids) {
+            cache.invalidate(id);
+        }
+
+        Map<Long, Teacher> found = new HashMap<>();
+        ReadConsistency previous = ReadConsistency.bind(new ReadConsistency(true));
+        try {
+            for (Teacher teacher : teacherDAO.getByIds(ids)) {
+                found.put(teacher.getId(), teacher);
+            }
+        } finally {
+            ReadConsistency.bind(previous);
+        }
+
+        for (Long id : ids) {
+            // Changed again during the read, so the cached copy may be older than the database
+            if (pendingRefresh.contains(id)) cache.invalidate(id);
+
+            Teacher teacher = found.get(id);
+            if (teacher != null) {
+                searchIndex.onTeacherChanged(new TeacherChangedEvent(TeacherChangedEvent.Type.UPDATED, teacher));
+            } else {
+                searchIndex.onTeacherChanged(new TeacherChangedEvent(TeacherChangedEvent.Type.DELETED, new Teacher(id, null, null)));
+            }
+        }
+    }
+
+    public UUID getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getGaps() {
+        return gaps.sum();
+    }
+}
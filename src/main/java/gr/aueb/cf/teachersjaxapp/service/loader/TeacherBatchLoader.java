@@ -0,0 +1,198 @@
+package gr.aueb.cf.teachersjaxapp.service.loader;
+
+import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coalesces the concurrent lookups of single teachers by id
+ * into one {@link ITeacherDAO#getByIds} query (DataLoader style).
+ * The first lookup that misses the cache opens a batch and waits
+ * for a short window; the lookups that arrive in the meantime join
+ * the batch, and the first lookup then reads all of them at once.
+ * A batch that reaches the maximum size is read immediately.
+ * Cached teachers are returned without waiting. A request that
+ * requires the primary database bypasses both the cache and the batches.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherBatchLoader {
+
+    @Inject
+    private ITeacherDAO teacherDAO;
+    @Inject
+    private TeacherCache cache;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Batch open;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherBatchLoader() {
+        this.enabled = ConfigUtil.getBoolean("service.loader.enabled", true);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(ConfigUtil.getLong("service.loader.windowMicros", 1000));
+        this.maxBatchSize = ConfigUtil.getInt("service.loader.maxBatchSize", 100);
+    }
+
+    /**
+     * Creates an enabled loader outside of a CDI container, e.g. for tests.
+     *
+     * @param teacherDAO   the {@link ITeacherDAO} the batches are read with.
+     * @param cache        the {@link TeacherCache} checked before a lookup joins a batch.
+     * @param windowMicros how long the first lookup of a batch waits for the others.
+     * @param maxBatchSize the number of ids that makes a batch read immediately.
+     */
+    public TeacherBatchLoader(ITeacherDAO teacherDAO, TeacherCache cache, long windowMicros, int maxBatchSize) {
+        this.teacherDAO = teacherDAO;
+        this.cache = cache;
+        this.enabled = true;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the teacher with the given id, read together with
+     * the other ids requested at the same time.
+     *
+     * @param id the id of the teacher.
+     * @return the {@link Teacher}, or null if there is no such teacher.
+     * @throws TeacherDAOException if the query of the batch fails.
+     */
+    public Teacher load(long id) throws TeacherDAOException {
+        // A batch is shared with other requests, which may read from the cache
+        if (!enabled || ReadConsistency.isPrimaryRequired()) return teacherDAO.getById(id);
+
+        Teacher cached = cache.get(id);
+        if (cached != null) return cached;
+
+        Batch batch;
+        CompletableFuture<Teacher> future;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (lock) {
+            if (open == null) {
+                open = new Batch();
+                leader = true;
+            }
+            batch = open;
+            future = batch.futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (batch.futures.size() >= maxBatchSize) {
+                open = null;
+                full = true;
+            }
+        }
+
+        if (full) {
+            read(batch);
+        } else if (leader) {
+            LockSupport.parkNanos(windowNanos);
+
+            boolean stillOpen;
+            synchronized (lock) {
+                stillOpen = (open == batch);
+                if (stillOpen) open = null;
+            }
+            // Otherwise the batch was filled up and read by another lookup
+            if (stillOpen) read(batch);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TeacherDAOException) throw (TeacherDAOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the teachers with the given ids, the cached ones
+     * from the cache and the rest with one query.
+     *
+     * @param ids the ids of the teachers.
+     * @return the found {@link Teacher} objects, in the order of
+     * the ids; ids with no teacher are skipped.
+     * @throws TeacherDAOException if the query fails.
+     */
+    public List<Teacher> loadAll(Collection<Long> ids) throws TeacherDAOException {
+        Map<Long, Teacher> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        boolean primaryRequired = ReadConsistency.isPrimaryRequired();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Teacher cached = primaryRequired ? null : cache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Teacher teacher : teacherDAO.getByIds(missing)) {
+                found.put(teacher.getId(), teacher);
+            }
+        }
+
+        List<Teacher> teachers = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Teacher teacher = found.get(id);
+            if (teacher != null) teachers.add(teacher);
+        }
+        return teachers;
+    }
+
+    /**
+     * Reads a batch and completes the futures of its lookups. Any failure,
+     * even an Error, completes them exceptionally, since the other lookups
+     * of the batch wait for their futures without a timeout.
+     */
+    private void read(Batch batch) {
+        try {
+            Map<Long, Teacher> found = new HashMap<>();
+            for (Teacher teacher : teacherDAO.getByIds(batch.futures.keySet())) {
+                found.put(teacher.getId(), teacher);
+            }
+            for (Map.Entry<Long, CompletableFuture<Teacher>> entry : batch.futures.entrySet()) {
+                entry.getValue().complete(found.get(entry.getKey()));
+            }
+        } catch (Throwable e) {
+            for (CompletableFuture<Teacher> future : batch.futures.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The lookups that are read together. The map is only
+     * changed under the lock, while the batch is open.
+     */
+    private static final class Batch {
+        private final Map<Long, CompletableFuture<Teacher>> futures = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,371 @@
+package gr.aueb.cf.teachersjaxapp.service.search;
+
+import gr.aueb.cf.teachersjaxapp.dao.ITeacherDAO;
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ConfigUtil;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over the firstname and lastname
+ * of the teachers, so that typeahead queries are answered
+ * without a table scan. It is built from the DAO when the
+ * application starts and is kept up to date by observing
+ * the {@link TeacherChangedEvent}s of the DAO writes.
+ * <p>
+ * The names are split in tokens which are normalized (lower case,
+ * no accents) and kept in a sorted map, so the tokens that begin
+ * with a query term form a contiguous range of the map. Terms shorter
+ * than 'search.minPrefixLength' would scan a large part of the map,
+ * so they only narrow down the matches of the longer terms of the
+ * query; a query with only short terms matches whole tokens.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class TeacherSearchIndex {
+    private static final Logger LOGGER = Logger.getLogger(TeacherSearchIndex.class.getName());
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-']+");
+
+    private static final int EXACT_LASTNAME = 8;
+    private static final int EXACT_FIRSTNAME = 4;
+    private static final int PREFIX_LASTNAME = 2;
+    private static final int PREFIX_FIRSTNAME = 1;
+
+    @Inject
+    private ITeacherDAO teacherDAO;
+
+    private final boolean enabled = ConfigUtil.getBoolean("search.index.enabled", true);
+    private final int minPrefixLength = ConfigUtil.getInt("search.minPrefixLength", 3);
+    private final Object rebuildLock = new Object();
+    private final Object writeLock = new Object();
+    private volatile Index index;
+    private List<TeacherChangedEvent> pendingEvents;
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public TeacherSearchIndex() { }
+
+    /**
+     * Creates an index outside of a CDI container, e.g. for tests.
+     *
+     * @param teacherDAO the {@link ITeacherDAO} the index is built from.
+     */
+    public TeacherSearchIndex(ITeacherDAO teacherDAO) {
+        this.teacherDAO = teacherDAO;
+    }
+
+    /**
+     * Builds the index in the background as soon as the application starts.
+     *
+     * @param init the event payload.
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (!enabled) return;
+
+        Thread builder = new Thread(this::rebuild, "search-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Builds a new index from all the teachers of the primary database,
+     * since a replica may lag behind the changes the index has already
+     * applied, and replaces the current one. The changes that happen during the build
+     * are applied to the new index before it replaces the old one.
+     * Rebuilds run one at a time, so each one collects its own changes.
+     *
+     * @return true if the index was built.
+     */
+    public boolean rebuild() {
+        synchronized (rebuildLock) {
+            List<TeacherChangedEvent> changes = new ArrayList<>();
+            synchronized (writeLock) {
+                pendingEvents = changes;
+            }
+
+            Index fresh = new Index();
+            ReadConsistency previous = ReadConsistency.bind(new ReadConsistency(true));
+            try {
+                teacherDAO.streamAll(fresh::put);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Could not rebuild the search index", e);
+                synchronized (writeLock) {
+                    pendingEvents = null;
+                }
+                return false;
+            } finally {
+                ReadConsistency.bind(previous);
+            }
+
+            synchronized (writeLock) {
+                for (TeacherChangedEvent event : changes) {
+                    fresh.apply(event);
+                }
+                pendingEvents = null;
+                index = fresh;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Keeps the index up to date with the writes of the DAO.
+     *
+     * @param event the change of a teacher.
+     */
+    public void onTeacherChanged(@Observes TeacherChangedEvent event) {
+        synchronized (writeLock) {
+            if (pendingEvents != null) pendingEvents.add(event);
+            Index current = index;
+            if (current != null) current.apply(event);
+        }
+    }
+
+    /**
+     * Returns whether the index has been built and can answer queries.
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public int size() {
+        Index current = index;
+        return (current == null) ? 0 : current.teachers.size();
+    }
+
+    /**
+     * Searches the teachers whose names have a token beginning with
+     * every term of the query. Exact token matches rank above prefix
+     * matches and lastname matches rank above firstname matches; ties
+     * are ordered by lastname, firstname and id.
+     *
+     * @param query the terms to search for, e.g. 'pap ni'.
+     * @param limit the maximum number of teachers returned.
+     * @return the best matching {@link Teacher} objects, best first.
+     * @throws IllegalStateException if the index has not been built yet.
+     */
+    public List<Teacher> search(String query, int limit) {
+        Index current = index;
+        if (current == null) throw new IllegalStateException("Search index is not ready");
+
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit < 1) return new ArrayList<>();
+
+        List<String> shortTerms = new ArrayList<>();
+        Map<Long, Integer> scores = null;
+        for (String term : terms) {
+            if (term.length() < minPrefixLength) {
+                shortTerms.add(term);
+                continue;
+            }
+            scores = combine(scores, current.scoreTerm(term));
+            if (scores.isEmpty()) return new ArrayList<>();
+        }
+        for (String term : shortTerms) {
+            // Only the matches of the longer terms are checked, or only whole tokens without them
+            scores = (scores == null)
+                    ? current.scoreExactTerm(term)
+                    : combine(scores, current.scoreCandidates(term, scores.keySet()));
+            if (scores.isEmpty()) return new ArrayList<>();
+        }
+
+        Comparator<Hit> ranking = Comparator.comparingInt((Hit h) -> h.score).reversed()
+                .thenComparing(h -> h.teacher.getLastname())
+                .thenComparing(h -> h.teacher.getFirstname())
+                .thenComparing(h -> h.teacher.getId());
+
+        // Keeps the best 'limit' hits, the worst of them at the head
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            Teacher teacher = current.teachers.get(entry.getKey());
+            if (teacher == null) continue;
+
+            best.add(new Hit(teacher, entry.getValue()));
+            if (best.size() > limit) best.poll();
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ranking);
+
+        List<Teacher> teachers = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            teachers.add(hit.teacher);
+        }
+        return teachers;
+    }
+
+    /**
+     * Keeps the teachers matched by both the previous terms and a
+     * term, with the sum of their scores.
+     */
+    private static Map<Long, Integer> combine(Map<Long, Integer> scores, Map<Long, Integer> termScores) {
+        if (scores == null) return termScores;
+
+        scores.keySet().retainAll(termScores.keySet());
+        scores.replaceAll((id, score) -> score + termScores.get(id));
+        return scores;
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String value) {
+        List<String> tokens = new ArrayList<>();
+        if (value == null) return tokens;
+
+        for (String token : SEPARATORS.split(normalize(value))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * The indexed teachers with the postings of their tokens.
+     */
+    private static class Index {
+        private final Map<Long, Teacher> teachers = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> firstnames = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> lastnames = new ConcurrentSkipListMap<>();
+
+        void apply(TeacherChangedEvent event) {
+            if (event.getType() == TeacherChangedEvent.Type.DELETED) {
+                remove(event.getTeacher().getId());
+            } else {
+                put(event.getTeacher());
+            }
+        }
+
+        void put(Teacher teacher) {
+            Teacher copy = new Teacher(teacher.getId(), teacher.getFirstname(), teacher.getLastname());
+            Teacher previous = teachers.put(copy.getId(), copy);
+            if (previous != null) unlink(previous);
+
+            link(firstnames, copy.getFirstname(), copy.getId());
+            link(lastnames, copy.getLastname(), copy.getId());
+        }
+
+        void remove(long id) {
+            Teacher previous = teachers.remove(id);
+            if (previous != null) unlink(previous);
+        }
+
+        private void unlink(Teacher teacher) {
+            unlink(firstnames, teacher.getFirstname(), teacher.getId());
+            unlink(lastnames, teacher.getLastname(), teacher.getId());
+        }
+
+        private static void link(ConcurrentSkipListMap<String, Set<Long>> postings, String name, long id) {
+            for (String token : tokenize(name)) {
+                postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private static void unlink(ConcurrentSkipListMap<String, Set<Long>> postings, String name, long id) {
+            for (String token : tokenize(name)) {
+                postings.computeIfPresent(token, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        /**
+         * Returns the best score of a single term for every teacher it matches.
+         */
+        Map<Long, Integer> scoreTerm(String term) {
+            Map<Long, Integer> scores = new HashMap<>();
+            score(scores, lastnames, term, EXACT_LASTNAME, PREFIX_LASTNAME);
+            score(scores, firstnames, term, EXACT_FIRSTNAME, PREFIX_FIRSTNAME);
+            return scores;
+        }
+
+        /**
+         * Returns the score of a term for every teacher with a token equal to it.
+         */
+        Map<Long, Integer> scoreExactTerm(String term) {
+            Map<Long, Integer> scores = new HashMap<>();
+            for (Long id : lastnames.getOrDefault(term, Set.of())) {
+                scores.put(id, EXACT_LASTNAME);
+            }
+            for (Long id : firstnames.getOrDefault(term, Set.of())) {
+                scores.merge(id, EXACT_FIRSTNAME, Math::max);
+            }
+            return scores;
+        }
+
+        /**
+         * Returns the best score of a term for the given teachers only,
+         * from their own tokens instead of a range of the map.
+         */
+        Map<Long, Integer> scoreCandidates(String term, Set<Long> ids) {
+            Map<Long, Integer> scores = new HashMap<>();
+            for (Long id : ids) {
+                Teacher teacher = teachers.get(id);
+                if (teacher == null) continue;
+
+                int score = Math.max(
+                        score(teacher.getLastname(), term, EXACT_LASTNAME, PREFIX_LASTNAME),
+                        score(teacher.getFirstname(), term, EXACT_FIRSTNAME, PREFIX_FIRSTNAME));
+                if (score > 0) scores.put(id, score);
+            }
+            return scores;
+        }
+
+        private static int score(String name, String term, int exactScore, int prefixScore) {
+            int score = 0;
+            for (String token : tokenize(name)) {
+                if (token.equals(term)) return exactScore;
+                if (token.startsWith(term)) score = prefixScore;
+            }
+            return score;
+        }
+
+        private static void score(Map<Long, Integer> scores, ConcurrentSkipListMap<String, Set<Long>> postings,
+                                  String term, int exactScore, int prefixScore) {
+            ConcurrentNavigableMap<String, Set<Long>> range =
+                    postings.subMap(term, true, term + Character.MAX_VALUE, false);
+
+            for (Map.Entry<String, Set<Long>> entry : range.entrySet()) {
+                int score = entry.getKey().equals(term) ? exactScore : prefixScore;
+                for (Long id : entry.getValue()) {
+                    scores.merge(id, score, Math::max);
+                }
+            }
+        }
+    }
+
+    private static class Hit {
+        private final Teacher teacher;
+        private final int score;
+
+        private Hit(Teacher teacher, int score) {
+            this.teacher = teacher;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Utility class that provides the externalized
+ * configuration of the app. The values are loaded once
+ * from the 'application.properties' file of the classpath
+ * and every key can be overridden by a JVM system property
+ * with the same name.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class ConfigUtil {
+    private static final Logger LOGGER = Logger.getLogger(ConfigUtil.class.getName());
+    private static final String CONFIG_FILE = "application.properties";
+    private static final Properties properties = new Properties();
+
+    static {
+        try (InputStream in = ConfigUtil.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) properties.load(in);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not read " + CONFIG_FILE + ", using the defaults", e);
+        }
+    }
+
+    /**
+     * No instances of this class should be available.
+     */
+    private ConfigUtil() { }
+
+    /**
+     * Returns the value of a configuration key.
+     *
+     * @param key          the configuration key.
+     * @param defaultValue the value returned if the key is missing or blank.
+     * @return the configured value.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return (value == null || value.isBlank()) ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return (value == null) ? defaultValue : Integer.parseInt(value);
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return (value == null) ? defaultValue : Long.parseLong(value);
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return (value == null) ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Returns all the configuration keys that begin with a prefix,
+     * without the prefix, e.g. 'db.connection.cachePrepStmts' as
+     * 'cachePrepStmts' for the prefix 'db.connection.'. Keys with
+     * a blank value are left out.
+     *
+     * @param prefix the prefix of the keys.
+     * @return the matching keys with their values.
+     */
+    public static Properties getProperties(String prefix) {
+        Set<String> keys = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) keys.add(key);
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix)) keys.add(key);
+        }
+
+        Properties result = new Properties();
+        for (String key : keys) {
+            String value = getString(key, null);
+            if (value != null) result.setProperty(key.substring(prefix.length()), value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+/**
+ * The correlation id of the current request, which ties the SQL
+ * traces of a request to its response (X-Correlation-Id header).
+ * <p>
+ * The id is bound to the thread that serves the request and is
+ * passed on by the {@link DatabaseExecutor} to the thread that runs
+ * the database work of the request.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class CorrelationId {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /**
+     * No instances of this class should be available.
+     */
+    private CorrelationId() { }
+
+    /**
+     * Returns the correlation id of the current thread.
+     *
+     * @return the id, or null outside of a request.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a correlation id to the current thread.
+     *
+     * @param id the id, or null to unbind it.
+     * @return the id that was bound before.
+     */
+    public static String bind(String id) {
+        String previous = CURRENT.get();
+        if (id == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(id);
+        }
+        return previous;
+    }
+}
@@ -1,52 +1,95 @@
 package gr.aueb.cf.teachersjaxapp.service.util;
 
-import java.sql.Connection;
-import java.sql.SQLException;
-
 import org.apache.commons.dbcp2.BasicDataSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
 /**
- * Utility class that provides methods
- * to connect to the database.
+ * Utility class that creates the connection
+ * pool of the database from the externalized
+ * configuration (see {@link ConfigUtil}).
  *
  * @author Thanasis Chousiadas
  */
 public class DBUtil {
-	private static BasicDataSource ds = new BasicDataSource();
-	private static Connection connection;
-	
-	static {
-		ds.setUrl("jdbc:mysql://localhost:3306/schooldb?serverTimezone=UTC");
-		ds.setUsername(System.getenv("USER"));
-		ds.setPassword(System.getenv("PASS"));
-		ds.setInitialSize(8);
-		ds.setMaxTotal(32);
-		ds.setMinIdle(8);
-		ds.setMaxIdle(10);
-		ds.setMaxOpenPreparedStatements(100);
-	}
-	
+
 	/**
 	 * No instances of this class should be available.
 	 */
 	private DBUtil() { }
 
-	public static Connection getConnection() throws SQLException {
-		try {
-			Class.forName("com.mysql.cj.jdbc.Driver");
-			connection = ds.getConnection();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		return connection;
+	/**
+	 * Creates a new, instrumented connection pool. The JDBC driver
+	 * is resolved once by the pool and not on every borrow.
+	 *
+	 * @return an {@link InstrumentedDataSource} wrapping the pool.
+	 */
+	public static InstrumentedDataSource createDataSource() {
+		return createDataSource(ConfigUtil.getString("db.url", "jdbc:mysql://localhost:3306/schooldb?serverTimezone=UTC"));
 	}
-	
-	public static void closeConnection() {
-		try {
-			if (connection != null) connection.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
+
+	/**
+	 * Creates one connection pool per read replica of 'db.replicas',
+	 * a comma-separated list of JDBC URLs. The replicas use the
+	 * credentials and the pool settings of the primary database.
+	 *
+	 * @return the pools of the replicas, empty if none is configured.
+	 */
+	public static List<InstrumentedDataSource> createReplicaDataSources() {
+		List<InstrumentedDataSource> replicas = new ArrayList<>();
+
+		for (String url : ConfigUtil.getString("db.replicas", "").split(",")) {
+			if (!url.isBlank()) replicas.add(createDataSource(url.trim()));
 		}
+		return replicas;
 	}
 
+	/**
+	 * Creates a new, instrumented connection pool to the given database.
+	 * The prepared statements are pooled per connection, so the DAO
+	 * statements are prepared once per connection and not on every call,
+	 * and every 'db.connection.*' key is passed to the JDBC driver
+	 * (e.g. cachePrepStmts, useServerPrepStmts, rewriteBatchedStatements).
+	 * Every statement is cancelled by the driver after 'db.pool.queryTimeoutSeconds'.
+	 *
+	 * @param url the JDBC URL of the database.
+	 * @return an {@link InstrumentedDataSource} wrapping the pool.
+	 */
+	public static InstrumentedDataSource createDataSource(String url) {
+		BasicDataSource ds = new BasicDataSource();
+
+		ds.setDriverClassName(ConfigUtil.getString("db.driver", "com.mysql.cj.jdbc.Driver"));
+		ds.setUrl(url);
+		ds.setUsername(ConfigUtil.getString("db.username", System.getenv("USER")));
+		ds.setPassword(ConfigUtil.getString("db.password", System.getenv("PASS")));
+
+		ds.setInitialSize(ConfigUtil.getInt("db.pool.initialSize", 8));
+		ds.setMaxTotal(ConfigUtil.getInt("db.pool.maxTotal", 32));
+		ds.setMinIdle(ConfigUtil.getInt("db.pool.minIdle", 8));
+		ds.setMaxIdle(ConfigUtil.getInt("db.pool.maxIdle", 10));
+		ds.setMaxWaitMillis(ConfigUtil.getLong("db.pool.maxWaitMillis", 5000));
+		ds.setPoolPreparedStatements(ConfigUtil.getBoolean("db.pool.poolPreparedStatements", true));
+		ds.setMaxOpenPreparedStatements(ConfigUtil.getInt("db.pool.maxOpenPreparedStatements", 100));
+		// By default a statement may run as long as the request that waits for it
+		long asyncTimeoutSeconds = (ConfigUtil.getLong("async.timeoutMillis", 10_000) + 999) / 1000;
+		int queryTimeoutSeconds = ConfigUtil.getInt("db.pool.queryTimeoutSeconds", (int) asyncTimeoutSeconds);
+		if (queryTimeoutSeconds > 0) ds.setDefaultQueryTimeout(queryTimeoutSeconds);
+
+		Properties connectionProperties = ConfigUtil.getProperties("db.connection.");
+		for (String name : connectionProperties.stringPropertyNames()) {
+			ds.addConnectionProperty(name, connectionProperties.getProperty(name));
+		}
+
+		if (ConfigUtil.getBoolean("db.pool.leakDetection.enabled", true)) {
+			ds.setRemoveAbandonedOnMaintenance(true);
+			ds.setRemoveAbandonedTimeout(ConfigUtil.getInt("db.pool.leakDetection.timeoutSeconds", 60));
+			ds.setLogAbandoned(true);
+			ds.setAbandonedUsageTracking(true);
+			ds.setTimeBetweenEvictionRunsMillis(ConfigUtil.getLong("db.pool.evictionRunMillis", 30000));
+		}
+
+		return new InstrumentedDataSource(ds);
+	}
 }
@@ -0,0 +1,95 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * CDI producer of the application's connection pools.
+ * A single pool to the primary database and one pool per
+ * read replica are created per application and they are
+ * closed when the application shuts down.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class DataSourceProducer {
+    private static final Logger LOGGER = Logger.getLogger(DataSourceProducer.class.getName());
+
+    /**
+     * Produces the pool, injectable either as a
+     * {@link javax.sql.DataSource} or as an {@link InstrumentedDataSource}.
+     *
+     * @param traceRecorder the recorder of the traces of the statements ('trace.enabled').
+     * @return the application's connection pool.
+     */
+    @Produces
+    @Singleton
+    public InstrumentedDataSource produceDataSource(SqlTraceRecorder traceRecorder) {
+        InstrumentedDataSource dataSource = DBUtil.createDataSource();
+        if (traceRecorder.isEnabled()) dataSource.setTraceRecorder(traceRecorder);
+        return dataSource;
+    }
+
+    public void closeDataSource(@Disposes InstrumentedDataSource dataSource) {
+        dataSource.close();
+    }
+
+    /**
+     * Produces the data source of the reads, injectable as a
+     * {@link ReadOnly} {@link javax.sql.DataSource}. Without configured
+     * replicas, it reads from the primary database.
+     *
+     * @param primary       the pool of the primary database.
+     * @param traceRecorder the recorder of the traces of the statements ('trace.enabled').
+     * @return the {@link ReplicaDataSource} of the application.
+     */
+    @Produces
+    @Singleton
+    @ReadOnly
+    public ReplicaDataSource produceReadDataSource(InstrumentedDataSource primary, SqlTraceRecorder traceRecorder) {
+        boolean leastLoaded = "least-loaded".equals(ConfigUtil.getString("db.replicas.strategy", "least-loaded"));
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary, DBUtil.createReplicaDataSources(), leastLoaded);
+        if (traceRecorder.isEnabled()) dataSource.setTraceRecorder(traceRecorder);
+        return dataSource;
+    }
+
+    public void closeReadDataSource(@Disposes @ReadOnly ReplicaDataSource dataSource) {
+        dataSource.close();
+    }
+
+    /**
+     * Opens the pools as soon as the application starts, so that the
+     * 'db.pool.initialSize' connections of every pool are created before
+     * the first request and not while it waits ('db.pool.prewarm').
+     * A database that is not up yet does not stop the application.
+     *
+     * @param init           the event payload.
+     * @param dataSource     the pool of the primary database.
+     * @param readDataSource the pools of the read replicas.
+     */
+    public void prewarm(@Observes @Initialized(ApplicationScoped.class) Object init,
+                        InstrumentedDataSource dataSource, @ReadOnly ReplicaDataSource readDataSource) {
+        if (!ConfigUtil.getBoolean("db.pool.prewarm", true)) return;
+
+        prewarm(dataSource);
+        for (InstrumentedDataSource replica : readDataSource.getReplicas()) {
+            prewarm(replica);
+        }
+    }
+
+    private static void prewarm(InstrumentedDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not prewarm the connection pool", e);
+        }
+    }
+}
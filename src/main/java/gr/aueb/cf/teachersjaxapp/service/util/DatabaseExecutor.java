@@ -0,0 +1,283 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor that runs the database work of the requests,
+ * so that the HTTP threads of the container are not held while
+ * waiting for the database. On JDK 21+ the tasks run on virtual
+ * threads, otherwise on a fixed pool of platform threads.
+ * In both cases at most 'async.threads' tasks run and at most
+ * 'async.queueCapacity' wait; any further task is rejected
+ * with a {@link RejectedExecutionException}, so that the caller
+ * can shed the load instead of queueing without bound. A virtual
+ * thread is started for every admitted task, but it waits for one
+ * of the 'async.threads' running permits before it runs the task,
+ * so the tasks wait here rather than for a connection of the pool.
+ * The {@link ReadConsistency} and the {@link CorrelationId} of the
+ * caller are passed on to the task.
+ * <p>
+ * A task that has not started within 'async.timeoutMillis' is dropped
+ * and never runs. A task that has started by then is interrupted; its
+ * statements are also bounded by the query timeout of the pool (see
+ * {@link DBUtil}), but whether its writes were committed is unknown.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class DatabaseExecutor {
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DROPPED = 2;
+
+    private boolean enabled;
+    private long timeoutMillis;
+    private boolean virtualThreads;
+    private ExecutorService executor;
+    private ScheduledThreadPoolExecutor timer;
+    private Semaphore permits;
+    private Semaphore running;
+    private int capacity;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Default constructor, used by CDI.
+     */
+    public DatabaseExecutor() { }
+
+    /**
+     * Creates an executor outside of a CDI container, e.g. for tests.
+     *
+     * @param perTaskExecutor an executor that starts a thread for every task,
+     *                        used like the virtual threads of JDK 21+, or null
+     *                        to choose as 'async.virtualThreads' says.
+     * @param timer           the timer of the timeouts of the tasks.
+     */
+    DatabaseExecutor(ExecutorService perTaskExecutor, ScheduledThreadPoolExecutor timer) {
+        this.executor = perTaskExecutor;
+        this.timer = timer;
+    }
+
+    @PostConstruct
+    public void init() {
+        enabled = ConfigUtil.getBoolean("async.enabled", true);
+        timeoutMillis = ConfigUtil.getLong("async.timeoutMillis", 10_000);
+        int threads = ConfigUtil.getInt("async.threads", ConfigUtil.getInt("db.pool.maxTotal", 32));
+        int queueCapacity = ConfigUtil.getInt("async.queueCapacity", 256);
+        capacity = threads + queueCapacity;
+
+        if (!enabled) return;
+
+        if (executor == null && ConfigUtil.getBoolean("async.virtualThreads", true)) {
+            executor = newVirtualThreadExecutor();
+        }
+        if (executor != null) {
+            virtualThreads = true;
+            permits = new Semaphore(capacity);
+            running = new Semaphore(threads);
+        } else {
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory("db-executor-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("db-executor-timer-"));
+        }
+        // The timeouts of the completed tasks are cancelled, so they must not fill the queue of the timer
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Runs a task on the executor. When the async mode is
+     * disabled, the task runs on the calling thread.
+     *
+     * @param task the task to run.
+     * @param <T>  the type of the result of the task.
+     * @return a stage that completes with the result of the task,
+     * or exceptionally with a {@link RejectedExecutionException} if the
+     * executor is full or the task did not start within 'async.timeoutMillis',
+     * or with a {@link TimeoutException} if the task started but did not
+     * complete in time; the task is then interrupted and its outcome is unknown.
+     */
+    public <T> CompletionStage<T> submit(Callable<T> task) {
+        return submit(task, timeoutMillis);
+    }
+
+    /**
+     * Runs a task on the executor with its own timeout instead of
+     * 'async.timeoutMillis', e.g. for a task whose duration depends
+     * on the size of its input. When the async mode is disabled,
+     * the task runs on the calling thread.
+     *
+     * @param task          the task to run.
+     * @param timeoutMillis the time the task has to start and complete.
+     * @param <T>           the type of the result of the task.
+     * @return a stage that completes like the one of {@link #submit(Callable)}.
+     */
+    public <T> CompletionStage<T> submit(Callable<T> task, long timeoutMillis) {
+        if (!enabled) {
+            return runInline(task);
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        ReadConsistency consistency = ReadConsistency.current();
+        String correlationId = CorrelationId.current();
+        Future<?> work;
+        try {
+            if (virtualThreads && !permits.tryAcquire()) {
+                throw new RejectedExecutionException("Database executor is full");
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            work = executor.submit(() -> {
+                try {
+                    runWhenStarted(task, future, state, deadline, consistency, correlationId);
+                } finally {
+                    if (virtualThreads) permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (state.compareAndSet(QUEUED, DROPPED)) {
+                timedOut.increment();
+                // Never started, so it is safe for the client to send the request again
+                future.completeExceptionally(new RejectedExecutionException(
+                        "Database task did not start within " + timeoutMillis + " ms"));
+            } else if (future.completeExceptionally(new TimeoutException(
+                    "Database task did not complete within " + timeoutMillis + " ms"))) {
+                timedOut.increment();
+                work.cancel(true);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        return future.whenComplete((result, t) -> timeout.cancel(false));
+    }
+
+    /**
+     * Runs a task that has not been dropped. On a thread of its own, the
+     * task first waits for a running permit, at most until it is dropped.
+     */
+    private <T> void runWhenStarted(Callable<T> task, CompletableFuture<T> future, AtomicInteger state,
+                                    long deadline, ReadConsistency consistency, String correlationId) {
+        if (virtualThreads) {
+            try {
+                if (!running.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return;
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        try {
+            if (!state.compareAndSet(QUEUED, RUNNING)) return;
+            run(task, future, consistency, correlationId);
+        } finally {
+            if (virtualThreads) running.release();
+        }
+    }
+
+    private static <T> void run(Callable<T> task, CompletableFuture<T> future,
+                                ReadConsistency consistency, String correlationId) {
+        ReadConsistency previous = ReadConsistency.bind(consistency);
+        String previousId = CorrelationId.bind(correlationId);
+        try {
+            future.complete(task.call());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            ReadConsistency.bind(previous);
+            CorrelationId.bind(previousId);
+        }
+    }
+
+    private static <T> CompletionStage<T> runInline(Callable<T> task) {
+        try {
+            return CompletableFuture.completedFuture(task.call());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor, if the running JDK has one.
+     *
+     * @return the executor, or null before JDK 21.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the number of tasks that are running or waiting.
+     */
+    public int getInFlight() {
+        if (!enabled || executor == null) return 0;
+        if (virtualThreads) return capacity - permits.availablePermits();
+
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        return pool.getActiveCount() + pool.getQueue().size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of tasks that did not complete in time,
+     * whether they had started or were dropped from the queue.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) executor.shutdown();
+        if (timer != null) timer.shutdownNow();
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} that wraps the connection pool
+ * and records how long each borrow waited for a connection.
+ * It also exposes the active / idle counts of the pool,
+ * so the pool can be sized from real numbers.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class InstrumentedDataSource implements DataSource {
+    private static final Logger LOGGER = Logger.getLogger(InstrumentedDataSource.class.getName());
+
+    private final BasicDataSource pool;
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder failedBorrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile StatementListener statementListener;
+    private volatile SqlTraceRecorder traceRecorder;
+
+    public InstrumentedDataSource(BasicDataSource pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Borrows a connection from the pool and records
+     * the time the caller waited for it.
+     *
+     * @return a pooled {@link Connection}, to be closed by the caller.
+     * @throws SQLException if the pool is exhausted or the database is unreachable.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = pool.getConnection();
+            long waitNanos = System.nanoTime() - start;
+            recordWait(waitNanos);
+
+            StatementListener listener = statementListener;
+            SqlTraceRecorder recorder = traceRecorder;
+            return (listener == null && recorder == null)
+                    ? connection
+                    : TimedConnectionHandler.wrap(connection, listener, recorder, waitNanos);
+        } catch (SQLException e) {
+            failedBorrowCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    /**
+     * Registers a listener that is notified of the duration of every
+     * prepared statement executed on the connections borrowed from now on.
+     *
+     * @param listener the {@link StatementListener}, or null to stop timing.
+     */
+    public void setStatementListener(StatementListener listener) {
+        this.statementListener = listener;
+    }
+
+    /**
+     * Records a {@link SqlTrace} of every prepared statement executed
+     * on the connections borrowed from now on.
+     *
+     * @param recorder the {@link SqlTraceRecorder}, or null to stop tracing.
+     */
+    public void setTraceRecorder(SqlTraceRecorder recorder) {
+        this.traceRecorder = recorder;
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getNumActive() {
+        return pool.getNumActive();
+    }
+
+    public int getNumIdle() {
+        return pool.getNumIdle();
+    }
+
+    public int getMaxTotal() {
+        return pool.getMaxTotal();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getFailedBorrowCount() {
+        return failedBorrowCount.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = borrowCount.sum();
+        return (count == 0) ? 0.0 : (totalWaitNanos.sum() / (double) count) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public boolean isLeakDetectionEnabled() {
+        return pool.getRemoveAbandonedOnMaintenance();
+    }
+
+    public int getLeakDetectionTimeoutSeconds() {
+        return pool.getRemoveAbandonedTimeout();
+    }
+
+    /**
+     * Closes the underlying pool and all of its idle connections.
+     */
+    public void close() {
+        try {
+            pool.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not close the connection pool", e);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        return pool.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || pool.isWrapperFor(iface);
+    }
+}
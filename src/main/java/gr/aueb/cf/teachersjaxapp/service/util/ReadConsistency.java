@@ -0,0 +1,68 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+/**
+ * The read consistency of the current request. A request that
+ * asks for read-your-writes, or that has already written, reads
+ * from the primary database instead of a replica, which may not
+ * have received the write yet.
+ * <p>
+ * The consistency is bound to the thread that serves the request
+ * and is passed on by the {@link DatabaseExecutor} to the thread
+ * that runs the database work of the request.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class ReadConsistency {
+    private static final ThreadLocal<ReadConsistency> CURRENT = new ThreadLocal<>();
+
+    private final boolean primaryRequired;
+    private volatile long lastWriteMillis;
+
+    public ReadConsistency(boolean primaryRequired) {
+        this.primaryRequired = primaryRequired;
+    }
+
+    public static ReadConsistency current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a consistency to the current thread.
+     *
+     * @param consistency the {@link ReadConsistency}, or null to unbind it.
+     * @return the consistency that was bound before.
+     */
+    public static ReadConsistency bind(ReadConsistency consistency) {
+        ReadConsistency previous = CURRENT.get();
+        if (consistency == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(consistency);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns whether the reads of the current thread must go to the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        ReadConsistency consistency = CURRENT.get();
+        return consistency != null && (consistency.primaryRequired || consistency.lastWriteMillis != 0);
+    }
+
+    /**
+     * Records that the current request has written to the primary,
+     * so that its following reads see the write.
+     */
+    public static void markWrite() {
+        ReadConsistency consistency = CURRENT.get();
+        if (consistency != null) consistency.lastWriteMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the time of the last write of the request, or 0 if it has not written.
+     */
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+}
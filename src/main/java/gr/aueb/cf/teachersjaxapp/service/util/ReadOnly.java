@@ -0,0 +1,21 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Qualifies the {@link javax.sql.DataSource} that is used for reads
+ * only, so that they can be served by the read replicas.
+ *
+ * @author Thanasis Chousiadas
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE})
+public @interface ReadOnly {
+}
@@ -0,0 +1,169 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} for reads that routes every borrow to one
+ * of the read replicas, either round-robin or to the replica with
+ * the fewest active connections ('db.replicas.strategy'). The reads
+ * go to the primary database instead when there are no replicas,
+ * when the request requires it (see {@link ReadConsistency}) or
+ * when the chosen replica cannot give a connection.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class ReplicaDataSource implements DataSource {
+    private static final Logger LOGGER = Logger.getLogger(ReplicaDataSource.class.getName());
+
+    private final InstrumentedDataSource primary;
+    private final List<InstrumentedDataSource> replicas;
+    private final boolean leastLoaded;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    public ReplicaDataSource(InstrumentedDataSource primary, List<InstrumentedDataSource> replicas, boolean leastLoaded) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.leastLoaded = leastLoaded;
+    }
+
+    /**
+     * Borrows a connection for reads.
+     *
+     * @return a pooled {@link Connection} of a replica or of the
+     * primary database, to be closed by the caller.
+     * @throws SQLException if no database can give a connection.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || ReadConsistency.isPrimaryRequired()) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+
+        InstrumentedDataSource replica = choose();
+        try {
+            Connection connection = replica.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Replica unavailable, reading from the primary", e);
+            replicaFailures.increment();
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+    }
+
+    private InstrumentedDataSource choose() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (!leastLoaded) return replicas.get(start);
+
+        // Starts from the next replica in turn, so that ties are spread evenly
+        InstrumentedDataSource chosen = replicas.get(start);
+        for (int i = 1; i < replicas.size(); i++) {
+            InstrumentedDataSource replica = replicas.get((start + i) % replicas.size());
+            if (replica.getNumActive() < chosen.getNumActive()) chosen = replica;
+        }
+        return chosen;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    /**
+     * Registers the listener of the executed statements on the replicas.
+     *
+     * @param listener the {@link StatementListener}, or null to stop timing.
+     */
+    public void setStatementListener(StatementListener listener) {
+        for (InstrumentedDataSource replica : replicas) {
+            replica.setStatementListener(listener);
+        }
+    }
+
+    /**
+     * Registers the recorder of the traces of the statements on the replicas.
+     *
+     * @param recorder the {@link SqlTraceRecorder}, or null to stop tracing.
+     */
+    public void setTraceRecorder(SqlTraceRecorder recorder) {
+        for (InstrumentedDataSource replica : replicas) {
+            replica.setTraceRecorder(recorder);
+        }
+    }
+
+    public List<InstrumentedDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    public long getReplicaFailures() {
+        return replicaFailures.sum();
+    }
+
+    /**
+     * Closes the pools of the replicas. The primary has its own lifecycle.
+     */
+    public void close() {
+        for (InstrumentedDataSource replica : replicas) {
+            replica.close();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,87 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+/**
+ * The trace of one execution of a prepared statement: its SQL text,
+ * the shape of its bind parameters (their types, not their values),
+ * how long it ran, how many rows it returned or changed and how long
+ * its connection was waited for, with the correlation id of the request.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class SqlTrace {
+    private final long timestampMillis;
+    private final String correlationId;
+    private final String sql;
+    private final String binds;
+    private final long executionNanos;
+    private final long rows;
+    private final long connectionWaitNanos;
+    private final String sqlState;
+
+    /**
+     * Creates a trace.
+     *
+     * @param timestampMillis     when the statement was executed.
+     * @param correlationId       the correlation id of the request, or null.
+     * @param sql                 the SQL text of the statement.
+     * @param binds               the shape of the bind parameters, e.g. '(String, Long x 3)'.
+     * @param executionNanos      the execution time.
+     * @param rows                the rows returned or changed, or -1 if unknown.
+     * @param connectionWaitNanos the time the connection of the statement was waited for.
+     * @param sqlState            the SQL state of the failed execution, or null if it succeeded.
+     */
+    public SqlTrace(long timestampMillis, String correlationId, String sql, String binds, long executionNanos,
+                    long rows, long connectionWaitNanos, String sqlState) {
+        this.timestampMillis = timestampMillis;
+        this.correlationId = correlationId;
+        this.sql = sql;
+        this.binds = binds;
+        this.executionNanos = executionNanos;
+        this.rows = rows;
+        this.connectionWaitNanos = connectionWaitNanos;
+        this.sqlState = sqlState;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getBinds() {
+        return binds;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    public boolean isSuccess() {
+        return sqlState == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f ms (connection wait %.3f ms, %d rows) [%s] %s %s%s",
+                executionNanos / 1e6, connectionWaitNanos / 1e6, rows, correlationId, sql, binds,
+                (sqlState == null) ? "" : " failed with SQLState " + sqlState);
+    }
+}
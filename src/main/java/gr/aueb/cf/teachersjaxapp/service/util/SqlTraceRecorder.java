@@ -0,0 +1,88 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the most recent {@link SqlTrace}s in a ring buffer of
+ * 'trace.bufferSize' entries, for '/api/admin/traces', and writes the
+ * statements that ran longer than 'trace.slowQueryMillis' to the slow
+ * query log (the java.util.logging logger 'teachersjaxapp.slowQueries').
+ * Recording is lock-free; under a high rate of statements the oldest
+ * traces are overwritten first.
+ *
+ * @author Thanasis Chousiadas
+ */
+@ApplicationScoped
+public class SqlTraceRecorder {
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("teachersjaxapp.slowQueries");
+
+    private final boolean enabled = ConfigUtil.getBoolean("trace.enabled", true);
+    private final int capacity = Math.max(1, ConfigUtil.getInt("trace.bufferSize", 1000));
+    private final long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(ConfigUtil.getLong("trace.slowQueryMillis", 200));
+
+    private final AtomicReferenceArray<SqlTrace> traces = new AtomicReferenceArray<>(capacity);
+    private final AtomicLong recorded = new AtomicLong();
+    private final LongAdder slowQueries = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the trace of an executed statement.
+     *
+     * @param trace the {@link SqlTrace}.
+     */
+    public void record(SqlTrace trace) {
+        traces.set((int) (recorded.getAndIncrement() % capacity), trace);
+
+        if (trace.getExecutionNanos() >= slowQueryNanos) {
+            slowQueries.increment();
+            SLOW_QUERY_LOG.warning("Slow SQL " + trace);
+        }
+    }
+
+    /**
+     * Returns the most recent traces, newest first.
+     *
+     * @param limit         the maximum number of traces.
+     * @param correlationId the correlation id of the traces, or null for all.
+     * @param slowOnly      whether only the slow statements are returned.
+     * @return the matching traces.
+     */
+    public List<SqlTrace> getRecent(int limit, String correlationId, boolean slowOnly) {
+        List<SqlTrace> result = new ArrayList<>();
+        long last = recorded.get();
+        for (long i = last - 1; i >= Math.max(0, last - capacity) && result.size() < limit; i--) {
+            SqlTrace trace = traces.get((int) (i % capacity));
+            if (trace == null) continue;
+            if (correlationId != null && !correlationId.equals(trace.getCorrelationId())) continue;
+            if (slowOnly && trace.getExecutionNanos() < slowQueryNanos) continue;
+            result.add(trace);
+        }
+        return result;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getSlowQueries() {
+        return slowQueries.sum();
+    }
+}
@@ -0,0 +1,20 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+/**
+ * Listener that is notified after every execution of a
+ * prepared statement on a connection of the pool.
+ *
+ * @author Thanasis Chousiadas
+ */
+@FunctionalInterface
+public interface StatementListener {
+
+    /**
+     * Called after a statement has been executed.
+     *
+     * @param sql      the SQL text of the statement.
+     * @param nanos    the execution time in nanoseconds.
+     * @param success  false if the execution threw an exception.
+     */
+    void onStatement(String sql, long nanos, boolean success);
+}
@@ -0,0 +1,229 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dynamic proxy of a pooled {@link Connection} whose prepared
+ * statements report the duration of every execution to a
+ * {@link StatementListener} and, if tracing is enabled, record
+ * a {@link SqlTrace} of it. The trace of a query is recorded when
+ * its {@link ResultSet} is closed, once its rows have been counted.
+ *
+ * @author Thanasis Chousiadas
+ */
+class TimedConnectionHandler implements InvocationHandler {
+    private final Connection connection;
+    private final StatementListener listener;
+    private final SqlTraceRecorder recorder;
+    private final long waitNanos;
+
+    private TimedConnectionHandler(Connection connection, StatementListener listener,
+                                   SqlTraceRecorder recorder, long waitNanos) {
+        this.connection = connection;
+        this.listener = listener;
+        this.recorder = recorder;
+        this.waitNanos = waitNanos;
+    }
+
+    /**
+     * Wraps a borrowed connection.
+     *
+     * @param connection the pooled {@link Connection}.
+     * @param listener   the {@link StatementListener}, or null.
+     * @param recorder   the {@link SqlTraceRecorder}, or null if tracing is disabled.
+     * @param waitNanos  the time the connection was waited for.
+     * @return the proxy of the connection.
+     */
+    static Connection wrap(Connection connection, StatementListener listener,
+                           SqlTraceRecorder recorder, long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new TimedConnectionHandler(connection, listener, recorder, waitNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result = invokeTarget(connection, method, args);
+
+        if (result instanceof PreparedStatement && "prepareStatement".equals(method.getName())) {
+            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new TimedStatementHandler((PreparedStatement) result, (String) args[0], this));
+        }
+        return result;
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Dynamic proxy of a {@link PreparedStatement} that times its executions
+     * and keeps the types of its bind parameters for the traces.
+     */
+    private static class TimedStatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String sql;
+        private final TimedConnectionHandler connection;
+        private final Map<Integer, String> binds = new TreeMap<>();
+        private String batchBinds;
+        private int batchSize;
+        private PendingTrace pending;
+
+        private TimedStatementHandler(PreparedStatement statement, String sql, TimedConnectionHandler connection) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (connection.recorder != null) {
+                track(name, args);
+            }
+            if (!name.startsWith("execute") || (args != null && args.length > 0)) {
+                return invokeTarget(statement, method, args);
+            }
+
+            // A new execution closes the result set of the previous one
+            recordPending();
+            String shape = (batchSize > 0) ? batchBinds + " x " + batchSize : shape(binds);
+            long start = System.nanoTime();
+            String sqlState = null;
+            Object result = null;
+            try {
+                result = invokeTarget(statement, method, args);
+                return (result instanceof ResultSet && connection.recorder != null)
+                        ? countRows((ResultSet) result, start, shape)
+                        : result;
+            } catch (SQLException e) {
+                sqlState = (e.getSQLState() == null) ? "unknown" : e.getSQLState();
+                throw e;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                if (connection.listener != null) {
+                    connection.listener.onStatement(sql, nanos, sqlState == null);
+                }
+                if ("executeBatch".equals(name)) batchSize = 0;
+                if (connection.recorder != null && pending == null) {
+                    connection.recorder.record(new SqlTrace(System.currentTimeMillis(), CorrelationId.current(),
+                            sql, shape, nanos, rows(result), connection.waitNanos, sqlState));
+                }
+            }
+        }
+
+        private void track(String name, Object[] args) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                binds.put((Integer) args[0], ("setNull".equals(name) || args[1] == null)
+                        ? "null"
+                        : args[1].getClass().getSimpleName());
+            } else if ("clearParameters".equals(name)) {
+                binds.clear();
+            } else if ("addBatch".equals(name) && (args == null || args.length == 0)) {
+                if (batchSize++ == 0) batchBinds = shape(binds);
+            } else if ("clearBatch".equals(name)) {
+                batchSize = 0;
+            } else if ("close".equals(name)) {
+                recordPending();
+            }
+        }
+
+        private ResultSet countRows(ResultSet resultSet, long start, String shape) {
+            PendingTrace trace = new PendingTrace(System.currentTimeMillis(), CorrelationId.current(),
+                    System.nanoTime() - start, shape);
+            pending = trace;
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class },
+                    (proxy, method, args) -> {
+                        Object result = invokeTarget(resultSet, method, args);
+                        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                            trace.rows++;
+                        } else if ("close".equals(method.getName()) && pending == trace) {
+                            recordPending();
+                        }
+                        return result;
+                    });
+        }
+
+        private void recordPending() {
+            PendingTrace trace = pending;
+            if (trace == null) return;
+            pending = null;
+            connection.recorder.record(new SqlTrace(trace.timestampMillis, trace.correlationId, sql,
+                    trace.binds, trace.executionNanos, trace.rows, connection.waitNanos, null));
+        }
+
+        private static long rows(Object result) {
+            if (result instanceof Integer) return (Integer) result;
+            if (result instanceof Long) return (Long) result;
+            if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    if (count > 0) rows += count;
+                }
+                return rows;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the types of the bind parameters, with the runs of
+         * one type collapsed, e.g. '(String, Long x 3)' for an IN list.
+         */
+        private static String shape(Map<Integer, String> binds) {
+            StringBuilder shape = new StringBuilder("(");
+            String previous = null;
+            int run = 0;
+            for (String type : binds.values()) {
+                if (type.equals(previous)) {
+                    run++;
+                    continue;
+                }
+                appendRun(shape, previous, run);
+                previous = type;
+                run = 1;
+            }
+            appendRun(shape, previous, run);
+            return shape.append(')').toString();
+        }
+
+        private static void appendRun(StringBuilder shape, String type, int run) {
+            if (type == null) return;
+            if (shape.length() > 1) shape.append(", ");
+            shape.append(type);
+            if (run > 1) shape.append(" x ").append(run);
+        }
+    }
+
+    /**
+     * The trace of a query whose rows are still being read.
+     */
+    private static class PendingTrace {
+        private final long timestampMillis;
+        private final String correlationId;
+        private final long executionNanos;
+        private final String binds;
+        private long rows;
+
+        private PendingTrace(long timestampMillis, String correlationId, long executionNanos, String binds) {
+            this.timestampMillis = timestampMillis;
+            this.correlationId = correlationId;
+            this.executionNanos = executionNanos;
+            this.binds = binds;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+import gr.aueb.cf.teachersjaxapp.service.util.ReplicaDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingTeacherDAOTest {
+    private DataSource dataSource;
+    private TeacherCache cache;
+    private PausingTeacherDAO database;
+    private CachingTeacherDAO dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        cache = new TeacherCache(true, 100, Duration.ofMinutes(5));
+        database = new PausingTeacherDAO(dataSource);
+        dao = new CachingTeacherDAO(database, cache);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() throws Exception {
+        long id = database.insert(new Teacher(null, "Anna", "Andreou")).getId();
+
+        assertEquals("Anna", dao.getById(id).getFirstname());
+        TestDatabase.execute(dataSource, "DELETE FROM TEACHERS");
+        assertEquals("Anna", dao.getById(id).getFirstname());
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void cachesTheInsertedAndInvalidatesTheUpdatedTeachers() throws TeacherDAOException {
+        Teacher inserted = dao.insert(new Teacher(null, "Anna", "Andreou"));
+        assertEquals("Anna", cache.peek(inserted.getId()).getFirstname());
+
+        dao.update(new Teacher(inserted.getId(), "Anna-Maria", "Andreou"));
+        assertNull(cache.peek(inserted.getId()));
+        assertEquals("Anna-Maria", dao.getById(inserted.getId()).getFirstname());
+
+        dao.delete(inserted.getId());
+        assertNull(cache.peek(inserted.getId()));
+        assertNull(dao.getById(inserted.getId()));
+    }
+
+    @Test
+    void invalidatesTheTeachersOfBulkWrites() throws TeacherDAOException {
+        Teacher first = dao.insert(new Teacher(null, "Anna", "Andreou"));
+        Teacher second = dao.insert(new Teacher(null, "Nikos", "Nikolaou"));
+
+        dao.updateAll(List.of(new Teacher(first.getId(), "Anna-Maria", "Andreou")));
+        assertNull(cache.peek(first.getId()));
+        assertEquals("Anna-Maria", dao.getById(first.getId()).getFirstname());
+
+        dao.deleteAll(List.of(first.getId(), second.getId()));
+        assertNull(cache.peek(first.getId()));
+        assertNull(cache.peek(second.getId()));
+    }
+
+    @Test
+    void fillsTheCacheFromBulkLookups() throws TeacherDAOException {
+        long first = database.insert(new Teacher(null, "Anna", "Andreou")).getId();
+        long second = database.insert(new Teacher(null, "Nikos", "Nikolaou")).getId();
+
+        List<Teacher> teachers = dao.getByIds(List.of(second, first));
+
+        assertEquals(List.of(first, second), List.of(teachers.get(0).getId(), teachers.get(1).getId()));
+        assertEquals("Nikos", cache.peek(second).getFirstname());
+    }
+
+    @Test
+    void bypassesTheCacheWhenThePrimaryIsRequired() throws Exception {
+        long id = database.insert(new Teacher(null, "Old", "Andreou")).getId();
+        assertEquals("Old", dao.getById(id).getFirstname());
+        TestDatabase.execute(dataSource, "UPDATE TEACHERS SET FIRSTNAME = 'New' WHERE ID = " + id);
+
+        ReadConsistency previous = ReadConsistency.bind(new ReadConsistency(true));
+        try {
+            assertEquals("New", dao.getById(id).getFirstname());
+            assertEquals("New", dao.getByIds(List.of(id)).get(0).getFirstname());
+        } finally {
+            ReadConsistency.bind(previous);
+        }
+    }
+
+    @Test
+    void fillsTheCacheOnlyFromThePrimary() throws Exception {
+        InstrumentedDataSource primary = TestDatabase.createPool();
+        InstrumentedDataSource replica = TestDatabase.createPool();
+        dao = new CachingTeacherDAO(new TeacherDAOImpl(primary, new ReplicaDataSource(primary, List.of(replica), false)),
+                cache);
+        TestDatabase.execute(primary, "INSERT INTO TEACHERS VALUES (1, 'New', 'Andreou'), (2, 'New', 'Nikolaou')");
+        // The replica has not received the last update yet
+        TestDatabase.execute(replica, "INSERT INTO TEACHERS VALUES (1, 'Old', 'Andreou'), (2, 'Old', 'Nikolaou')");
+        long replicaReads = replica.getBorrowCount();
+
+        assertEquals("New", dao.getById(1).getFirstname());
+        assertEquals("New", cache.peek(1).getFirstname());
+        assertEquals("New", dao.getByIds(List.of(2L)).get(0).getFirstname());
+        assertEquals("New", cache.peek(2).getFirstname());
+        assertEquals(replicaReads, replica.getBorrowCount());
+    }
+
+    @Test
+    void doesNotCacheARowReadBeforeAConcurrentUpdate() throws Exception {
+        long id = database.insert(new Teacher(null, "Old", "Andreou")).getId();
+
+        Teacher read = readWhile(id, () -> dao.update(new Teacher(id, "New", "Andreou")));
+
+        assertEquals("Old", read.getFirstname());
+        assertEquals("New", dao.getById(id).getFirstname());
+    }
+
+    @Test
+    void doesNotCacheARowReadBeforeAConcurrentDelete() throws Exception {
+        long id = database.insert(new Teacher(null, "Old", "Andreou")).getId();
+
+        readWhile(id, () -> dao.delete(id));
+
+        assertNull(cache.peek(id));
+        assertNull(dao.getById(id));
+    }
+
+    @Test
+    void keepsTheLastCommittedRowOfConcurrentUpdates() throws Exception {
+        long id = database.insert(new Teacher(null, "Old", "Andreou")).getId();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            database.pauseUpdate();
+            Future<Teacher> first = executor.submit(() -> dao.update(new Teacher(id, "First", "Andreou")));
+            assertTrue(database.held.await(5, TimeUnit.SECONDS));
+
+            // Committed after the first update, but returns before it
+            dao.update(new Teacher(id, "Second", "Andreou"));
+            database.resume.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Second", dao.getById(id).getFirstname());
+        assertEquals("Second", dao.getById(id).getFirstname());
+    }
+
+    /**
+     * Looks the teacher up through the cache on another thread, and runs
+     * the write after the lookup has read the row but before it fills the cache.
+     */
+    private Teacher readWhile(long id, Write write) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            database.pause();
+            Future<Teacher> lookup = executor.submit(() -> dao.getById(id));
+            assertTrue(database.held.await(5, TimeUnit.SECONDS));
+
+            write.run();
+            database.resume.countDown();
+            return lookup.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws TeacherDAOException;
+    }
+
+    /**
+     * A DAO whose lookups by id can be held after the row has been read,
+     * and whose updates can be held after the row has been written.
+     */
+    private static class PausingTeacherDAO extends TeacherDAOImpl {
+        private volatile boolean paused;
+        private volatile boolean pausedUpdate;
+        private CountDownLatch held;
+        private CountDownLatch resume;
+
+        PausingTeacherDAO(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        void pause() {
+            held = new CountDownLatch(1);
+            resume = new CountDownLatch(1);
+            paused = true;
+        }
+
+        void pauseUpdate() {
+            held = new CountDownLatch(1);
+            resume = new CountDownLatch(1);
+            pausedUpdate = true;
+        }
+
+        @Override
+        public Teacher getById(long id) throws TeacherDAOException {
+            Teacher teacher = super.getById(id);
+            if (paused) {
+                paused = false;
+                hold();
+            }
+            return teacher;
+        }
+
+        @Override
+        public Teacher update(Teacher teacher, Teacher expected) throws TeacherDAOException {
+            Teacher updated = super.update(teacher, expected);
+            if (pausedUpdate) {
+                pausedUpdate = false;
+                hold();
+            }
+            return updated;
+        }
+
+        private void hold() {
+            held.countDown();
+            try {
+                resume.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherBatchException;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherDAOImplTest {
+    private DataSource dataSource;
+    private TeacherDAOImpl dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        dao = new TeacherDAOImpl(dataSource);
+    }
+
+    @Test
+    void pagesThroughTheLastnamesWithACursor() throws TeacherDAOException {
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Two teachers per lastname, so the pages also split rows with equal lastnames
+            teachers.add(new Teacher(null, "First" + i, "Pappas" + (i / 2)));
+        }
+        dao.insertAll(teachers);
+        dao.insert(new Teacher(null, "Other", "Andreou"));
+
+        List<String> seen = new ArrayList<>();
+        TeacherCursor after = null;
+        List<Teacher> page;
+        do {
+            page = dao.getByLastname("Pap", after, 3);
+            assertTrue(page.size() <= 3);
+            for (Teacher teacher : page) seen.add(teacher.getFirstname());
+            if (!page.isEmpty()) {
+                Teacher last = page.get(page.size() - 1);
+                after = new TeacherCursor(last.getLastname(), last.getId());
+            }
+        } while (page.size() == 3);
+
+        assertEquals(List.of("First0", "First1", "First2", "First3", "First4", "First5", "First6"), seen);
+    }
+
+    @Test
+    void reportsTheDuplicateRowInTheMiddleOfABatch() throws Exception {
+        TestDatabase.execute(dataSource, "CREATE UNIQUE INDEX TEACHERS_LASTNAME ON TEACHERS (LASTNAME)");
+        dao.insert(new Teacher(null, "Nikos", "Nikolaou"));
+        dao = new TeacherDAOImpl(rewritingBatches(dataSource));
+
+        TeacherBatchException e = assertThrows(TeacherBatchException.class, () -> dao.insertAll(List.of(
+                new Teacher(null, "Anna", "Andreou"),
+                new Teacher(null, "Nikos", "Nikolaou"),
+                new Teacher(null, "Maria", "Marinou"))));
+
+        assertEquals(Set.of(1), e.getRowErrors().keySet());
+        assertEquals(1, dao.getByLastname("").size());
+    }
+
+    @Test
+    void reportsTheDuplicateUpdateInTheMiddleOfABatch() throws Exception {
+        TestDatabase.execute(dataSource, "CREATE UNIQUE INDEX TEACHERS_LASTNAME ON TEACHERS (LASTNAME)");
+        List<Teacher> teachers = dao.insertAll(List.of(
+                new Teacher(null, "Anna", "Andreou"),
+                new Teacher(null, "Nikos", "Nikolaou"),
+                new Teacher(null, "Maria", "Marinou")));
+        dao = new TeacherDAOImpl(rewritingBatches(dataSource));
+
+        TeacherBatchException e = assertThrows(TeacherBatchException.class, () -> dao.updateAll(List.of(
+                new Teacher(teachers.get(0).getId(), "Anna", "Andreou-Papa"),
+                new Teacher(teachers.get(1).getId(), "Nikos", "Marinou"),
+                new Teacher(teachers.get(2).getId(), "Maria", "Marinou-Papa"))));
+
+        assertEquals(Set.of(1), e.getRowErrors().keySet());
+        assertEquals("Andreou", dao.getById(teachers.get(0).getId()).getLastname());
+        assertTrue(dao.getByLastname("Andreou-").isEmpty());
+    }
+
+    @Test
+    void updatesTheFoundTeachersAndSkipsTheMissingIds() throws TeacherDAOException {
+        List<Teacher> teachers = dao.insertAll(List.of(
+                new Teacher(null, "Anna", "Andreou"),
+                new Teacher(null, "Nikos", "Nikolaou")));
+
+        List<Teacher> updated = dao.updateAll(List.of(
+                new Teacher(teachers.get(1).getId(), "Nikos", "Nikolaidis"),
+                new Teacher(999L, "Nobody", "Missing"),
+                new Teacher(teachers.get(0).getId(), "Anna", "Andreadi")));
+
+        assertEquals(List.of(teachers.get(1).getId(), teachers.get(0).getId()), ids(updated));
+        assertEquals("Andreadi", dao.getById(teachers.get(0).getId()).getLastname());
+        assertEquals("Nikolaidis", dao.getById(teachers.get(1).getId()).getLastname());
+        assertTrue(dao.getByLastname("Missing").isEmpty());
+    }
+
+    @Test
+    void deletesTheFoundTeachersWithPaddedInLists() throws Exception {
+        InstrumentedDataSource pool = TestDatabase.createPool();
+        List<String> statements = new ArrayList<>();
+        pool.setStatementListener((sql, nanos, success) -> statements.add(sql));
+        dao = new TeacherDAOImpl(pool);
+        List<Teacher> teachers = dao.insertAll(List.of(
+                new Teacher(null, "Anna", "Andreou"),
+                new Teacher(null, "Nikos", "Nikolaou"),
+                new Teacher(null, "Maria", "Marinou")));
+        statements.clear();
+
+        // Three distinct ids, one of them missing, are padded to an IN list of four
+        List<Teacher> deleted = dao.deleteAll(List.of(teachers.get(2).getId(), 999L,
+                teachers.get(0).getId(), teachers.get(2).getId()));
+
+        assertEquals(List.of(teachers.get(0).getId(), teachers.get(2).getId()), ids(deleted));
+        assertEquals(List.of(teachers.get(1).getId()), ids(dao.getByLastname("")));
+        assertEquals(List.of(
+                "SELECT ID, FIRSTNAME, LASTNAME FROM TEACHERS WHERE ID IN (?, ?, ?, ?) ORDER BY ID FOR UPDATE",
+                "DELETE FROM TEACHERS WHERE ID IN (?, ?, ?, ?)"), statements.subList(0, 2));
+        assertTrue(dao.deleteAll(List.of()).isEmpty());
+        pool.close();
+    }
+
+    private static List<Long> ids(List<Teacher> teachers) {
+        List<Long> ids = new ArrayList<>(teachers.size());
+        for (Teacher teacher : teachers) ids.add(teacher.getId());
+        return ids;
+    }
+
+    /**
+     * Fails a batch as a whole, like Connector/J with 'rewriteBatchedStatements',
+     * which sends the batch as one multi-row statement.
+     */
+    private static DataSource rewritingBatches(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return (result instanceof Connection) ? rewritingBatches((Connection) result) : result;
+                });
+    }
+
+    private static Connection rewritingBatches(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return (result instanceof PreparedStatement) ? rewritingBatches((PreparedStatement) result) : result;
+                });
+    }
+
+    private static PreparedStatement rewritingBatches(PreparedStatement ps) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    try {
+                        return invoke(ps, method, args);
+                    } catch (BatchUpdateException e) {
+                        int[] counts = new int[e.getUpdateCounts().length];
+                        Arrays.fill(counts, Statement.EXECUTE_FAILED);
+                        throw new BatchUpdateException(e.getMessage(), counts, e);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package gr.aueb.cf.teachersjaxapp.dao;
+
+import gr.aueb.cf.teachersjaxapp.service.util.InstrumentedDataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * A fresh in-memory H2 database in MySQL mode with an
+ * empty TEACHERS table, for the tests of the DAOs.
+ *
+ * @author Thanasis Chousiadas
+ */
+public class TestDatabase {
+
+    /**
+     * No instances of this class should be available.
+     */
+    private TestDatabase() { }
+
+    /**
+     * Creates a database that lives until the JVM exits.
+     *
+     * @return the {@link DataSource} of the database.
+     * @throws SQLException if the table cannot be created.
+     */
+    public static DataSource create() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        execute(dataSource, "CREATE TABLE TEACHERS (ID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "FIRSTNAME VARCHAR(52) NOT NULL, LASTNAME VARCHAR(52) NOT NULL)");
+        return dataSource;
+    }
+
+    /**
+     * Creates a database behind an instrumented connection pool,
+     * e.g. to route its reads with a ReplicaDataSource.
+     *
+     * @return the pool of the database.
+     * @throws SQLException if the table cannot be created.
+     */
+    public static InstrumentedDataSource createPool() throws SQLException {
+        JdbcDataSource database = (JdbcDataSource) create();
+
+        BasicDataSource pool = new BasicDataSource();
+        pool.setUrl(database.getURL());
+        return new InstrumentedDataSource(pool);
+    }
+
+    /**
+     * Executes a DDL or DML statement, e.g. to add a constraint.
+     *
+     * @param dataSource the database.
+     * @param sql        the statement.
+     * @throws SQLException if the statement fails.
+     */
+    public static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package gr.aueb.cf.teachersjaxapp.dao.cache;
+
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherCacheTest {
+
+    @Test
+    void countsHitsAndMisses() {
+        TeacherCache cache = new TeacherCache(true, 10, Duration.ofMinutes(5));
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+
+        assertEquals("Anna", cache.get(1).getFirstname());
+        assertNull(cache.get(2));
+        assertEquals("Anna", cache.peek(1).getFirstname());
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void returnsCopiesOfTheCachedTeachers() {
+        TeacherCache cache = new TeacherCache(true, 10, Duration.ofMinutes(5));
+        Teacher teacher = new Teacher(1L, "Anna", "Andreou");
+        cache.put(teacher);
+        teacher.setFirstname("Changed");
+
+        Teacher cached = cache.get(1);
+        cached.setFirstname("Changed again");
+
+        assertNotSame(teacher, cached);
+        assertEquals("Anna", cache.get(1).getFirstname());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() throws InterruptedException {
+        TeacherCache cache = new TeacherCache(true, 10, Duration.ofMillis(20));
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+
+        Thread.sleep(50);
+
+        assertNull(cache.peek(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        TeacherCache cache = new TeacherCache(true, 2, Duration.ofMinutes(5));
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+        cache.put(new Teacher(2L, "Nikos", "Nikolaou"));
+        cache.get(1);
+        cache.put(new Teacher(3L, "Maria", "Pappas"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals("Anna", cache.peek(1).getFirstname());
+        assertNull(cache.peek(2));
+        assertEquals("Maria", cache.peek(3).getFirstname());
+    }
+
+    @Test
+    void invalidatesEntries() {
+        TeacherCache cache = new TeacherCache(true, 10, Duration.ofMinutes(5));
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+        cache.put(new Teacher(2L, "Nikos", "Nikolaou"));
+
+        cache.invalidate(1);
+        assertNull(cache.peek(1));
+        assertEquals("Nikos", cache.peek(2).getFirstname());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void refusesAFillThatStartedBeforeAWriteOfTheSameTeacher() {
+        TeacherCache cache = new TeacherCache(true, 10, Duration.ofMinutes(5));
+        long stamp = cache.stamp();
+
+        cache.put(new Teacher(1L, "New", "Andreou"));
+        assertFalse(cache.putIfUnchanged(new Teacher(1L, "Old", "Andreou"), stamp));
+        assertEquals("New", cache.peek(1).getFirstname());
+
+        cache.invalidate(2);
+        assertFalse(cache.putIfUnchanged(new Teacher(2L, "Old", "Nikolaou"), stamp));
+        assertNull(cache.peek(2));
+
+        // Other teachers are not affected
+        assertTrue(cache.putIfUnchanged(new Teacher(3L, "Maria", "Pappas"), stamp));
+        assertTrue(cache.putIfUnchanged(new Teacher(1L, "New", "Andreou"), cache.stamp()));
+    }
+
+    @Test
+    void refusesOldFillsOnceTheWritesOfTheirTeachersAreForgotten() {
+        TeacherCache cache = new TeacherCache(true, 2, Duration.ofMinutes(5));
+        long stamp = cache.stamp();
+
+        cache.invalidate(1);
+        cache.invalidate(2);
+        cache.invalidate(3);
+
+        // The write of id 1 is no longer tracked, so any fill older than it is refused
+        assertFalse(cache.putIfUnchanged(new Teacher(1L, "Old", "Andreou"), stamp));
+        assertFalse(cache.putIfUnchanged(new Teacher(4L, "Maria", "Pappas"), stamp));
+        assertTrue(cache.putIfUnchanged(new Teacher(4L, "Maria", "Pappas"), cache.stamp()));
+    }
+
+    @Test
+    void keepsNothingWhenDisabled() {
+        TeacherCache cache = new TeacherCache(false, 10, Duration.ofMinutes(5));
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+
+        assertNull(cache.get(1));
+        assertFalse(cache.putIfUnchanged(new Teacher(1L, "Anna", "Andreou"), cache.stamp()));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,25 @@
+package gr.aueb.cf.teachersjaxapp.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherRestResourceTest {
+
+    @Test
+    void parsesCommaSeparatedAndRepeatedIds() {
+        assertEquals(List.of(3L, 1L, 2L), List.copyOf(TeacherRestResource.parseIds(List.of("3, 1", "2,,3", " "))));
+    }
+
+    @Test
+    void rejectsAllTheIdsIfOneIsNotANumber() {
+        Set<Long> ids = TeacherRestResource.parseIds(List.of("1,2", "x"));
+
+        assertTrue(ids.isEmpty());
+        assertTrue(TeacherRestResource.parseIds(List.of()).isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import gr.aueb.cf.teachersjaxapp.rest.limit.AdaptiveConcurrencyLimiter;
+import gr.aueb.cf.teachersjaxapp.rest.limit.ConcurrencyLimited;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitFilterTest {
+    private final Map<String, Object> properties = new HashMap<>();
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("limit.concurrency.initial", "8");
+        // Every measured request is slow, so it cuts the limit
+        System.setProperty("limit.concurrency.latencyMillis", "0");
+        System.setProperty("limit.concurrency.backoffRatio", "0.5");
+        limiter = new AdaptiveConcurrencyLimiter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("limit.concurrency.initial");
+        System.clearProperty("limit.concurrency.latencyMillis");
+        System.clearProperty("limit.concurrency.backoffRatio");
+    }
+
+    @Test
+    void holdsTheSlotOfAStreamedBodyUntilItIsWritten() throws Exception {
+        ConcurrencyLimitFilter filter = filterOf("measured");
+        StreamingOutput body = output -> { };
+
+        filter.filter(request());
+        filter.filter(request(), response(200, body));
+        assertEquals(1, limiter.getInFlight());
+
+        filter.aroundWriteTo(writer(() -> assertEquals(1, limiter.getInFlight())));
+        assertEquals(0, limiter.getInFlight());
+        // A streamed body takes as long as its data, so it does not count as slow
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void freesTheSlotOfABodyThatFailsToBeWritten() throws Exception {
+        ConcurrencyLimitFilter filter = filterOf("unmeasured");
+
+        filter.filter(request());
+        filter.filter(request(), response(200, "body"));
+        assertThrows(IOException.class, () -> filter.aroundWriteTo(writer(() -> {
+            throw new IOException("Broken pipe");
+        })));
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void measuresOnlyTheMeasuredMethods() throws Exception {
+        ConcurrencyLimitFilter unmeasured = filterOf("unmeasured");
+        unmeasured.filter(request());
+        unmeasured.filter(request(), response(204, null));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(8, limiter.getLimit());
+
+        properties.clear();
+        ConcurrencyLimitFilter measured = filterOf("measured");
+        measured.filter(request());
+        measured.filter(request(), response(204, null));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    private ConcurrencyLimitFilter filterOf(String methodName) throws NoSuchMethodException {
+        Method method = Resource.class.getDeclaredMethod(methodName);
+        ResourceInfo resourceInfo = proxy(ResourceInfo.class, (name, args) ->
+                name.equals("getResourceMethod") ? method : null);
+        return new ConcurrencyLimitFilter(limiter, resourceInfo);
+    }
+
+    private ContainerRequestContext request() {
+        return proxy(ContainerRequestContext.class, this::properties);
+    }
+
+    private static ContainerResponseContext response(int status, Object entity) {
+        return proxy(ContainerResponseContext.class, (name, args) -> {
+            switch (name) {
+                case "getStatus":
+                    return status;
+                case "hasEntity":
+                    return entity != null;
+                case "getEntity":
+                    return entity;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private WriterInterceptorContext writer(Body body) {
+        return proxy(WriterInterceptorContext.class, (name, args) -> {
+            if (name.equals("proceed")) {
+                body.write();
+                return null;
+            }
+            return properties(name, args);
+        });
+    }
+
+    private Object properties(String name, Object[] args) {
+        switch (name) {
+            case "getProperty":
+                return properties.get((String) args[0]);
+            case "setProperty":
+                return properties.put((String) args[0], args[1]);
+            case "removeProperty":
+                return properties.remove((String) args[0]);
+            case "getMethod":
+                return "GET";
+            default:
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args));
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args) throws Exception;
+    }
+
+    private interface Body {
+        void write() throws IOException;
+    }
+
+    private static class Resource {
+        @ConcurrencyLimited
+        void measured() { }
+
+        @ConcurrencyLimited(measured = false)
+        void unmeasured() { }
+    }
+}
@@ -0,0 +1,32 @@
+package gr.aueb.cf.teachersjaxapp.rest.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+    private static final Set<String> PROXIES = RateLimitFilter.addresses("10.0.0.1, 10.0.0.2");
+
+    @Test
+    void ignoresTheHeadersOfAnUntrustedClient() {
+        assertEquals("203.0.113.7", RateLimitFilter.clientOf("203.0.113.7", "key-1", "198.51.100.1", PROXIES));
+        assertEquals("203.0.113.7", RateLimitFilter.clientOf("203.0.113.7", null, null, Set.of()));
+        assertEquals("unknown", RateLimitFilter.clientOf(null, "key-1", null, PROXIES));
+    }
+
+    @Test
+    void trustsTheClientHeaderOfAProxy() {
+        assertEquals("key-1", RateLimitFilter.clientOf("10.0.0.1", " key-1 ", "198.51.100.1", PROXIES));
+    }
+
+    @Test
+    void takesTheLastUntrustedForwardedAddress() {
+        // The client made up the first address, the trusted proxies appended the rest
+        assertEquals("198.51.100.1",
+                RateLimitFilter.clientOf("10.0.0.1", null, "1.2.3.4, 198.51.100.1, 10.0.0.2", PROXIES));
+        assertEquals("10.0.0.2", RateLimitFilter.clientOf("10.0.0.1", null, "10.0.0.2", PROXIES));
+        assertEquals("10.0.0.1", RateLimitFilter.clientOf("10.0.0.1", "", " ", PROXIES));
+    }
+}
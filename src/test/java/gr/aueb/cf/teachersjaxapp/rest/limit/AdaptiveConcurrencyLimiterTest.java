@@ -0,0 +1,94 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("limit.concurrency.initial", "4");
+        System.setProperty("limit.concurrency.min", "2");
+        System.setProperty("limit.concurrency.max", "5");
+        System.setProperty("limit.concurrency.latencyMillis", "100");
+        System.setProperty("limit.concurrency.backoffRatio", "0.5");
+        limiter = new AdaptiveConcurrencyLimiter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("limit.concurrency.initial");
+        System.clearProperty("limit.concurrency.min");
+        System.clearProperty("limit.concurrency.max");
+        System.clearProperty("limit.concurrency.latencyMillis");
+        System.clearProperty("limit.concurrency.backoffRatio");
+    }
+
+    @Test
+    void rejectsRequestsBeyondTheLimit() {
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, limiter.tryAcquire());
+        }
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(4, FAST, false);
+        assertEquals(5, limiter.getLimit());
+        assertEquals(4, limiter.tryAcquire());
+    }
+
+    @Test
+    void growsAfterFastRequestsUnderLoadUpToTheMaximum() {
+        limiter.release(limiter.tryAcquire(), FAST, false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.release(4, FAST, false);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnceForTheSlowRequestsOfTheSameMoment() {
+        int first = limiter.tryAcquire();
+        int second = limiter.tryAcquire();
+        limiter.release(first, SLOW, false);
+        limiter.release(second, FAST, true);
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void neverBacksOffBelowTheMinimum() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            limiter.release(limiter.tryAcquire(), SLOW, false);
+            Thread.sleep(110);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnlyForTheServerErrorsOfUnmeasuredRequests() {
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.releaseUnmeasured(false);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.releaseUnmeasured(true);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+    }
+}
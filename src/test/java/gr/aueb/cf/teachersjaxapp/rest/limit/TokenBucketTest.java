@@ -0,0 +1,59 @@
+package gr.aueb.cf.teachersjaxapp.rest.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsABurstAndThenTellsTheWait() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertTrue(bucket.isFull());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryTake());
+        }
+        long wait = bucket.tryTake();
+
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        assertFalse(bucket.isFull());
+    }
+
+    @Test
+    void refillsAtItsRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+
+        Thread.sleep(20);
+
+        assertTrue(bucket.isFull());
+        assertEquals(0, bucket.tryTake());
+    }
+
+    @Test
+    void handsOutOnlyTheBurstToConcurrentTakers() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.001, 1000);
+        int[] taken = new int[4];
+        Thread[] threads = new Thread[taken.length];
+        for (int t = 0; t < threads.length; t++) {
+            int index = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryTake() == 0) taken[index]++;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        int total = 0;
+        for (int count : taken) total += count;
+        assertEquals(1000, total);
+    }
+}
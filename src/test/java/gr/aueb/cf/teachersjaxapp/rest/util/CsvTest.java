@@ -0,0 +1,74 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvTest {
+
+    @Test
+    void writesPlainValuesAsTheyAre() throws IOException {
+        assertEquals("1,Anna,Andreou\r\n", write("1", "Anna", "Andreou"));
+    }
+
+    @Test
+    void writesNullsAsEmptyValues() throws IOException {
+        assertEquals(",Anna,\r\n", write(null, "Anna", null));
+        assertEquals("\r\n", write(""));
+    }
+
+    @Test
+    void quotesValuesWithSeparatorsQuotesOrLineBreaks() throws IOException {
+        assertEquals("\"Andreou, Anna\"\r\n", write("Andreou, Anna"));
+        assertEquals("\"O\"\"Brien\"\r\n", write("O\"Brien"));
+        assertEquals("\"Anna\nMaria\",\"a\rb\"\r\n", write("Anna\nMaria", "a\rb"));
+    }
+
+    @Test
+    void readsRowsEndingWithCrlfOrLf() throws IOException {
+        BufferedReader reader = reader("1,Anna,Andreou\r\n2,Nikos,Nikolaou\n,,\n3,Eleni,Eleniou");
+
+        assertEquals(List.of("1", "Anna", "Andreou"), Csv.readRow(reader, 100));
+        assertEquals(List.of("2", "Nikos", "Nikolaou"), Csv.readRow(reader, 100));
+        assertEquals(List.of("", "", ""), Csv.readRow(reader, 100));
+        assertEquals(List.of("3", "Eleni", "Eleniou"), Csv.readRow(reader, 100));
+        assertNull(Csv.readRow(reader, 100));
+    }
+
+    @Test
+    void readsQuotedValuesBackAsTheyWereWritten() throws IOException {
+        String[] values = {"Andreou, Anna", "O\"Brien", "Anna\r\nMaria", null, "plain"};
+
+        List<String> row = Csv.readRow(reader(write(values)), 100);
+
+        assertEquals(Arrays.asList("Andreou, Anna", "O\"Brien", "Anna\r\nMaria", "", "plain"), row);
+    }
+
+    @Test
+    void skipsARowLongerThanTheMaximumAndReadsTheNextOne() throws IOException {
+        BufferedReader reader = reader("1,\"a very long,\nquoted value\",x\r\n2,Anna,Andreou\r\n");
+
+        assertThrows(IllegalArgumentException.class, () -> Csv.readRow(reader, 10));
+        assertEquals(List.of("2", "Anna", "Andreou"), Csv.readRow(reader, 100));
+        assertNull(Csv.readRow(reader, 100));
+    }
+
+    private static BufferedReader reader(String input) {
+        return new BufferedReader(new StringReader(input));
+    }
+
+    private static String write(String... values) throws IOException {
+        StringWriter writer = new StringWriter();
+        Csv.writeRow(writer, values);
+        return writer.toString();
+    }
+}
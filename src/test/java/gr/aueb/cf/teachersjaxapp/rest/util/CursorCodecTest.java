@@ -0,0 +1,48 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorCodecTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        TeacherCursor cursor = CursorCodec.decode(CursorCodec.encode(new TeacherCursor("Παπαδόπουλος", 42)));
+
+        assertEquals("Παπαδόπουλος", cursor.getLastname());
+        assertEquals(42, cursor.getId());
+    }
+
+    @Test
+    void keepsSeparatorsInTheLastname() {
+        TeacherCursor cursor = CursorCodec.decode(CursorCodec.encode(new TeacherCursor("a\nb", 7)));
+
+        assertEquals("a\nb", cursor.getLastname());
+        assertEquals(7, cursor.getId());
+    }
+
+    @Test
+    void encodesUrlSafeStringsWithoutPadding() {
+        String value = CursorCodec.encode(new TeacherCursor("Ioannou??>>", 1));
+
+        assertTrue(value.matches("[A-Za-z0-9_-]+"), value);
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(encoded("no separator")));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(encoded("x\nIoannou")));
+    }
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import gr.aueb.cf.teachersjaxapp.dto.TeacherReadOnlyDTO;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.rest.encoding.SmileProvider;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityTagsTest {
+    private static final Teacher TEACHER = new Teacher(1L, "Anna", "Andreou");
+    private static final EntityTag TAG = EntityTags.of(TEACHER);
+
+    @Test
+    void changesTheTagWhenTheTeacherChanges() {
+        assertEquals(TAG, EntityTags.of(new Teacher(1L, "Anna", "Andreou")));
+        assertNotEquals(TAG, EntityTags.of(new Teacher(1L, "Anna", "Andreoy")));
+        assertNotEquals(TAG, EntityTags.of(new Teacher(2L, "Anna", "Andreou")));
+        assertNotEquals(EntityTags.of(new Teacher(1L, "ab", "c")), EntityTags.of(new Teacher(1L, "a", "bc")));
+    }
+
+    @Test
+    void tagsMappedDTOsLikeTheirTeachers() {
+        List<Teacher> teachers = List.of(TEACHER, new Teacher(2L, "Nikos", "Nikolaou"));
+        TeacherReadOnlyDTO first = new TeacherReadOnlyDTO(1L, "Anna", "Andreou");
+        TeacherReadOnlyDTO second = new TeacherReadOnlyDTO(2L, "Nikos", "Nikolaou");
+
+        assertEquals(EntityTags.of(teachers), EntityTags.ofDTOs(List.of(first, second)));
+    }
+
+    @Test
+    void matchesIfNoneMatchWithWeakComparison() {
+        String tag = "\"" + TAG.getValue() + "\"";
+
+        assertTrue(EntityTags.matchesNoneMatch(tag, TAG));
+        assertTrue(EntityTags.matchesNoneMatch("W/" + tag, TAG));
+        assertTrue(EntityTags.matchesNoneMatch("\"other\", " + tag, TAG));
+        assertTrue(EntityTags.matchesNoneMatch("*", TAG));
+        assertFalse(EntityTags.matchesNoneMatch("\"other\"", TAG));
+        assertFalse(EntityTags.matchesNoneMatch(TAG.getValue(), TAG));
+        assertFalse(EntityTags.matchesNoneMatch(null, TAG));
+    }
+
+    @Test
+    void matchesIfMatchWithStrongComparison() {
+        String tag = "\"" + TAG.getValue() + "\"";
+
+        assertTrue(EntityTags.matchesIfMatch(tag, TAG));
+        assertTrue(EntityTags.matchesIfMatch("\"other\" , " + tag, TAG));
+        assertTrue(EntityTags.matchesIfMatch("*", TAG));
+        assertFalse(EntityTags.matchesIfMatch("W/" + tag, TAG));
+        assertFalse(EntityTags.matchesIfMatch("\"other\"", TAG));
+    }
+
+    @Test
+    void matchesTheTagsOfCompressedRepresentations() {
+        EntityTag gzip = EntityTags.encoded(TAG, "gzip");
+
+        assertEquals(TAG.getValue() + "-gzip", gzip.getValue());
+        assertTrue(EntityTags.matchesNoneMatch(gzip.toString(), TAG));
+        assertTrue(EntityTags.matchesNoneMatch("W/\"" + TAG.getValue() + "-deflate\"", TAG));
+        assertTrue(EntityTags.matchesIfMatch(gzip.toString(), TAG));
+        assertFalse(EntityTags.matchesIfMatch("\"" + TAG.getValue() + "-br\"", TAG));
+    }
+
+    @Test
+    void tagsTheSmileRepresentationApartFromTheJsonOne() {
+        EntityTag smile = EntityTags.forMediaType(TAG, SmileProvider.APPLICATION_SMILE_TYPE);
+
+        assertEquals(TAG, EntityTags.forMediaType(TAG, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(TAG.getValue() + "-smile", smile.getValue());
+        assertFalse(EntityTags.matchesNoneMatch(TAG.toString(), smile));
+        assertFalse(EntityTags.matchesNoneMatch(smile.toString(), TAG));
+        assertTrue(EntityTags.matchesNoneMatch(smile.toString(), smile));
+        assertTrue(EntityTags.matchesNoneMatch(EntityTags.encoded(smile, "gzip").toString(), smile));
+        assertFalse(EntityTags.matchesIfMatch(EntityTags.encoded(TAG, "gzip").toString(), smile));
+    }
+}
@@ -0,0 +1,80 @@
+package gr.aueb.cf.teachersjaxapp.rest.util;
+
+import gr.aueb.cf.teachersjaxapp.dto.TeacherInsertDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TeacherImportReaderTest {
+
+    @Test
+    void readsTheNamedColumnsOfACsvExport() throws IOException {
+        try (TeacherImportReader reader = csv("id,lastname,firstname\r\n1,Andreou,Anna\r\n\r\n2,\"Nikolaou, Jr\",Nikos\r\n")) {
+            assertTeacher("Anna", "Andreou", reader.next());
+            assertTeacher("Nikos", "Nikolaou, Jr", reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsACsvFileWithoutTheNameColumns() {
+        assertThrows(IllegalArgumentException.class, () -> csv("id,firstname\r\n1,Anna\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> csv(""));
+    }
+
+    @Test
+    void rejectsACsvRowAndGoesOnWithTheNext() throws IOException {
+        try (TeacherImportReader reader = csv("FirstName,LastName\nAnna\nNikos,Nikolaou\n")) {
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertTeacher("Nikos", "Nikolaou", reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void readsNdjsonIgnoringUnknownFieldsAndBlankLines() throws IOException {
+        try (TeacherImportReader reader = ndjson("{\"id\":1,\"firstname\":\"Anna\",\"lastname\":\"Andreou\"}\r\n"
+                + "\n"
+                + "{\"firstname\":\"Nikos\",\"lastname\":\"Nikolaou\"}")) {
+            assertTeacher("Anna", "Andreou", reader.next());
+            assertTeacher("Nikos", "Nikolaou", reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsMalformedAndTooLongNdjsonLinesAndGoesOn() throws IOException {
+        String tooLong = "{\"firstname\":\"" + "A".repeat(100) + "\",\"lastname\":\"Andreou\"}";
+        try (TeacherImportReader reader = ndjson("{\"firstname\":\n" + "null\n" + tooLong + "\n"
+                + "{\"firstname\":\"Nikos\",\"lastname\":\"Nikolaou\"}\n")) {
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertTeacher("Nikos", "Nikolaou", reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    private static void assertTeacher(String firstname, String lastname, TeacherInsertDTO dto) {
+        assertEquals(firstname, dto.getFirstname());
+        assertEquals(lastname, dto.getLastname());
+    }
+
+    private static TeacherImportReader csv(String file) throws IOException {
+        return new TeacherImportReader(input(file), true, 64);
+    }
+
+    private static TeacherImportReader ndjson(String file) throws IOException {
+        return new TeacherImportReader(input(file), false, 64);
+    }
+
+    private static ByteArrayInputStream input(String file) {
+        return new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,166 @@
+package gr.aueb.cf.teachersjaxapp.service.ingest;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.TestDatabase;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherIngestBufferTest {
+    private static final long NEVER = TimeUnit.MINUTES.toMillis(10);
+
+    private DataSource dataSource;
+    private RecordingTeacherDAO database;
+    private TeacherIngestBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        database = new RecordingTeacherDAO(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.release();
+        if (buffer != null) buffer.stop();
+    }
+
+    @Test
+    void flushesAFullBatchWithoutWaiting() throws Exception {
+        buffer = start(3, NEVER, 10);
+
+        IngestTicket first = buffer.submit(new Teacher(null, "Anna", "Andreou"));
+        IngestTicket second = buffer.submit(new Teacher(null, "Nikos", "Nikolaou"));
+        IngestTicket third = buffer.submit(new Teacher(null, "Maria", "Marinou"));
+
+        assertInserted(first);
+        assertInserted(second);
+        assertInserted(third);
+        assertEquals(List.of(3), database.batchSizes);
+        assertEquals(3, buffer.getInserted());
+    }
+
+    @Test
+    void flushesAPartialBatchAfterTheFlushInterval() throws Exception {
+        buffer = start(100, 50, 10);
+
+        IngestTicket first = buffer.submit(new Teacher(null, "Anna", "Andreou"));
+        IngestTicket second = buffer.submit(new Teacher(null, "Nikos", "Nikolaou"));
+
+        assertInserted(first);
+        assertInserted(second);
+        assertEquals(List.of(2), database.batchSizes);
+    }
+
+    @Test
+    void rejectsTheSubmitsOnceTheQueueIsFull() throws Exception {
+        database.hold();
+        buffer = start(1, NEVER, 2);
+
+        IngestTicket writing = buffer.submit(new Teacher(null, "Anna", "Andreou"));
+        assertTrue(database.entered.await(5, TimeUnit.SECONDS));
+        IngestTicket second = buffer.submit(new Teacher(null, "Nikos", "Nikolaou"));
+        IngestTicket third = buffer.submit(new Teacher(null, "Maria", "Marinou"));
+
+        assertThrows(RejectedExecutionException.class, () -> buffer.submit(new Teacher(null, "Eleni", "Eleniou")));
+        assertEquals(1, buffer.getRejected());
+        assertEquals(2, buffer.getQueued());
+
+        database.release();
+        assertInserted(writing);
+        assertInserted(second);
+        assertInserted(third);
+        assertEquals(3, database.getByLastname("").size());
+    }
+
+    @Test
+    void writesAgainOnlyTheRowsTheDatabaseDidNotReject() throws Exception {
+        TestDatabase.execute(dataSource, "CREATE UNIQUE INDEX TEACHERS_LASTNAME ON TEACHERS (LASTNAME)");
+        database.insert(new Teacher(null, "Nikos", "Nikolaou"));
+        buffer = start(3, NEVER, 10);
+
+        IngestTicket first = buffer.submit(new Teacher(null, "Anna", "Andreou"));
+        IngestTicket duplicate = buffer.submit(new Teacher(null, "Nikos", "Nikolaou"));
+        IngestTicket third = buffer.submit(new Teacher(null, "Maria", "Marinou"));
+
+        assertInserted(first);
+        assertInserted(third);
+        assertEquals(IngestTicket.Status.FAILED, await(duplicate).getStatus());
+        assertNotNull(duplicate.getError());
+        assertEquals(List.of(3, 2), database.batchSizes);
+        assertEquals(2, buffer.getInserted());
+        assertEquals(1, buffer.getFailed());
+        assertEquals(3, database.getByLastname("").size());
+    }
+
+    private TeacherIngestBuffer start(int batchSize, long flushMillis, int queueCapacity) {
+        TeacherIngestBuffer started = new TeacherIngestBuffer(database, batchSize, flushMillis, queueCapacity);
+        started.start();
+        return started;
+    }
+
+    private void assertInserted(IngestTicket ticket) throws Exception {
+        assertEquals(IngestTicket.Status.INSERTED, await(ticket).getStatus(), ticket.getError());
+        assertNotNull(database.getById(ticket.getTeacherId()));
+    }
+
+    private static IngestTicket await(IngestTicket ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ticket.getStatus() == IngestTicket.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return ticket;
+    }
+
+    /**
+     * A DAO that records the size of every batch insert and can hold
+     * the writer inside an insert until it is released.
+     */
+    private static class RecordingTeacherDAO extends TeacherDAOImpl {
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean held;
+
+        RecordingTeacherDAO(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        void hold() {
+            held = true;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public List<Teacher> insertAll(List<Teacher> teachers) throws TeacherDAOException {
+            batchSizes.add(teachers.size());
+            if (held) {
+                entered.countDown();
+                try {
+                    released.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.insertAll(teachers);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package gr.aueb.cf.teachersjaxapp.service.invalidation;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.TestDatabase;
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.search.TeacherSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherInvalidationRelayTest {
+    private static final UUID OTHER_NODE = UUID.randomUUID();
+
+    private TeacherCache cache;
+    private TeacherInvalidationRelay relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TeacherDAOImpl dao = new TeacherDAOImpl(TestDatabase.create());
+        cache = new TeacherCache(true, 100, Duration.ofMinutes(5));
+        relay = new TeacherInvalidationRelay(new LocalInvalidationBus(), cache, new TeacherSearchIndex(dao), dao);
+    }
+
+    @Test
+    void evictsTheTeachersChangedOnAnotherNode() {
+        cache.put(new Teacher(1L, "Anna", "Andreou"));
+        cache.put(new Teacher(2L, "Nikos", "Nikolaou"));
+
+        relay.onMessage(changed(1, 1));
+
+        assertNull(cache.peek(1));
+        assertNotNull(cache.peek(2));
+        assertEquals(0, relay.getGaps());
+    }
+
+    @Test
+    void startsTheNumberingOfANodeAtItsFirstMessage() {
+        relay.onMessage(changed(1, 41));
+        relay.onMessage(changed(2, 42));
+        relay.onMessage(InvalidationMessage.heartbeat(OTHER_NODE, 42));
+
+        assertEquals(0, relay.getGaps());
+    }
+
+    @Test
+    void clearsTheCacheWhenAMessageIsLost() {
+        relay.onMessage(changed(1, 1));
+        cache.put(new Teacher(2L, "Nikos", "Nikolaou"));
+
+        relay.onMessage(changed(3, 3));
+
+        assertEquals(1, relay.getGaps());
+        assertNull(cache.peek(2));
+    }
+
+    @Test
+    void detectsALostLastMessageFromTheHeartbeat() {
+        relay.onMessage(changed(1, 1));
+        relay.onMessage(InvalidationMessage.heartbeat(OTHER_NODE, 1));
+        assertEquals(0, relay.getGaps());
+
+        relay.onMessage(InvalidationMessage.heartbeat(OTHER_NODE, 2));
+        relay.onMessage(InvalidationMessage.heartbeat(OTHER_NODE, 2));
+
+        assertEquals(1, relay.getGaps());
+    }
+
+    @Test
+    void ignoresItsOwnAndRepeatedMessages() {
+        relay.onMessage(new InvalidationMessage(relay.getNodeId(), 5, TeacherChangedEvent.Type.UPDATED, 1));
+        relay.onMessage(changed(1, 1));
+        relay.onMessage(changed(1, 1));
+        relay.onMessage(changed(2, 2));
+
+        assertEquals(3, relay.getReceived());
+        assertEquals(0, relay.getGaps());
+    }
+
+    @Test
+    void encodesAndDecodesTheMessages() {
+        InvalidationMessage message = new InvalidationMessage(OTHER_NODE, 7, TeacherChangedEvent.Type.DELETED, 42);
+        byte[] bytes = message.toBytes();
+
+        InvalidationMessage decoded = InvalidationMessage.fromBytes(bytes, 0, bytes.length);
+        assertEquals(OTHER_NODE, decoded.getNodeId());
+        assertEquals(7, decoded.getSequence());
+        assertEquals(TeacherChangedEvent.Type.DELETED, decoded.getType());
+        assertEquals(42, decoded.getTeacherId());
+
+        byte[] heartbeat = InvalidationMessage.heartbeat(OTHER_NODE, 7).toBytes();
+        assertTrue(InvalidationMessage.fromBytes(heartbeat, 0, heartbeat.length).isHeartbeat());
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.fromBytes(bytes, 0, bytes.length - 1));
+    }
+
+    private static InvalidationMessage changed(long teacherId, long sequence) {
+        return new InvalidationMessage(OTHER_NODE, sequence, TeacherChangedEvent.Type.UPDATED, teacherId);
+    }
+}
@@ -0,0 +1,156 @@
+package gr.aueb.cf.teachersjaxapp.service.loader;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.TestDatabase;
+import gr.aueb.cf.teachersjaxapp.dao.cache.TeacherCache;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TeacherBatchLoaderTest {
+    private RecordingTeacherDAO database;
+    private TeacherCache cache;
+    private ExecutorService executor;
+    private List<Teacher> teachers;
+
+    @BeforeEach
+    void setUp() throws SQLException, TeacherDAOException {
+        database = new RecordingTeacherDAO(TestDatabase.create());
+        cache = new TeacherCache(true, 10, Duration.ofMinutes(5));
+        executor = Executors.newFixedThreadPool(3);
+        teachers = database.insertAll(List.of(
+                new Teacher(null, "Anna", "Andreou"),
+                new Teacher(null, "Nikos", "Nikolaou"),
+                new Teacher(null, "Maria", "Marinou")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void readsTheLookupsOfOneWindowWithOneQuery() throws Exception {
+        TeacherBatchLoader loader = new TeacherBatchLoader(database, cache, TimeUnit.MILLISECONDS.toMicros(500), 100);
+
+        Future<Teacher> first = load(loader, id(0));
+        Future<Teacher> second = load(loader, id(1));
+        Future<Teacher> missing = load(loader, 999);
+
+        assertEquals("Andreou", first.get(5, TimeUnit.SECONDS).getLastname());
+        assertEquals("Nikolaou", second.get(5, TimeUnit.SECONDS).getLastname());
+        assertNull(missing.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(id(0), id(1), 999L)), database.batches);
+    }
+
+    @Test
+    void readsAFullBatchBeforeTheWindowEnds() throws Exception {
+        TeacherBatchLoader loader = new TeacherBatchLoader(database, cache, TimeUnit.SECONDS.toMicros(3), 2);
+
+        CompletableFuture<Teacher> first = loadAsync(loader, id(0));
+        CompletableFuture<Teacher> second = loadAsync(loader, id(1));
+
+        // The lookup that filled the batch returns while the leader still waits out its window
+        Teacher earliest = (Teacher) CompletableFuture.anyOf(first, second).get(2, TimeUnit.SECONDS);
+        assertEquals(1, database.batches.size());
+        assertEquals(Set.of(id(0), id(1)), database.batches.get(0));
+        assertEquals(Set.of("Andreou", "Nikolaou"),
+                Set.of(first.get(5, TimeUnit.SECONDS).getLastname(), second.get(5, TimeUnit.SECONDS).getLastname()));
+        assertNotNull(earliest);
+    }
+
+    @Test
+    void failsEveryLookupOfAFailedBatch() {
+        database.failWith(new TeacherDAOException("SQL Error"));
+        TeacherBatchLoader loader = new TeacherBatchLoader(database, cache, TimeUnit.MILLISECONDS.toMicros(200), 2);
+
+        Future<Teacher> first = load(loader, id(0));
+        Future<Teacher> second = load(loader, id(1));
+
+        assertInstanceOf(TeacherDAOException.class, cause(first));
+        assertInstanceOf(TeacherDAOException.class, cause(second));
+    }
+
+    @Test
+    void failsEveryLookupWhenTheReadThrowsAnError() {
+        AssertionError error = new AssertionError("broken driver");
+        database.failWith(error);
+        TeacherBatchLoader loader = new TeacherBatchLoader(database, cache, TimeUnit.MILLISECONDS.toMicros(200), 2);
+
+        Future<Teacher> first = load(loader, id(0));
+        Future<Teacher> second = load(loader, id(1));
+
+        assertSame(error, cause(first).getCause());
+        assertSame(error, cause(second).getCause());
+    }
+
+    private long id(int index) {
+        return teachers.get(index).getId();
+    }
+
+    private Future<Teacher> load(TeacherBatchLoader loader, long id) {
+        return executor.submit(() -> loader.load(id));
+    }
+
+    private CompletableFuture<Teacher> loadAsync(TeacherBatchLoader loader, long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(id);
+            } catch (TeacherDAOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, executor);
+    }
+
+    private static Throwable cause(Future<Teacher> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+    /**
+     * A DAO that records the ids of every batch read and can fail them.
+     */
+    private static class RecordingTeacherDAO extends TeacherDAOImpl {
+        private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+        private volatile Throwable failure;
+
+        RecordingTeacherDAO(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        void failWith(Throwable failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public List<Teacher> getByIds(Collection<Long> ids) throws TeacherDAOException {
+            batches.add(Set.copyOf(new ArrayList<>(ids)));
+            if (failure instanceof TeacherDAOException) throw (TeacherDAOException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            return super.getByIds(ids);
+        }
+    }
+}
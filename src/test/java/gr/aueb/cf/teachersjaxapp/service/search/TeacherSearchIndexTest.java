@@ -0,0 +1,160 @@
+package gr.aueb.cf.teachersjaxapp.service.search;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.TeacherRowCallback;
+import gr.aueb.cf.teachersjaxapp.dao.TestDatabase;
+import gr.aueb.cf.teachersjaxapp.dao.events.TeacherChangedEvent;
+import gr.aueb.cf.teachersjaxapp.dao.exceptions.TeacherDAOException;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.service.util.ReadConsistency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeacherSearchIndexTest {
+    private PausingTeacherDAO database;
+    private TeacherSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = TestDatabase.create();
+        database = new PausingTeacherDAO(dataSource);
+        database.insert(new Teacher(null, "Nikos", "Papadopoulos"));
+        database.insert(new Teacher(null, "Maria", "Papas"));
+        database.insert(new Teacher(null, "Papas", "Georgiou"));
+        database.insert(new Teacher(null, "Eleni", "Papadopoulou"));
+        index = new TeacherSearchIndex(database);
+    }
+
+    @Test
+    void rebuildsFromAllTheTeachersOfThePrimary() {
+        assertTrue(index.rebuild());
+
+        assertTrue(database.primaryRequired);
+        assertFalse(ReadConsistency.isPrimaryRequired());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void ranksExactLastnamesAboveExactFirstnamesAndPrefixes() {
+        assertTrue(index.rebuild());
+
+        assertEquals(List.of("Papas", "Georgiou"), lastnames(index.search("papas", 10)));
+        assertEquals(List.of("Papadopoulos", "Papadopoulou", "Papas", "Georgiou"), lastnames(index.search("pap", 10)));
+        assertEquals(List.of("Papadopoulos"), lastnames(index.search("pap", 1)));
+    }
+
+    @Test
+    void narrowsTheMatchesOfTheLongerTermsWithAShortTerm() {
+        assertTrue(index.rebuild());
+
+        assertEquals(List.of("Papadopoulos"), lastnames(index.search("papado n", 10)));
+        assertEquals(List.of("Papadopoulou"), lastnames(index.search("e papado", 10)));
+    }
+
+    @Test
+    void matchesWholeNamesWithOnlyShortTerms() throws TeacherDAOException {
+        database.insert(new Teacher(null, "Ai", "Li"));
+        assertTrue(index.rebuild());
+
+        assertEquals(List.of("Li"), lastnames(index.search("li", 10)));
+        assertEquals(List.of(), lastnames(index.search("pa", 10)));
+    }
+
+    @Test
+    void keepsTheChangesMadeWhileRebuilding() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            database.pause();
+            Future<Boolean> rebuild = executor.submit(index::rebuild);
+            assertTrue(database.streaming.await(5, TimeUnit.SECONDS));
+
+            index.onTeacherChanged(new TeacherChangedEvent(TeacherChangedEvent.Type.INSERTED,
+                    new Teacher(100L, "Kostas", "Karras")));
+            database.resume.countDown();
+
+            assertTrue(rebuild.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("Karras"), lastnames(index.search("karr", 10)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void runsConcurrentRebuildsOneAtATime() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            database.pause();
+            Future<Boolean> first = executor.submit(index::rebuild);
+            assertTrue(database.streaming.await(5, TimeUnit.SECONDS));
+            Future<Boolean> second = executor.submit(index::rebuild);
+
+            Teacher inserted = database.insert(new Teacher(null, "Kostas", "Karras"));
+            index.onTeacherChanged(new TeacherChangedEvent(TeacherChangedEvent.Type.INSERTED, inserted));
+            database.resume.countDown();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertEquals(5, index.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> lastnames(List<Teacher> teachers) {
+        List<String> lastnames = new ArrayList<>();
+        for (Teacher teacher : teachers) {
+            lastnames.add(teacher.getLastname());
+        }
+        return lastnames;
+    }
+
+    /**
+     * A DAO whose first full stream after a pause is held before it reads the rows.
+     */
+    private static class PausingTeacherDAO extends TeacherDAOImpl {
+        private volatile boolean paused;
+        private volatile boolean primaryRequired;
+        private CountDownLatch streaming;
+        private CountDownLatch resume;
+
+        PausingTeacherDAO(DataSource dataSource) throws SQLException {
+            super(dataSource);
+        }
+
+        void pause() {
+            streaming = new CountDownLatch(1);
+            resume = new CountDownLatch(1);
+            paused = true;
+        }
+
+        @Override
+        public void streamAll(TeacherRowCallback callback) throws TeacherDAOException, IOException {
+            primaryRequired = ReadConsistency.isPrimaryRequired();
+            if (paused) {
+                paused = false;
+                streaming.countDown();
+                try {
+                    resume.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.streamAll(callback);
+        }
+    }
+}
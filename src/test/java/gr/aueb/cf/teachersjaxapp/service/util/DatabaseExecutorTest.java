@@ -0,0 +1,208 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseExecutorTest {
+    private final ManualTimer timer = new ManualTimer();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DatabaseExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("async.threads", "1");
+        System.setProperty("async.queueCapacity", "1");
+        System.setProperty("async.timeoutMillis", "10000");
+        System.setProperty("async.virtualThreads", "false");
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+        System.clearProperty("async.threads");
+        System.clearProperty("async.queueCapacity");
+        System.clearProperty("async.timeoutMillis");
+        System.clearProperty("async.virtualThreads");
+    }
+
+    @Test
+    void passesTheCorrelationIdOnToTheTask() throws Exception {
+        start(null);
+        String previous = CorrelationId.bind("request-1");
+        try {
+            CompletableFuture<String> result = executor.submit(CorrelationId::current).toCompletableFuture();
+            assertEquals("request-1", result.get(5, TimeUnit.SECONDS));
+        } finally {
+            CorrelationId.bind(previous);
+        }
+    }
+
+    @Test
+    void interruptsATaskThatDoesNotCompleteInTime() throws Exception {
+        start(null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<Object> result = executor.submit(() -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }).toCompletableFuture();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        timer.expire(0);
+
+        assertInstanceOf(TimeoutException.class, failure(result));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.getTimedOut());
+    }
+
+    @Test
+    void dropsATaskThatDoesNotStartInTime() throws Exception {
+        start(null);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Boolean> running = executor.submit(() -> release.await(10, TimeUnit.SECONDS))
+                .toCompletableFuture();
+        CompletableFuture<Object> queued = executor.submit(() -> {
+            ran.set(true);
+            return null;
+        }).toCompletableFuture();
+        timer.expire(1);
+
+        assertInstanceOf(RejectedExecutionException.class, failure(queued));
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        // The only thread takes the tasks in order, so the dropped one has been skipped by now
+        executor.submit(() -> null).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+        assertEquals(1, executor.getTimedOut());
+    }
+
+    @Test
+    void rejectsTasksBeyondTheCapacity() throws Exception {
+        start(null);
+        executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+        executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Object> rejected = executor.submit(() -> null).toCompletableFuture();
+
+        assertInstanceOf(RejectedExecutionException.class, failure(rejected));
+        assertEquals(1, executor.getRejected());
+    }
+
+    @Test
+    void givesATaskWithItsOwnTimeoutThatTime() throws Exception {
+        start(null);
+
+        executor.submit(() -> "done", 60_000).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        executor.submit(() -> "done").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(60_000L, 10_000L), timer.delays);
+    }
+
+    @Test
+    void runsOnlyAsManyTasksAsThreadsOnAThreadPerTask() throws Exception {
+        ExecutorService threadPerTask = Executors.newCachedThreadPool();
+        start(threadPerTask);
+        AtomicBoolean firstDone = new AtomicBoolean();
+
+        CompletableFuture<Object> first = executor.submit(() -> {
+            release.await(10, TimeUnit.SECONDS);
+            firstDone.set(true);
+            return null;
+        }).toCompletableFuture();
+        CompletableFuture<Boolean> second = executor.submit(firstDone::get).toCompletableFuture();
+        CompletableFuture<Object> rejected = executor.submit(() -> null).toCompletableFuture();
+
+        assertInstanceOf(RejectedExecutionException.class, failure(rejected));
+        assertFalse(second.isDone());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dropsATaskThatWaitsTooLongForAThreadOnAThreadPerTask() throws Exception {
+        ExecutorService threadPerTask = Executors.newCachedThreadPool();
+        start(threadPerTask);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Boolean> running = executor.submit(() -> release.await(10, TimeUnit.SECONDS))
+                .toCompletableFuture();
+        CompletableFuture<Object> waiting = executor.submit(() -> {
+            ran.set(true);
+            return null;
+        }).toCompletableFuture();
+        timer.expire(1);
+
+        assertInstanceOf(RejectedExecutionException.class, failure(waiting));
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        threadPerTask.shutdown();
+        assertTrue(threadPerTask.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(0, executor.getInFlight());
+    }
+
+    private void start(ExecutorService threadPerTask) {
+        executor = new DatabaseExecutor(threadPerTask, timer);
+        executor.init();
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    /**
+     * A timer whose timeouts only expire when the test says so.
+     */
+    private static class ManualTimer extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> timeouts = new CopyOnWriteArrayList<>();
+        private final List<Long> delays = new CopyOnWriteArrayList<>();
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            timeouts.add(command);
+            delays.add(unit.toMillis(delay));
+            return super.schedule(() -> { }, 1, TimeUnit.DAYS);
+        }
+
+        /**
+         * Runs the timeout of the task submitted at the given index.
+         */
+        void expire(int index) {
+            timeouts.get(index).run();
+        }
+    }
+}
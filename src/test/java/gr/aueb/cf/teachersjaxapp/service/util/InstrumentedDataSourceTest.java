@@ -0,0 +1,89 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedDataSourceTest {
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        BasicDataSource pool = new BasicDataSource();
+        pool.setUrl("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1");
+        pool.setMaxTotal(2);
+        pool.setMaxWaitMillis(100);
+        dataSource = new InstrumentedDataSource(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void countsBorrowsAndActiveConnections() throws SQLException {
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            assertNotSame(first, second);
+            assertEquals(2, dataSource.getNumActive());
+        }
+
+        assertEquals(0, dataSource.getNumActive());
+        assertEquals(2, dataSource.getNumIdle());
+        assertEquals(2, dataSource.getBorrowCount());
+        assertEquals(0, dataSource.getFailedBorrowCount());
+        assertTrue(dataSource.getMaxWaitMillis() >= dataSource.getAverageWaitMillis());
+    }
+
+    @Test
+    void countsBorrowsThatTimeOutOnAnExhaustedPool() throws SQLException {
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            assertThrows(SQLException.class, dataSource::getConnection);
+            assertFalse(first.isClosed() || second.isClosed());
+        }
+
+        assertEquals(2, dataSource.getBorrowCount());
+        assertEquals(1, dataSource.getFailedBorrowCount());
+    }
+
+    @Test
+    void notifiesTheListenerOfEveryStatement() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        List<Boolean> outcomes = new ArrayList<>();
+        dataSource.setStatementListener((sql, nanos, success) -> {
+            statements.add(sql);
+            outcomes.add(success);
+        });
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT 1")) {
+                ps.executeQuery().close();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("SELECT CAST(? AS INT)")) {
+                ps.setString(1, "not a number");
+                ps.executeQuery();
+            } catch (SQLException e) {
+                // Expected: the failed statement is reported too
+            }
+        }
+
+        assertEquals(List.of("SELECT 1", "SELECT CAST(? AS INT)"), statements);
+        assertTrue(outcomes.get(0));
+        assertFalse(outcomes.get(1));
+    }
+}
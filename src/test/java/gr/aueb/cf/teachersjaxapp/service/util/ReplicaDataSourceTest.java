@@ -0,0 +1,187 @@
+package gr.aueb.cf.teachersjaxapp.service.util;
+
+import gr.aueb.cf.teachersjaxapp.dao.TeacherDAOImpl;
+import gr.aueb.cf.teachersjaxapp.dao.TestDatabase;
+import gr.aueb.cf.teachersjaxapp.model.Teacher;
+import gr.aueb.cf.teachersjaxapp.rest.filter.ReadConsistencyFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReplicaDataSourceTest {
+    private InstrumentedDataSource primary;
+    private InstrumentedDataSource replica;
+    private InstrumentedDataSource otherReplica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = TestDatabase.createPool();
+        replica = TestDatabase.createPool();
+        otherReplica = TestDatabase.createPool();
+        // The databases are not replicated, so every read shows where it went
+        TestDatabase.execute(primary, "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES ('Anna', 'Primary')");
+        TestDatabase.execute(replica, "INSERT INTO TEACHERS (FIRSTNAME, LASTNAME) VALUES ('Anna', 'Replica')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadConsistency.bind(null);
+        primary.close();
+        replica.close();
+        otherReplica.close();
+    }
+
+    @Test
+    void readsTheLastnamesPagesAndStreamsFromTheReplica() throws Exception {
+        ReplicaDataSource readDataSource = new ReplicaDataSource(primary, List.of(replica), false);
+        TeacherDAOImpl dao = new TeacherDAOImpl(primary, readDataSource);
+
+        assertEquals(List.of("Replica"), lastnames(dao.getByLastname("")));
+        assertEquals(List.of("Replica"), lastnames(dao.getByLastname("", null, 10)));
+        List<Teacher> streamed = new ArrayList<>();
+        dao.streamByLastname("", streamed::add);
+        assertEquals(List.of("Replica"), lastnames(streamed));
+
+        assertEquals(3, readDataSource.getReplicaReads());
+        assertEquals(0, readDataSource.getPrimaryReads());
+    }
+
+    @Test
+    void takesTheReplicasInTurn() throws Exception {
+        ReplicaDataSource readDataSource = new ReplicaDataSource(primary, List.of(replica, otherReplica), false);
+        long replicaBorrows = replica.getBorrowCount();
+
+        for (int i = 0; i < 4; i++) {
+            readDataSource.getConnection().close();
+        }
+
+        assertEquals(2, replica.getBorrowCount() - replicaBorrows);
+        assertEquals(2, otherReplica.getBorrowCount());
+    }
+
+    @Test
+    void takesTheReplicaWithTheFewestActiveConnections() throws Exception {
+        ReplicaDataSource readDataSource = new ReplicaDataSource(primary, List.of(replica, otherReplica), true);
+        long replicaBorrows = replica.getBorrowCount();
+
+        try (Connection held = readDataSource.getConnection()) {
+            assertFalse(held.isClosed());
+            assertEquals(1, replica.getNumActive());
+            // The idle replica is taken every time, whichever replica is next in turn
+            for (int i = 0; i < 3; i++) {
+                readDataSource.getConnection().close();
+            }
+        }
+
+        assertEquals(1, replica.getBorrowCount() - replicaBorrows);
+        assertEquals(3, otherReplica.getBorrowCount());
+    }
+
+    @Test
+    void readsFromThePrimaryWhenTheReplicaFails() throws Exception {
+        ReplicaDataSource readDataSource = new ReplicaDataSource(primary, List.of(replica), false);
+        TeacherDAOImpl dao = new TeacherDAOImpl(primary, readDataSource);
+        replica.close();
+
+        assertEquals(List.of("Primary"), lastnames(dao.getByLastname("")));
+        assertEquals(1, readDataSource.getReplicaFailures());
+        assertEquals(1, readDataSource.getPrimaryReads());
+        assertEquals(0, readDataSource.getReplicaReads());
+    }
+
+    @Test
+    void readsYourWritesFromThePrimary() throws Exception {
+        TeacherDAOImpl dao = new TeacherDAOImpl(primary, new ReplicaDataSource(primary, List.of(replica), false));
+        ReadConsistencyFilter filter = new ReadConsistencyFilter();
+        long now = System.currentTimeMillis();
+
+        assertEquals(List.of("Replica"), lastnamesOfRequest(filter, dao, null));
+        assertEquals(List.of("Primary"), lastnamesOfRequest(filter, dao, "true"));
+        assertEquals(List.of("Primary"), lastnamesOfRequest(filter, dao, Long.toString(now)));
+        assertEquals(List.of("Replica"), lastnamesOfRequest(filter, dao, Long.toString(now - TimeUnit.HOURS.toMillis(1))));
+        assertNull(ReadConsistency.current());
+    }
+
+    @Test
+    void readsFromThePrimaryAfterTheRequestHasWritten() throws Exception {
+        TeacherDAOImpl dao = new TeacherDAOImpl(primary, new ReplicaDataSource(primary, List.of(replica), false));
+        ReadConsistencyFilter filter = new ReadConsistencyFilter();
+        ContainerRequestContext request = request(null);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+        filter.filter(request);
+        dao.insert(new Teacher(null, "Nikos", "Primary"));
+        List<String> lastnames = lastnames(dao.getByLastname(""));
+        filter.filter(request, response(headers));
+
+        assertEquals(List.of("Primary", "Primary"), lastnames);
+        assertEquals(1, headers.get(ReadConsistencyFilter.LAST_WRITE).size());
+    }
+
+    private static List<String> lastnamesOfRequest(ReadConsistencyFilter filter, TeacherDAOImpl dao, String header)
+            throws Exception {
+        ContainerRequestContext request = request(header);
+        filter.filter(request);
+        try {
+            return lastnames(dao.getByLastname(""));
+        } finally {
+            filter.filter(request, response(new MultivaluedHashMap<>()));
+        }
+    }
+
+    private static List<String> lastnames(List<Teacher> teachers) {
+        List<String> lastnames = new ArrayList<>(teachers.size());
+        for (Teacher teacher : teachers) lastnames.add(teacher.getLastname());
+        return lastnames;
+    }
+
+    private static ContainerRequestContext request(String readYourWrites) {
+        Map<String, Object> properties = new HashMap<>();
+        return proxy(ContainerRequestContext.class, (name, args) -> {
+            switch (name) {
+                case "getHeaderString":
+                    return ReadConsistencyFilter.READ_YOUR_WRITES.equals(args[0]) ? readYourWrites : null;
+                case "setProperty":
+                    properties.put((String) args[0], args[1]);
+                    return null;
+                case "getProperty":
+                    return properties.get((String) args[0]);
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    private static ContainerResponseContext response(MultivaluedMap<String, Object> headers) {
+        return proxy(ContainerResponseContext.class, (name, args) -> {
+            if (name.equals("getHeaders")) return headers;
+            throw new UnsupportedOperationException(name);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args));
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args) throws Exception;
+    }
+}